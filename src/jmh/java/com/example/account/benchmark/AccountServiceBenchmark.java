@@ -0,0 +1,70 @@
+package com.example.account.benchmark;
+
+import com.example.account.dto.AccountDto;
+import com.example.account.service.AccountService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+AccountService 핫패스 벤치마크
+1. 계좌 생성 (createAccount)
+2. 사용자별 계좌 조회 (getAccountsByUserId)
+
+./gradlew jmh -PjmhIncludes=AccountServiceBenchmark -PjmhThreads=8
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class AccountServiceBenchmark {
+  // 계좌 생성용 사용자 수. 사용자당 10개까지만 만들 수 있어서 iteration 마다 비워준다.
+  private static final int CREATE_USERS = 100_000;
+
+  @Param({"100", "10000"})
+  public int numAccounts;
+
+  // 전체 조회 중 0번 계좌 주인에게 몰리는 비율 (0 = 균등 분포)
+  @Param({"0.0", "0.9"})
+  public double hotAccountRatio;
+
+  private BenchmarkContext context;
+  private AccountService accountService;
+  private long firstCreateUserId;
+  private final AtomicLong createSequence = new AtomicLong();
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = new BenchmarkContext();
+    context.seedAccounts(numAccounts);
+    firstCreateUserId = context.seedUsers(CREATE_USERS);
+    accountService = context.getBean(AccountService.class);
+  }
+
+  @Setup(Level.Iteration)
+  public void clearCreatedAccounts() {
+    context.jdbc().update("delete from account where account_user_id >= ?", firstCreateUserId);
+    context.jdbc().update("update account_user set account_count = 0 where id >= ?", firstCreateUserId);
+    createSequence.set(0);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public AccountDto createAccount() {
+    long userId = firstCreateUserId + createSequence.getAndIncrement() % CREATE_USERS;
+    return accountService.createAccount(userId, 1_000L);
+  }
+
+  @Benchmark
+  public List<AccountDto> getAccountsByUserId() {
+    return accountService.getAccountsByUserId(
+        context.ownerOf(context.pickAccount(hotAccountRatio)));
+  }
+}
@@ -0,0 +1,157 @@
+package com.example.account.benchmark;
+
+import com.example.account.AccountApplication;
+import com.example.account.service.AccountCountRepairJob;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+벤치마크용 애플리케이션 컨텍스트
+실제 H2 + JPA + (embedded) Redis 스택을 그대로 띄우고
+JDBC 배치로 사용자/계좌를 미리 넣어둔다.
+*/
+public class BenchmarkContext implements AutoCloseable {
+  public static final long SEED_BALANCE = 1_000_000_000_000L;
+  public static final long FIRST_SEED_ID = 1_000L;
+  public static final long FIRST_ACCOUNT_NUMBER = 2_000_000_000L;
+  public static final int ACCOUNTS_PER_USER = 10;
+
+  private final ConfigurableApplicationContext context;
+  private final List<String> accountNumbers = new ArrayList<>();
+  private final List<Long> accountOwners = new ArrayList<>();
+  private long nextId = FIRST_SEED_ID;
+
+  public BenchmarkContext(Properties overrides) {
+    this(overrides, WebApplicationType.NONE);
+  }
+
+  public BenchmarkContext(Properties overrides, WebApplicationType webApplicationType) {
+    Properties properties = new Properties();
+    properties.setProperty("spring.redis.port", String.valueOf(freePort()));
+    properties.setProperty("spring.jpa.properties.hibernate.show_sql", "false");
+    properties.setProperty("spring.jpa.properties.hibernate.format_sql", "false");
+    properties.setProperty("spring.h2.console.enabled", "false");
+    properties.setProperty("logging.level.root", "WARN");
+    properties.putAll(overrides);
+
+    // application.yml 보다 우선하도록 커맨드라인 인자로 넘긴다.
+    String[] args = properties.stringPropertyNames().stream()
+        .map(key -> "--" + key + "=" + properties.getProperty(key))
+        .toArray(String[]::new);
+
+    SpringApplication application = new SpringApplication(AccountApplication.class);
+    application.setWebApplicationType(webApplicationType);
+    this.context = application.run(args);
+  }
+
+  public BenchmarkContext() {
+    this(new Properties());
+  }
+
+  public <T> T getBean(Class<T> type) {
+    return context.getBean(type);
+  }
+
+  // WebApplicationType.SERVLET 으로 띄웠을 때 실제로 열린 포트
+  public int serverPort() {
+    return ((WebServerApplicationContext) context).getWebServer().getPort();
+  }
+
+  public JdbcTemplate jdbc() {
+    return context.getBean(JdbcTemplate.class);
+  }
+
+  /**
+   * numAccounts 개의 계좌를 사용자당 최대 10개씩 나눠서 만든다.
+   */
+  public void seedAccounts(int numAccounts) {
+    JdbcTemplate jdbc = jdbc();
+    int numUsers = (numAccounts + ACCOUNTS_PER_USER - 1) / ACCOUNTS_PER_USER;
+    long firstUserId = seedUsers(numUsers);
+
+    List<Object[]> rows = new ArrayList<>(numAccounts);
+    for (int i = 0; i < numAccounts; i++) {
+      long ownerId = firstUserId + i / ACCOUNTS_PER_USER;
+      String accountNumber = String.valueOf(FIRST_ACCOUNT_NUMBER + accountNumbers.size());
+      rows.add(new Object[]{nextId++, ownerId, accountNumber, SEED_BALANCE});
+      accountNumbers.add(accountNumber);
+      accountOwners.add(ownerId);
+    }
+    jdbc.batchUpdate("insert into account(id, account_user_id, account_number, account_status, balance, "
+        + "version, registered_at, created_at, updated_at) values (?, ?, ?, 'IN_USE', ?, 0, now(), now(), now())", rows);
+    // 직접 넣은 계좌는 사용자별 계좌 수에 반영되지 않으므로 다시 센다.
+    getBean(AccountCountRepairJob.class).repair();
+    restartSequences();
+  }
+
+  /**
+   * 계좌가 없는 사용자를 numUsers 명 만들고 첫번째 id 를 돌려준다.
+   */
+  public long seedUsers(int numUsers) {
+    long firstUserId = nextId;
+    List<Object[]> rows = new ArrayList<>(numUsers);
+    for (int i = 0; i < numUsers; i++) {
+      long userId = nextId++;
+      rows.add(new Object[]{userId, "bench-" + userId});
+    }
+    jdbc().batchUpdate("insert into account_user(id, name, create_at, update_at) values (?, ?, now(), now())", rows);
+    restartSequences();
+    return firstUserId;
+  }
+
+  // 직접 넣은 id 와 JPA 가 발급하는 id 가 겹치지 않게 시퀀스를 뒤로 민다.
+  private void restartSequences() {
+    JdbcTemplate jdbc = jdbc();
+    for (String sequence : jdbc.queryForList(
+        "select sequence_name from information_schema.sequences where sequence_schema = 'PUBLIC'",
+        String.class)) {
+      jdbc.execute("alter sequence " + sequence + " restart with " + (nextId + 1_000_000L));
+    }
+  }
+
+  public int accountCount() {
+    return accountNumbers.size();
+  }
+
+  public String accountNumber(int index) {
+    return accountNumbers.get(index);
+  }
+
+  public long ownerOf(int index) {
+    return accountOwners.get(index);
+  }
+
+  /**
+   * hotAccountRatio 확률로 0번(hot) 계좌를, 나머지는 균등하게 고른다.
+   */
+  public int pickAccount(double hotAccountRatio) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    if (hotAccountRatio > 0 && random.nextDouble() < hotAccountRatio) {
+      return 0;
+    }
+    return random.nextInt(accountNumbers.size());
+  }
+
+  @Override
+  public void close() {
+    context.close();
+  }
+
+  private static int freePort() {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    } catch (IOException e) {
+      throw new IllegalStateException("No free port for embedded redis", e);
+    }
+  }
+}
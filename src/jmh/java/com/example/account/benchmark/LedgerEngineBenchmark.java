@@ -0,0 +1,73 @@
+package com.example.account.benchmark;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.engine.LedgerEngine;
+import com.example.account.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/*
+잔액 사용 : 기존 @Transactional 경로(service) vs single-writer 엔진(engine)
+vs 엔진 + 저널 모드(journal : 저널 append + fsync 후 응답, DB 반영은 뒤에서)
+hotAccountRatio 를 올릴수록 한 계좌에 요청이 몰린다.
+
+./gradlew jmh -PjmhIncludes=LedgerEngineBenchmark -PjmhThreads=16
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class LedgerEngineBenchmark {
+  private static final long AMOUNT = 100L;
+
+  @Param({"service", "engine", "journal"})
+  public String path;
+
+  @Param({"1000"})
+  public int numAccounts;
+
+  @Param({"0.0", "0.9"})
+  public double hotAccountRatio;
+
+  private BenchmarkContext context;
+  private TransactionService transactionService;
+  private LedgerEngine ledgerEngine;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    Properties properties = new Properties();
+    properties.setProperty("account.engine.enabled", String.valueOf(!"service".equals(path)));
+    if ("journal".equals(path)) {
+      properties.setProperty("account.engine.journal.enabled", "true");
+      properties.setProperty("account.engine.journal.dir",
+          Files.createTempDirectory("ledger-journal").toString());
+    }
+    context = new BenchmarkContext(properties);
+    context.seedAccounts(numAccounts);
+
+    if (!"service".equals(path)) {
+      ledgerEngine = context.getBean(LedgerEngine.class);
+    } else {
+      transactionService = context.getBean(TransactionService.class);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public TransactionDto useBalance() {
+    int index = context.pickAccount(hotAccountRatio);
+    if (ledgerEngine != null) {
+      return ledgerEngine.useBalance(context.ownerOf(index), context.accountNumber(index), AMOUNT);
+    }
+    return transactionService.useBalance(context.ownerOf(index), context.accountNumber(index), AMOUNT);
+  }
+}
@@ -0,0 +1,358 @@
+package com.example.account.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.WebApplicationType;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+HTTP 부하 생성기 (JMH 가 아닌 단독 실행 프로그램)
+웹 서버(embedded Redis 포함)를 띄우고 계좌를 넣은 뒤, 정해진 비율로 아래 요청을 섞어서 보낸다.
+  create : POST /account            (계좌가 없는 사용자에게 돌아가며 만든다)
+  use    : POST /transaction/use
+  cancel : POST /transaction/cancel (앞에서 성공한 use 를 하나씩 꺼내서 취소, 없으면 use 로 보낸다)
+  get    : GET /account?user_id=
+
+open model : 응답을 기다리지 않고 rate 에 맞춰 정해진 시각에 보낸다.
+지연시간은 실제로 보낸 시각이 아니라 보냈어야 할 시각부터 잰다. (coordinated omission 보정)
+서버가 밀려서 클라이언트가 늦게 보내도 그 대기 시간이 지연시간에 들어간다.
+
+계좌는 Zipf 분포로 고른다. (zipf=0 이면 균등, 0.99 면 상위 몇 개 계좌에 몰린다 >> hot 계좌 재현)
+
+./gradlew loadTest -PloadArgs='rate=2000 duration-sec=60 zipf=0.99 mix=use:60,cancel:15,get:20,create:5'
+--로 시작하는 인자는 애플리케이션 설정으로 넘긴다. (예 : --account.lock.strategy=optimistic)
+
+결과
+- 요청 종류별 성공/실패(상태코드별) 수, 처리량, p50 ~ p99.99 / max
+- 요청 종류별 HdrHistogram 분포 파일(.hgrm, ms 단위)을 out 디렉터리에 남긴다. (HdrHistogram plotter 로 겹쳐 볼 수 있다)
+
+주의 : 부하를 만드는 클라이언트도 같은 JVM 에 있으므로 절대값보다 설정 간 비교로 본다.
+*/
+public class LoadGenerator {
+  private static final long AMOUNT = 10L;
+  private static final long INITIAL_BALANCE = 1_000L;
+  private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(2);
+  private static final int CANCEL_BACKLOG = 100_000;
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  enum Operation {
+    CREATE, USE, CANCEL, GET
+  }
+
+  private final BenchmarkContext context;
+  private final HttpClient client;
+  private final String baseUrl;
+  private final ZipfianGenerator accounts;
+  private final Operation[] mix;
+  private final long firstCreateUserId;
+  private final int createUsers;
+  private final AtomicLong createSequence = new AtomicLong();
+  // 취소할 수 있는 (성공한) 사용 거래 : {transactionId, accountNumber}
+  private final Queue<String[]> cancellable = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger cancellableSize = new AtomicInteger();
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  private volatile Result result;
+
+  private LoadGenerator(BenchmarkContext context, HttpClient client, ZipfianGenerator accounts,
+                        Operation[] mix, long firstCreateUserId, int createUsers) {
+    this.context = context;
+    this.client = client;
+    this.baseUrl = "http://127.0.0.1:" + context.serverPort();
+    this.accounts = accounts;
+    this.mix = mix;
+    this.firstCreateUserId = firstCreateUserId;
+    this.createUsers = createUsers;
+  }
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> options = new HashMap<>();
+    Properties properties = new Properties();
+    properties.setProperty("server.port", "0");
+    for (String arg : args) {
+      String[] pair = arg.split("=", 2);
+      String value = pair.length > 1 ? pair[1] : "";
+      if (pair[0].startsWith("--")) {
+        properties.setProperty(pair[0].substring(2), value);
+      } else {
+        options.put(pair[0], value);
+      }
+    }
+
+    int rate = Integer.parseInt(options.getOrDefault("rate", "1000"));
+    int numAccounts = Integer.parseInt(options.getOrDefault("accounts", "10000"));
+    double zipf = Double.parseDouble(options.getOrDefault("zipf", "0.99"));
+    Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup-sec", "10")));
+    Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration-sec", "60")));
+    Map<Operation, Integer> weights = parseMix(options.getOrDefault("mix", "use:60,cancel:15,get:20,create:5"));
+    Path out = Paths.get(options.getOrDefault("out", "build/results/load"));
+
+    // 계좌 생성은 사용자당 10개까지라서 보낼 만큼 사용자를 미리 만든다.
+    long plannedCreates = rate * (warmup.toSeconds() + duration.toSeconds())
+        * weights.getOrDefault(Operation.CREATE, 0) / weights.values().stream().mapToInt(Integer::intValue).sum();
+    int createUsers = (int) Math.max(1, plannedCreates / BenchmarkContext.ACCOUNTS_PER_USER + 1);
+
+    try (BenchmarkContext context = new BenchmarkContext(properties, WebApplicationType.SERVLET)) {
+      context.seedAccounts(numAccounts);
+      long firstCreateUserId = context.seedUsers(createUsers);
+
+      ExecutorService clientExecutor = Executors.newFixedThreadPool(
+          Runtime.getRuntime().availableProcessors());
+      HttpClient client = HttpClient.newBuilder()
+          .version(HttpClient.Version.HTTP_1_1)
+          .executor(clientExecutor)
+          .connectTimeout(Duration.ofSeconds(10))
+          .build();
+
+      LoadGenerator generator = new LoadGenerator(context, client,
+          new ZipfianGenerator(numAccounts, zipf), toMix(weights), firstCreateUserId, createUsers);
+
+      System.out.printf("rate=%d req/s accounts=%d zipf=%s mix=%s warmup=%ds duration=%ds%n",
+          rate, numAccounts, zipf, weights, warmup.toSeconds(), duration.toSeconds());
+      generator.run(rate, warmup, null);
+      Result result = new Result();
+      generator.run(rate, duration, result);
+      clientExecutor.shutdownNow();
+
+      result.print(System.out, duration);
+      result.writeDistributions(out);
+    }
+  }
+
+  // duration 동안 rate 에 맞춰 보내고, 보낸 요청이 모두 끝날 때까지 기다린다.
+  private void run(int rate, Duration duration, Result result) throws InterruptedException {
+    this.result = result;
+    long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+    long start = System.nanoTime();
+    long end = start + duration.toNanos();
+    long nextReport = start + TimeUnit.SECONDS.toNanos(5);
+
+    for (long i = 0; ; i++) {
+      long intended = start + i * intervalNanos;
+      if (intended >= end) {
+        break;
+      }
+      long now;
+      while ((now = System.nanoTime()) < intended) {
+        LockSupport.parkNanos(intended - now);
+      }
+      send(mix[ThreadLocalRandom.current().nextInt(mix.length)], intended);
+
+      if (result != null && now >= nextReport) {
+        System.out.printf("  %3ds sent=%d inFlight=%d behind=%.1fms%n",
+            TimeUnit.NANOSECONDS.toSeconds(now - start), i + 1, inFlight.get(),
+            (now - intended) / 1_000_000.0);
+        nextReport += TimeUnit.SECONDS.toNanos(5);
+      }
+    }
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+    while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+  }
+
+  private void send(Operation operation, long intendedNanos) {
+    HttpRequest request;
+    String[] cancel = null;
+    if (operation == Operation.CANCEL) {
+      cancel = cancellable.poll();
+      if (cancel == null) {
+        operation = Operation.USE;
+      } else {
+        cancellableSize.decrementAndGet();
+      }
+    }
+
+    switch (operation) {
+      case CREATE:
+        long userId = firstCreateUserId + createSequence.getAndIncrement() % createUsers;
+        request = post("/account", String.format(
+            "{\"userId\":%d,\"initialBalance\":%d}", userId, INITIAL_BALANCE));
+        break;
+      case USE:
+        int account = accounts.next();
+        request = post("/transaction/use", String.format(
+            "{\"userId\":%d,\"accountNumber\":\"%s\",\"amount\":%d}",
+            context.ownerOf(account), context.accountNumber(account), AMOUNT));
+        break;
+      case CANCEL:
+        request = post("/transaction/cancel", String.format(
+            "{\"transactionId\":\"%s\",\"accountNumber\":\"%s\",\"amount\":%d}",
+            cancel[0], cancel[1], AMOUNT));
+        break;
+      default:
+        request = HttpRequest.newBuilder(URI.create(baseUrl + "/account?user_id="
+                + context.ownerOf(accounts.next())))
+            .timeout(Duration.ofSeconds(60))
+            .GET()
+            .build();
+    }
+
+    Result recordTo = result;
+    Operation sent = operation;
+    inFlight.incrementAndGet();
+    client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+        .whenComplete((response, e) -> {
+          long latencyNanos = System.nanoTime() - intendedNanos;
+          int status = e == null ? response.statusCode() : 0;
+          if (sent == Operation.USE && status == 200) {
+            rememberForCancel(response.body());
+          }
+          if (recordTo != null) {
+            recordTo.record(sent, status, latencyNanos);
+          }
+          inFlight.decrementAndGet();
+        });
+  }
+
+  private HttpRequest post(String path, String body) {
+    return HttpRequest.newBuilder(URI.create(baseUrl + path))
+        .timeout(Duration.ofSeconds(60))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(body))
+        .build();
+  }
+
+  private void rememberForCancel(String body) {
+    if (cancellableSize.get() >= CANCEL_BACKLOG) {
+      return;
+    }
+    try {
+      JsonNode use = OBJECT_MAPPER.readTree(body);
+      cancellable.add(new String[]{use.get("transactionId").asText(), use.get("accountNumber").asText()});
+      cancellableSize.incrementAndGet();
+    } catch (IOException e) {
+      // 응답을 못 읽은 거래는 취소 대상에서 뺀다.
+    }
+  }
+
+  // use:60,cancel:15,get:20,create:5
+  private static Map<Operation, Integer> parseMix(String mix) {
+    Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+    for (String entry : mix.split(",")) {
+      String[] pair = entry.split(":", 2);
+      int weight = Integer.parseInt(pair[1].trim());
+      if (weight > 0) {
+        weights.put(Operation.valueOf(pair[0].trim().toUpperCase()), weight);
+      }
+    }
+    if (weights.isEmpty()) {
+      throw new IllegalArgumentException("mix has no operation : " + mix);
+    }
+    return weights;
+  }
+
+  // 가중치만큼 칸을 채운 배열 (보낼 때마다 균등하게 한 칸을 고른다)
+  private static Operation[] toMix(Map<Operation, Integer> weights) {
+    List<Operation> slots = new ArrayList<>();
+    weights.forEach((operation, weight) -> slots.addAll(Collections.nCopies(weight, operation)));
+    return slots.toArray(new Operation[0]);
+  }
+
+  private static class Result {
+    private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> ok = new EnumMap<>(Operation.class);
+    // 0 은 연결 실패, 타임아웃
+    private final Map<Operation, Map<Integer, LongAdder>> errors = new EnumMap<>(Operation.class);
+
+    private Result() {
+      for (Operation operation : Operation.values()) {
+        histograms.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+        ok.put(operation, new LongAdder());
+        errors.put(operation, new ConcurrentHashMap<>());
+      }
+    }
+
+    private void record(Operation operation, int status, long latencyNanos) {
+      histograms.get(operation).recordValue(
+          Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS));
+      if (status == 200) {
+        ok.get(operation).increment();
+      } else {
+        errors.get(operation).computeIfAbsent(status, ignored -> new LongAdder()).increment();
+      }
+    }
+
+    private Histogram total() {
+      Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+      histograms.values().forEach(total::add);
+      return total;
+    }
+
+    private void print(PrintStream out, Duration duration) {
+      out.println();
+      out.printf("%-7s %9s %9s %10s %9s %9s %9s %9s %9s %9s  %s%n", "op", "ok", "error", "req/s",
+          "p50(ms)", "p90", "p99", "p99.9", "p99.99", "max", "errors by status");
+      for (Operation operation : Operation.values()) {
+        Histogram histogram = histograms.get(operation);
+        if (histogram.getTotalCount() > 0) {
+          printRow(out, operation.name().toLowerCase(), histogram, ok.get(operation).sum(),
+              errors.get(operation), duration);
+        }
+      }
+      Map<Integer, LongAdder> allErrors = new TreeMap<>();
+      errors.values().forEach(byStatus -> byStatus.forEach((status, count) ->
+          allErrors.computeIfAbsent(status, ignored -> new LongAdder()).add(count.sum())));
+      printRow(out, "total", total(), ok.values().stream().mapToLong(LongAdder::sum).sum(),
+          allErrors, duration);
+    }
+
+    private void printRow(PrintStream out, String name, Histogram histogram, long okCount,
+                          Map<Integer, LongAdder> errorsByStatus, Duration duration) {
+      long errorCount = errorsByStatus.values().stream().mapToLong(LongAdder::sum).sum();
+      StringBuilder statuses = new StringBuilder();
+      new TreeMap<>(errorsByStatus).forEach((status, count) ->
+          statuses.append(status).append('=').append(count.sum()).append(' '));
+      out.printf("%-7s %9d %9d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f  %s%n", name, okCount, errorCount,
+          histogram.getTotalCount() / (double) duration.toSeconds(),
+          ms(histogram, 50), ms(histogram, 90), ms(histogram, 99), ms(histogram, 99.9),
+          ms(histogram, 99.99), histogram.getMaxValue() / 1_000.0, statuses.toString().trim());
+    }
+
+    private static double ms(Histogram histogram, double percentile) {
+      return histogram.getValueAtPercentile(percentile) / 1_000.0;
+    }
+
+    private void writeDistributions(Path directory) throws IOException {
+      Files.createDirectories(directory);
+      for (Operation operation : Operation.values()) {
+        Histogram histogram = histograms.get(operation);
+        if (histogram.getTotalCount() > 0) {
+          writeDistribution(directory.resolve(operation.name().toLowerCase() + ".hgrm"), histogram);
+        }
+      }
+      writeDistribution(directory.resolve("total.hgrm"), total());
+      System.out.println("percentile distributions (ms) : " + directory.toAbsolutePath());
+    }
+
+    private static void writeDistribution(Path file, Histogram histogram) throws IOException {
+      try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+        histogram.outputPercentileDistribution(out, 1_000.0);
+      }
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package com.example.account.benchmark;
+
+import com.example.account.exception.AccountException;
+import com.example.account.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.dao.DataAccessException;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+잔액 사용 동시성 제어 방식 비교 (account.lock.strategy)
+hot 계좌 하나 + 나머지 cold 계좌에 여러 스레드로 잔액 사용을 몰아넣는다.
+
+처리량, p99 는 JMH 결과(thrpt / sample)에서 보고,
+trial 이 끝나면 성공/실패 건수와 lost update 건수를 출력한다.
+lost update = 성공 응답을 받은 차감액 합계 - 실제 DB 에서 줄어든 잔액 합계 (AMOUNT 단위)
+
+./gradlew jmh -PjmhIncludes=LockStrategyBenchmark -PjmhThreads=16
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class LockStrategyBenchmark {
+  private static final long AMOUNT = 100L;
+
+  @Param({"none", "optimistic", "pessimistic", "redis"})
+  public String strategy;
+
+  @Param({"1000"})
+  public int numAccounts;
+
+  @Param({"0.5", "0.9"})
+  public double hotAccountRatio;
+
+  private BenchmarkContext context;
+  private TransactionService transactionService;
+
+  private final LongAdder succeeded = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Properties properties = new Properties();
+    properties.setProperty("account.lock.strategy", strategy);
+    // 버전 충돌은 여기서 세므로 Hibernate 의 배치 실패 로그는 끈다.
+    properties.setProperty("logging.level.org.hibernate.engine.jdbc.batch.internal.BatchingBatch", "OFF");
+    context = new BenchmarkContext(properties);
+    context.seedAccounts(numAccounts);
+    transactionService = context.getBean(TransactionService.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    Long debited = context.jdbc().queryForObject(
+        "select sum(? - balance) from account", Long.class, BenchmarkContext.SEED_BALANCE);
+    long lostUpdates = (succeeded.sum() * AMOUNT - (debited == null ? 0 : debited)) / AMOUNT;
+
+    System.out.printf("%n[LockStrategyBenchmark] strategy=%s hotAccountRatio=%s "
+            + "succeeded=%d failed=%d lostUpdates=%d%n",
+        strategy, hotAccountRatio, succeeded.sum(), failed.sum(), lostUpdates);
+    context.close();
+  }
+
+  @Benchmark
+  public boolean useBalance() {
+    int index = context.pickAccount(hotAccountRatio);
+    try {
+      transactionService.useBalance(context.ownerOf(index), context.accountNumber(index), AMOUNT);
+      succeeded.increment();
+      return true;
+    } catch (AccountException | DataAccessException e) {
+      // 락 대기 초과, 재시도 소진, (none 일 때) 버전 충돌
+      failed.increment();
+      return false;
+    }
+  }
+}
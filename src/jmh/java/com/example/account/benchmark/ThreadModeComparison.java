@@ -0,0 +1,208 @@
+package com.example.account.benchmark;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import org.springframework.boot.WebApplicationType;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/*
+플랫폼 스레드 vs 가상 스레드 부하 비교 (JMH 가 아닌 단독 실행 프로그램)
+모드마다 웹 서버를 띄우고, 동시 연결 수만큼 요청을 계속 물고 있으면서
+POST /transaction/use 의 처리량과 지연시간 분포를 잰다. (closed model)
+가상 스레드 모드에서는 JFR jdk.VirtualThreadPinned 이벤트로 pinning 이 일어난 위치도 센다.
+
+./gradlew threadModeComparison -PruntimeJavaVersion=21 -PcomparisonArgs='concurrency=1000,10000 duration-sec=30'
+
+주의
+- 부하를 만드는 클라이언트도 같은 JVM 에 있으므로 절대값보다 모드 간 비교로 본다.
+- 10k 연결에는 ulimit -n 이 연결 수의 2배 이상이어야 한다.
+- JDK 21 미만에서는 가상 스레드 모드를 건너뛴다.
+*/
+public class ThreadModeComparison {
+  private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+  private static final long AMOUNT = 10L;
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> options = parseArgs(args);
+    List<Integer> concurrencies = Arrays.stream(
+            options.getOrDefault("concurrency", "1000,10000").split(","))
+        .map(Integer::parseInt)
+        .collect(Collectors.toList());
+    int numAccounts = Integer.parseInt(options.getOrDefault("accounts", "10000"));
+    Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup-sec", "5")));
+    Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration-sec", "30")));
+
+    List<String> results = new ArrayList<>();
+    for (boolean virtual : new boolean[]{false, true}) {
+      if (virtual && Runtime.version().feature() < 21) {
+        results.add("virtual : skipped, needs JDK 21+ (running on " + Runtime.version() + ")");
+        continue;
+      }
+      for (int concurrency : concurrencies) {
+        results.add(run(virtual, concurrency, numAccounts, warmup, duration));
+      }
+    }
+
+    System.out.println();
+    results.forEach(System.out::println);
+  }
+
+  private static String run(boolean virtual, int concurrency, int numAccounts,
+                            Duration warmup, Duration duration) throws Exception {
+    Properties properties = new Properties();
+    properties.setProperty("account.threads.virtual", String.valueOf(virtual));
+    properties.setProperty("server.port", "0");
+    properties.setProperty("server.tomcat.max-connections", String.valueOf(concurrency * 2));
+    properties.setProperty("server.tomcat.accept-count", String.valueOf(concurrency));
+
+    try (BenchmarkContext context = new BenchmarkContext(properties, WebApplicationType.SERVLET);
+         Recording recording = virtual ? pinnedRecording() : null) {
+      context.seedAccounts(numAccounts);
+
+      ExecutorService clientExecutor = Executors.newFixedThreadPool(
+          Runtime.getRuntime().availableProcessors());
+      HttpClient client = HttpClient.newBuilder()
+          .version(HttpClient.Version.HTTP_1_1)
+          .executor(clientExecutor)
+          .connectTimeout(Duration.ofSeconds(10))
+          .build();
+      URI uri = URI.create("http://127.0.0.1:" + context.serverPort() + "/transaction/use");
+
+      drive(context, client, uri, concurrency, warmup, null);
+      LoadResult result = new LoadResult();
+      drive(context, client, uri, concurrency, duration, result);
+      clientExecutor.shutdownNow();
+
+      String mode = virtual ? "virtual " : "platform";
+      String summary = String.format(
+          "%s concurrency=%-6d throughput=%.1f req/s ok=%d error=%d p50=%.1fms p99=%.1fms max=%.1fms",
+          mode, concurrency, result.ok.sum() / (double) duration.toSeconds(),
+          result.ok.sum(), result.error.sum(),
+          result.percentile(50), result.percentile(99), result.percentile(100));
+      if (recording != null) {
+        summary += System.lineSeparator() + pinnedSummary(recording);
+      }
+      return summary;
+    }
+  }
+
+  // 동시에 concurrency 개의 요청이 떠 있도록 유지한다.
+  private static void drive(BenchmarkContext context, HttpClient client, URI uri, int concurrency,
+                            Duration duration, LoadResult result) throws InterruptedException {
+    Semaphore inFlight = new Semaphore(concurrency);
+    long end = System.nanoTime() + duration.toNanos();
+    while (System.nanoTime() < end) {
+      if (!inFlight.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+        continue;
+      }
+      int index = context.pickAccount(0);
+      HttpRequest request = HttpRequest.newBuilder(uri)
+          .timeout(Duration.ofSeconds(60))
+          .header("Content-Type", "application/json")
+          .POST(HttpRequest.BodyPublishers.ofString(String.format(
+              "{\"userId\":%d,\"accountNumber\":\"%s\",\"amount\":%d}",
+              context.ownerOf(index), context.accountNumber(index), AMOUNT)))
+          .build();
+
+      long start = System.nanoTime();
+      client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+          .whenComplete((response, e) -> {
+            if (result != null) {
+              result.record(e == null && response.statusCode() == 200, System.nanoTime() - start);
+            }
+            inFlight.release();
+          });
+    }
+    // 남은 요청이 끝날 때까지 기다린다.
+    inFlight.tryAcquire(concurrency, 60, TimeUnit.SECONDS);
+  }
+
+  private static Recording pinnedRecording() {
+    Recording recording = new Recording();
+    recording.enable(PINNED_EVENT).withStackTrace().withThreshold(Duration.ofMillis(1));
+    recording.start();
+    return recording;
+  }
+
+  // pinning 이 일어난 위치(애플리케이션 쪽에 가장 가까운 프레임)별 횟수
+  private static String pinnedSummary(Recording recording) throws IOException {
+    Path file = Files.createTempFile("pinned", ".jfr");
+    try {
+      recording.stop();
+      recording.dump(file);
+      Map<String, Long> counts = RecordingFile.readAllEvents(file).stream()
+          .filter(event -> event.getEventType().getName().equals(PINNED_EVENT))
+          .collect(Collectors.groupingBy(ThreadModeComparison::pinnedAt, Collectors.counting()));
+      if (counts.isEmpty()) {
+        return "  pinned : none";
+      }
+      return counts.entrySet().stream()
+          .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+          .limit(10)
+          .map(entry -> "  pinned : " + entry.getValue() + " x " + entry.getKey())
+          .collect(Collectors.joining(System.lineSeparator()));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  private static String pinnedAt(RecordedEvent event) {
+    if (event.getStackTrace() == null) {
+      return "unknown";
+    }
+    List<RecordedFrame> frames = event.getStackTrace().getFrames();
+    return frames.stream()
+        .filter(frame -> !frame.getMethod().getType().getName().startsWith("java."))
+        .findFirst()
+        .or(() -> frames.stream().findFirst())
+        .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName())
+        .orElse("unknown");
+  }
+
+  private static Map<String, String> parseArgs(String[] args) {
+    Map<String, String> options = new HashMap<>();
+    for (String arg : args) {
+      String[] pair = arg.split("=", 2);
+      options.put(pair[0], pair.length > 1 ? pair[1] : "");
+    }
+    return options;
+  }
+
+  private static class LoadResult {
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder error = new LongAdder();
+    private final Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+
+    private void record(boolean success, long latencyNanos) {
+      (success ? ok : error).increment();
+      latencies.add(latencyNanos);
+    }
+
+    private double percentile(double percentile) {
+      long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+      if (sorted.length == 0) {
+        return 0;
+      }
+      int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+      return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package com.example.account.benchmark;
+
+import com.example.account.service.SnowflakeTransactionIdGenerator;
+import com.example.account.service.TransactionIdGenerator;
+import com.example.account.service.UuidTransactionIdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+거래 id 발급 비교 : 랜덤 UUID vs Snowflake
+./gradlew jmh -PjmhIncludes=TransactionIdBenchmark -PjmhThreads=8
+스레드 수를 올려가며 SecureRandom 경합과 CAS 경합을 비교한다. (-prof gc 로 할당량도 같이 본다)
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionIdBenchmark {
+  private final TransactionIdGenerator uuid = new UuidTransactionIdGenerator();
+  private TransactionIdGenerator snowflake;
+
+  @Setup
+  public void setUp() {
+    snowflake = new SnowflakeTransactionIdGenerator(null, 1);
+  }
+
+  @Benchmark
+  public String uuid() {
+    return uuid.nextId();
+  }
+
+  @Benchmark
+  public String snowflake() {
+    return snowflake.nextId();
+  }
+}
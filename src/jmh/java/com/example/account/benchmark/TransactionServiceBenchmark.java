@@ -0,0 +1,74 @@
+package com.example.account.benchmark;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+TransactionService 핫패스 벤치마크
+1. 잔액 사용 (useBalance)
+2. 잔액 사용 취소 (cancelBalance)
+3. 실패 거래 저장 (saveFailedUseTransaction)
+
+./gradlew jmh -PjmhIncludes=TransactionServiceBenchmark -PjmhThreads=8
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class TransactionServiceBenchmark {
+  private static final long AMOUNT = 100L;
+
+  @Param({"100", "10000"})
+  public int numAccounts;
+
+  // 전체 요청 중 0번 계좌로 몰리는 비율 (0 = 균등 분포)
+  @Param({"0.0", "0.9"})
+  public double hotAccountRatio;
+
+  private BenchmarkContext context;
+  private TransactionService transactionService;
+  private String[] useTransactionIds;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = new BenchmarkContext();
+    context.seedAccounts(numAccounts);
+    transactionService = context.getBean(TransactionService.class);
+
+    // 취소 대상 거래를 계좌마다 하나씩 만들어 둔다. (같은 거래를 반복 취소해도 검증에 걸리지 않는다)
+    useTransactionIds = new String[numAccounts];
+    for (int i = 0; i < numAccounts; i++) {
+      useTransactionIds[i] = transactionService.useBalance(
+          context.ownerOf(i), context.accountNumber(i), AMOUNT).getTransactionId();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public TransactionDto useBalance() {
+    int index = context.pickAccount(hotAccountRatio);
+    return transactionService.useBalance(
+        context.ownerOf(index), context.accountNumber(index), AMOUNT);
+  }
+
+  @Benchmark
+  public TransactionDto cancelBalance() {
+    int index = context.pickAccount(hotAccountRatio);
+    return transactionService.cancelBalance(
+        useTransactionIds[index], context.accountNumber(index), AMOUNT);
+  }
+
+  @Benchmark
+  public void saveFailedUseTransaction() {
+    int index = context.pickAccount(hotAccountRatio);
+    transactionService.saveFailedUseTransaction(context.accountNumber(index), AMOUNT);
+  }
+}
@@ -0,0 +1,59 @@
+package com.example.account.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+0 ~ n-1 사이 정수를 Zipf 분포로 뽑는다. (0 이 가장 자주 나온다)
+Gray et al. "Quickly Generating Billion-Record Synthetic Databases" 의 방식 (YCSB ZipfianGenerator 와 같다)
+zeta(n) 만 처음에 한번 O(n) 으로 계산하고, 한번 뽑을 때는 O(1) 이다.
+
+theta = 0 이면 균등 분포, 1 에 가까울수록 앞쪽 몇 개에 몰린다. (YCSB 기본값 0.99 : 상위 1% 가 절반 가까이)
+*/
+public class ZipfianGenerator {
+  private final int n;
+  private final double theta;
+  private final double zetaN;
+  private final double alpha;
+  private final double eta;
+  private final double secondThreshold;
+
+  public ZipfianGenerator(int n, double theta) {
+    if (n < 1) {
+      throw new IllegalArgumentException("n must be positive : " + n);
+    }
+    if (theta < 0 || theta >= 1) {
+      throw new IllegalArgumentException("theta must be in [0, 1) : " + theta);
+    }
+    this.n = n;
+    this.theta = theta;
+    this.zetaN = zeta(n, theta);
+    this.alpha = 1 / (1 - theta);
+    this.eta = (1 - Math.pow(2.0 / n, 1 - theta)) / (1 - zeta(2, theta) / zetaN);
+    this.secondThreshold = 1 + Math.pow(0.5, theta);
+  }
+
+  public int next() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    if (theta == 0) {
+      return random.nextInt(n);
+    }
+
+    double u = random.nextDouble();
+    double uz = u * zetaN;
+    if (uz < 1) {
+      return 0;
+    }
+    if (uz < secondThreshold && n > 1) {
+      return 1;
+    }
+    return Math.min(n - 1, (int) (n * Math.pow(eta * u - eta + 1, alpha)));
+  }
+
+  private static double zeta(int n, double theta) {
+    double sum = 0;
+    for (int i = 1; i <= n; i++) {
+      sum += 1 / Math.pow(i, theta);
+    }
+    return sum;
+  }
+}
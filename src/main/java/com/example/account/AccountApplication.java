@@ -2,8 +2,10 @@ package com.example.account;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 
-@SpringBootApplication
+// R2DBC 는 조회용 DatabaseClient 만 직접 만든다. (R2dbcReadConfig 참고)
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 public class AccountApplication {
 
   public static void main(String[] args) {
@@ -0,0 +1,21 @@
+package com.example.account.aop;
+
+import java.lang.annotation.*;
+
+/*
+계좌 단위 분산 락
+같은 계좌번호에 대한 요청만 직렬화되고, 다른 계좌는 서로 기다리지 않는다.
+-1 이면 application.yml 의 account.lock.* 값을 쓴다.
+*/
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface AccountLock {
+
+  // 계좌번호가 들어있는 파라미터 이름
+  String accountNumber() default "accountNumber";
+
+  long waitTimeMs() default -1;
+
+  long leaseTimeMs() default -1;
+}
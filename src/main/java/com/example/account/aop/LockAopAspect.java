@@ -0,0 +1,68 @@
+package com.example.account.aop;
+
+import com.example.account.service.LockService;
+import com.example.account.type.LockStrategy;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.redisson.api.RLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+// 트랜잭션보다 바깥에서 락을 잡아야 커밋이 끝난 뒤에 락이 풀린다.
+// account.lock.strategy=redis 일 때만 락을 잡는다.
+@Aspect
+@Component
+@Order(1)
+public class LockAopAspect {
+  private final LockService lockService;
+
+  @Value("${account.lock.wait-time-ms}")
+  private long defaultWaitTimeMs;
+
+  @Value("${account.lock.lease-time-ms}")
+  private long defaultLeaseTimeMs;
+
+  @Value("${account.lock.strategy}")
+  private LockStrategy lockStrategy;
+
+  // 애스펙트는 다른 빈보다 먼저 만들어지므로, embedded redis 가 뜨기 전에
+  // RedissonClient 가 생성되지 않게 LockService 는 지연 주입한다.
+  public LockAopAspect(@Lazy LockService lockService) {
+    this.lockService = lockService;
+  }
+
+  @Around("@annotation(accountLock)")
+  public Object aroundMethod(ProceedingJoinPoint pjp, AccountLock accountLock) throws Throwable {
+    if (lockStrategy != LockStrategy.REDIS) {
+      return pjp.proceed();
+    }
+
+    String accountNumber = getAccountNumber(pjp, accountLock);
+    long waitTimeMs = accountLock.waitTimeMs() < 0 ? defaultWaitTimeMs : accountLock.waitTimeMs();
+    long leaseTimeMs = accountLock.leaseTimeMs() < 0 ? defaultLeaseTimeMs : accountLock.leaseTimeMs();
+
+    RLock lock = lockService.lock(accountNumber, waitTimeMs, leaseTimeMs);
+    try {
+      return pjp.proceed();
+    } finally {
+      lockService.unlock(lock, accountNumber);
+    }
+  }
+
+  private String getAccountNumber(ProceedingJoinPoint pjp, AccountLock accountLock) {
+    String[] parameterNames = ((MethodSignature) pjp.getSignature()).getParameterNames();
+    Object[] args = pjp.getArgs();
+
+    for (int i = 0; i < parameterNames.length; i++) {
+      if (parameterNames[i].equals(accountLock.accountNumber())) {
+        return String.valueOf(args[i]);
+      }
+    }
+    throw new IllegalStateException("No parameter named " + accountLock.accountNumber()
+        + " on " + pjp.getSignature().toShortString());
+  }
+}
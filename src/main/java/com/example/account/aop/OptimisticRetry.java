@@ -0,0 +1,17 @@
+package com.example.account.aop;
+
+import java.lang.annotation.*;
+
+/*
+낙관적 락 충돌 시 재시도
+메소드 전체(트랜잭션 포함)를 다시 실행하므로 @Transactional 메소드에 붙인다.
+-1 이면 application.yml 의 account.retry.max-attempts 값을 쓴다.
+*/
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface OptimisticRetry {
+
+  // 첫 시도를 포함한 최대 실행 횟수
+  int maxAttempts() default -1;
+}
@@ -0,0 +1,75 @@
+package com.example.account.aop;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.LockStrategy;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.OptimisticLockException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.example.account.type.ErrorCode.ACCOUNT_CONCURRENT_UPDATE;
+
+// 재시도마다 락과 트랜잭션을 새로 잡아야 하므로 가장 바깥에서 감싼다.
+// account.lock.strategy=none 이면 재시도하지 않는다.
+@Slf4j
+@Aspect
+@Component
+@Order(0)
+public class OptimisticRetryAspect {
+  private final MeterRegistry meterRegistry;
+  private final int defaultMaxAttempts;
+  private final long baseBackoffMs;
+  private final long maxBackoffMs;
+  private final LockStrategy lockStrategy;
+
+  // 애스펙트는 다른 빈보다 먼저 만들어지므로 MeterRegistry 는 지연 주입한다.
+  public OptimisticRetryAspect(@Lazy MeterRegistry meterRegistry,
+                               @Value("${account.retry.max-attempts}") int defaultMaxAttempts,
+                               @Value("${account.retry.base-backoff-ms}") long baseBackoffMs,
+                               @Value("${account.retry.max-backoff-ms}") long maxBackoffMs,
+                               @Value("${account.lock.strategy}") LockStrategy lockStrategy) {
+    this.meterRegistry = meterRegistry;
+    this.defaultMaxAttempts = defaultMaxAttempts;
+    this.baseBackoffMs = baseBackoffMs;
+    this.maxBackoffMs = maxBackoffMs;
+    this.lockStrategy = lockStrategy;
+  }
+
+  @Around("@annotation(optimisticRetry)")
+  public Object aroundMethod(ProceedingJoinPoint pjp, OptimisticRetry optimisticRetry) throws Throwable {
+    if (lockStrategy == LockStrategy.NONE) {
+      return pjp.proceed();
+    }
+    int maxAttempts = optimisticRetry.maxAttempts() < 0 ? defaultMaxAttempts : optimisticRetry.maxAttempts();
+    String method = pjp.getSignature().getName();
+
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return pjp.proceed();
+      } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+        if (attempt >= maxAttempts) {
+          meterRegistry.counter("account.optimistic.exhausted", "method", method).increment();
+          log.warn("Optimistic lock conflict on {} after {} attempts", method, attempt);
+          throw new AccountException(ACCOUNT_CONCURRENT_UPDATE);
+        }
+        meterRegistry.counter("account.optimistic.retries", "method", method).increment();
+        backoff(attempt);
+      }
+    }
+  }
+
+  // full jitter : 0 ~ min(max, base * 2^(attempt-1)) 사이에서 무작위로 쉰다.
+  private void backoff(int attempt) throws InterruptedException {
+    long ceiling = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt - 1, 20));
+    Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+  }
+}
@@ -0,0 +1,108 @@
+package com.example.account.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.SQLExceptionOverride;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+JDBC DataSource = primary 풀 하나 + replica 풀 N 개를 ReadWriteRoutingDataSource 로 묶은 것
+primary 는 spring.datasource.*, replica 는 account.datasource.replica-urls (계정은 primary 와 같다)
+replica-urls 를 비우면 모든 트랜잭션이 primary 로 간다.
+
+로컬 H2 는 복제가 없으므로 replica 도 primary 와 같은 in-memory DB 를 가리킨다.
+(풀은 따로라서 라우팅은 그대로 타고, 데이터는 항상 같다)
+
+row 락 대기 시간(account.lock.pessimistic-timeout-ms)은 커넥션을 만들 때 세션에 건다. (H2 : SET LOCK_TIMEOUT)
+JPA 의 javax.persistence.lock.timeout 힌트는 H2 dialect 가 무시한다.
+H2 의 락 타임아웃은 SQLTimeoutException 이라 Hikari 가 커넥션을 버리는데, 그러면 롤백이 실패하므로 버리지 않게 한다.
+*/
+@Configuration
+public class DataSourceRoutingConfig {
+  private static final String H2_URL_PREFIX = "jdbc:h2:";
+  // org.h2.api.ErrorCode.LOCK_TIMEOUT_1
+  private static final int H2_LOCK_TIMEOUT = 50200;
+
+  private final List<HikariDataSource> pools = new ArrayList<>();
+
+  @Bean
+  public DataSource dataSource(DataSourceProperties properties,
+                               @Value("${account.datasource.replica-urls}") List<String> replicaUrls,
+                               @Value("${account.lock.pessimistic-timeout-ms}") long lockTimeoutMs,
+                               ObjectProvider<MeterRegistry> meterRegistry) {
+    Map<Object, Object> targets = new HashMap<>();
+    HikariDataSource primary = createPool(properties, properties.determineUrl(),
+        ReadWriteRoutingDataSource.PRIMARY, lockTimeoutMs, meterRegistry);
+    targets.put(ReadWriteRoutingDataSource.PRIMARY, primary);
+    for (int i = 0; i < replicaUrls.size(); i++) {
+      String name = ReadWriteRoutingDataSource.REPLICA_PREFIX + i;
+      targets.put(name, createPool(properties, replicaUrls.get(i), name, lockTimeoutMs, meterRegistry));
+    }
+
+    ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(replicaUrls.size());
+    routingDataSource.setTargetDataSources(targets);
+    routingDataSource.setDefaultTargetDataSource(primary);
+    routingDataSource.afterPropertiesSet();
+
+    // 기본값을 주지 않으면 기본값을 알아내려고 여기서 커넥션을 하나 연다. (Hikari / H2 기본값과 같게)
+    LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy();
+    dataSource.setTargetDataSource(routingDataSource);
+    dataSource.setDefaultAutoCommit(true);
+    dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+    dataSource.afterPropertiesSet();
+    return dataSource;
+  }
+
+  private HikariDataSource createPool(DataSourceProperties properties, String url, String poolName,
+                                      long lockTimeoutMs, ObjectProvider<MeterRegistry> meterRegistry) {
+    HikariDataSource pool = properties.initializeDataSourceBuilder()
+        .type(HikariDataSource.class)
+        .url(url)
+        .build();
+    pool.setPoolName(poolName);
+    if (url.startsWith(H2_URL_PREFIX)) {
+      pool.setConnectionInitSql("SET LOCK_TIMEOUT " + lockTimeoutMs);
+      pool.setExceptionOverrideClassName(H2LockTimeoutOverride.class.getName());
+    }
+    // 풀이 빈이 아니라서 Boot 가 hikaricp_* 메트릭을 못 붙이므로 직접 붙인다.
+    // MeterRegistry 는 DataSource 에 의존하는 binder 가 있어서 여기서 바로 꺼내면 순환이 된다. (풀이 뜰 때 꺼낸다)
+    pool.setMetricsTrackerFactory((name, poolStats) -> {
+      MeterRegistry registry = meterRegistry.getIfAvailable();
+      return registry == null
+          ? new IMetricsTracker() {
+          }
+          : new MicrometerMetricsTrackerFactory(registry).create(name, poolStats);
+    });
+    pools.add(pool);
+    return pool;
+  }
+
+  @PreDestroy
+  public void closePools() {
+    pools.forEach(HikariDataSource::close);
+  }
+
+  // 락을 못 잡은 것뿐이고 커넥션은 멀쩡하다. (Hikari 가 리플렉션으로 만든다)
+  public static class H2LockTimeoutOverride implements SQLExceptionOverride {
+    // 이 안에서 Override 는 SQLExceptionOverride.Override 를 가리키므로 @Override 를 붙이지 않는다.
+    public Override adjudicate(SQLException e) {
+      return e.getErrorCode() == H2_LOCK_TIMEOUT ? Override.DO_NOT_EVICT : Override.CONTINUE_EVICT;
+    }
+  }
+}
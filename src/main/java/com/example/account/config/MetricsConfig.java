@@ -0,0 +1,55 @@
+package com.example.account.config;
+
+import com.example.account.exception.AccountException;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/*
+메트릭 설정
+1. http.server.requests : Boot 가 엔드포인트마다 기록한다. (uri, outcome, status 태그)
+   여기에 AccountException 의 ErrorCode 를 error_code 태그로 붙인다.
+2. @Timed : 서비스 메소드 타이머 (account.service)
+*/
+@Configuration
+public class MetricsConfig {
+  static final String NO_ERROR_CODE = "none";
+
+  @Bean
+  public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+    return new TimedAspect(meterRegistry);
+  }
+
+  @Bean
+  public WebMvcTagsContributor errorCodeTagsContributor() {
+    return new WebMvcTagsContributor() {
+      @Override
+      public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response,
+                                   Object handler, Throwable exception) {
+        return Tags.of("error_code", errorCode(exception));
+      }
+
+      @Override
+      public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+        return Tags.empty();
+      }
+    };
+  }
+
+  // 감싸진 예외 안쪽까지 보고 ErrorCode 를 찾는다.
+  static String errorCode(Throwable exception) {
+    for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+      if (cause instanceof AccountException && ((AccountException) cause).getErrorCode() != null) {
+        return ((AccountException) cause).getErrorCode().name();
+      }
+    }
+    return NO_ERROR_CODE;
+  }
+}
@@ -0,0 +1,24 @@
+package com.example.account.config;
+
+import com.example.account.profile.ProfilingSessionEventListener;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+요청 프로파일러의 SQL / flush / commit 구간
+account.profiler.enabled=true 일 때만 세션마다 ProfilingSessionEventListener 를 붙인다.
+꺼져 있으면 등록하지 않으므로 SQL 마다 리스너를 부르는 비용도 없다.
+*/
+@Configuration
+@ConditionalOnProperty(name = "account.profiler.enabled", havingValue = "true")
+public class ProfilerConfig {
+
+  @Bean
+  public HibernatePropertiesCustomizer profilingSessionEventsCustomizer() {
+    return properties -> properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER,
+        ProfilingSessionEventListener.class.getName());
+  }
+}
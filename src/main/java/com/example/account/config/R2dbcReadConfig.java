@@ -0,0 +1,70 @@
+package com.example.account.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PreDestroy;
+
+/*
+계좌 조회 reactive 경로용 R2DBC 설정
+ConnectionFactory 를 빈으로 올리면 Boot 가 JDBC DataSource 자동 설정을 건너뛰므로 (JPA 가 뜨지 않는다)
+커넥션 풀은 여기서만 들고 있고 DatabaseClient 만 빈으로 내보낸다.
+같은 이유로 R2dbcAutoConfiguration 은 AccountApplication 에서 뺀다.
+
+r2dbc-h2 는 논블로킹 드라이버가 아니라 JDBC H2 를 감싼 것이라 쿼리를 구독한 스레드에서 그대로 실행한다.
+그래서 조회는 커넥션 풀 크기만큼의 스레드를 가진 전용 스케줄러에서 구독하게 한다. (AccountQueryService)
+*/
+@Configuration
+public class R2dbcReadConfig {
+  @Value("${account.r2dbc.url}")
+  private String url;
+
+  @Value("${account.r2dbc.username}")
+  private String username;
+
+  @Value("${account.r2dbc.password}")
+  private String password;
+
+  @Value("${account.r2dbc.pool-size}")
+  private int poolSize;
+
+  @Value("${account.r2dbc.queue-size}")
+  private int queueSize;
+
+  private ConnectionPool connectionPool;
+
+  @Bean
+  public DatabaseClient databaseClient() {
+    ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+        .option(ConnectionFactoryOptions.USER, username)
+        .option(ConnectionFactoryOptions.PASSWORD, password)
+        .build();
+
+    connectionPool = new ConnectionPool(ConnectionPoolConfiguration
+        .builder(ConnectionFactories.get(options))
+        .initialSize(0)
+        .maxSize(poolSize)
+        .build());
+    return DatabaseClient.create(connectionPool);
+  }
+
+  @Bean(destroyMethod = "dispose")
+  public Scheduler accountQueryScheduler() {
+    return Schedulers.newBoundedElastic(poolSize, queueSize, "account-r2dbc");
+  }
+
+  @PreDestroy
+  public void closePool() {
+    if (connectionPool != null) {
+      connectionPool.dispose();
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package com.example.account.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+read-only 트랜잭션은 replica 중 하나로, 나머지(쓰기 트랜잭션, 트랜잭션 밖)는 primary 로 보낸다.
+트랜잭션의 readOnly 표시는 커넥션을 얻은 뒤에 세팅되므로 LazyConnectionDataSourceProxy 로 감싸서 써야 한다.
+(첫 쿼리 때 커넥션을 얻으므로 그때는 readOnly 를 볼 수 있다)
+
+read-your-writes : 한 스레드에서 쓰기 트랜잭션이 커넥션을 얻으면 표시해두고,
+그 뒤의 read-only 트랜잭션도 primary 로 보낸다. (replica 지연 때문에 방금 쓴 걸 못 보는 일이 없게)
+요청 사이의 표시는 ReadYourWritesFilter 가 쿠키로 들고 다니고, 스레드의 표시는 요청이 끝날 때 지운다.
+*/
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+  static final String PRIMARY = "primary";
+  static final String REPLICA_PREFIX = "replica-";
+
+  private static final ThreadLocal<Boolean> WROTE = new ThreadLocal<>();
+  private static final ThreadLocal<Runnable> WRITE_LISTENER = new ThreadLocal<>();
+
+  private final int replicaCount;
+  private final AtomicInteger next = new AtomicInteger();
+
+  public ReadWriteRoutingDataSource(int replicaCount) {
+    this.replicaCount = replicaCount;
+  }
+
+  // 최근에 쓴 클라이언트의 요청이면 처음부터 primary 에서 읽는다.
+  public static void readFromPrimary() {
+    WROTE.set(Boolean.TRUE);
+  }
+
+  // 이 스레드에서 쓰기 트랜잭션이 커넥션을 얻을 때마다 부른다. (쿼리 전이라 아직 응답이 나가기 전이다)
+  public static void onWrite(Runnable listener) {
+    WRITE_LISTENER.set(listener);
+  }
+
+  public static void clearWrites() {
+    WROTE.remove();
+    WRITE_LISTENER.remove();
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      if (TransactionSynchronizationManager.isActualTransactionActive()) {
+        WROTE.set(Boolean.TRUE);
+        Runnable listener = WRITE_LISTENER.get();
+        if (listener != null) {
+          listener.run();
+        }
+      }
+      return PRIMARY;
+    }
+    if (replicaCount == 0 || WROTE.get() != null) {
+      return PRIMARY;
+    }
+    return REPLICA_PREFIX + Math.floorMod(next.getAndIncrement(), replicaCount);
+  }
+}
@@ -0,0 +1,78 @@
+package com.example.account.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+read-your-writes 를 요청 사이에도 지킨다.
+쓰기 트랜잭션이 있었던 요청의 응답에 쿠키를 붙이고, 쿠키가 살아 있는 동안 그 클라이언트의
+read-only 트랜잭션도 primary 에서 읽는다. (예: POST /transaction/use 다음의 GET /transaction)
+쿠키 값은 만료 시각이라 클라이언트가 Max-Age 를 지키지 않아도 서버가 다시 확인한다.
+sticky-ms 는 replica 지연보다 길게 잡는다.
+
+StreamingResponseBody(export)처럼 요청 스레드 밖에서 도는 조회는 이 표시를 보지 못하고 replica 에서 읽는다.
+*/
+@Component
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+  static final String COOKIE_NAME = "read-primary-until";
+
+  private final long stickyMs;
+
+  public ReadYourWritesFilter(@Value("${account.datasource.read-your-writes.sticky-ms}") long stickyMs) {
+    this.stickyMs = stickyMs;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                  FilterChain filterChain) throws ServletException, IOException {
+    ReadWriteRoutingDataSource.clearWrites();
+    if (recentlyWrote(request)) {
+      ReadWriteRoutingDataSource.readFromPrimary();
+    }
+    AtomicBoolean marked = new AtomicBoolean();
+    ReadWriteRoutingDataSource.onWrite(() -> {
+      if (marked.compareAndSet(false, true) && !response.isCommitted()) {
+        response.addCookie(stickyCookie());
+      }
+    });
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      ReadWriteRoutingDataSource.clearWrites();
+    }
+  }
+
+  private boolean recentlyWrote(HttpServletRequest request) {
+    Cookie[] cookies = request.getCookies();
+    if (cookies == null) {
+      return false;
+    }
+    for (Cookie cookie : cookies) {
+      if (COOKIE_NAME.equals(cookie.getName())) {
+        try {
+          return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+        } catch (NumberFormatException e) {
+          return false;
+        }
+      }
+    }
+    return false;
+  }
+
+  private Cookie stickyCookie() {
+    Cookie cookie = new Cookie(COOKIE_NAME, String.valueOf(System.currentTimeMillis() + stickyMs));
+    cookie.setPath("/");
+    cookie.setHttpOnly(true);
+    cookie.setMaxAge((int) Math.max(1, (stickyMs + 999) / 1000));
+    return cookie;
+  }
+}
@@ -0,0 +1,53 @@
+package com.example.account.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+가상 스레드 실행 모드 (account.threads.virtual=true 일 때만 뜬다, JDK 21 이상 필요)
+1. Tomcat 요청 처리 : 요청마다 가상 스레드 하나 (스레드 풀 상한 없음)
+2. applicationTaskExecutor : @Async, MVC 비동기 응답 (거래 내역 export) 도 가상 스레드에서 돈다.
+
+DB 동시 접근은 커넥션 풀 크기가 상한이 된다.
+원장 엔진 샤드, 실패 거래 기록 스레드처럼 오래 사는 스레드는 그대로 플랫폼 스레드를 쓴다.
+*/
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "account.threads.virtual", havingValue = "true")
+public class VirtualThreadConfiguration {
+
+  @Bean
+  public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+    ExecutorService executor = newVirtualThreadPerTaskExecutor();
+    log.info("Tomcat requests run on virtual threads");
+    return protocolHandler -> protocolHandler.setExecutor(executor);
+  }
+
+  @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+  public AsyncTaskExecutor applicationTaskExecutor() {
+    return new TaskExecutorAdapter(newVirtualThreadPerTaskExecutor());
+  }
+
+  // 소스는 Java 11 로 컴파일하므로 JDK 21 API 는 리플렉션으로 부른다.
+  static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService) Executors.class
+          .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException(
+          "account.threads.virtual=true needs JDK 21+, running on " + Runtime.version(), e);
+    } catch (IllegalAccessException | InvocationTargetException e) {
+      throw new IllegalStateException("Failed to create virtual thread executor", e);
+    }
+  }
+}
@@ -2,21 +2,32 @@ package com.example.account.controller;
 
 import com.example.account.domain.Account;
 import com.example.account.dto.AccountInfoDto;
+import com.example.account.dto.CreateAccountBatchDto;
 import com.example.account.dto.CreateAccountDto;
 import com.example.account.dto.DeleteAccountDto;
+import com.example.account.service.AccountProvisioningService;
+import com.example.account.service.AccountQueryService;
 import com.example.account.service.AccountService;
 import com.example.account.service.RedisTestService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
 import java.util.List;
 import java.util.stream.Collectors;
 
+/*
+계좌 관련 컨트롤러
+생성/해지는 JPA (AccountService), 조회는 R2DBC (AccountQueryService) 로 처리한다.
+조회 핸들러는 Mono 를 돌려주고 쿼리는 AccountQueryService 의 전용 스케줄러에서 돌기 때문에, 그동안 요청 스레드는 반납된다.
+*/
 @RestController
 @RequiredArgsConstructor
 public class AccountController {
   private final AccountService accountService;
+  private final AccountQueryService accountQueryService;
+  private final AccountProvisioningService accountProvisioningService;
   private final RedisTestService redisTestService;
 
   @PostMapping("/account")
@@ -31,6 +42,14 @@ public class AccountController {
     );
   }
 
+  @PostMapping("/account/batch")
+  public CreateAccountBatchDto.Response createAccountBatch(
+      @RequestBody @Valid CreateAccountBatchDto.Request request
+  ) {
+    return CreateAccountBatchDto.Response.from(
+        accountProvisioningService.createAccounts(request.getItems()));
+  }
+
   @DeleteMapping("/account")
   public DeleteAccountDto.Response deleteAccount(
       @RequestBody @Valid DeleteAccountDto.Request request)
@@ -44,13 +63,14 @@ public class AccountController {
   }
 
   @GetMapping("/account")
-  public List<AccountInfoDto> getAccountsByUserId(@RequestParam("user_id") Long userId) {
+  public Mono<List<AccountInfoDto>> getAccountsByUserId(@RequestParam("user_id") Long userId) {
 
-    return accountService.getAccountsByUserId(userId)
-        .stream().map(accountDto -> AccountInfoDto.builder()
-            .accountNumber(accountDto.getAccountNumber())
-            .balance(accountDto.getBalance()).build())
-        .collect(Collectors.toList());
+    return accountQueryService.getAccountsByUserId(userId)
+        .map(accountDtos -> accountDtos.stream()
+            .map(accountDto -> AccountInfoDto.builder()
+                .accountNumber(accountDto.getAccountNumber())
+                .balance(accountDto.getBalance()).build())
+            .collect(Collectors.toList()));
 
   }
 
@@ -60,9 +80,9 @@ public class AccountController {
   }
 
   @GetMapping("/account/{id}")
-  public Account getAccount(
+  public Mono<Account> getAccount(
       @PathVariable Long id) {
 
-    return accountService.getAccount(id);
+    return accountQueryService.getAccount(id);
   }
 }
@@ -0,0 +1,30 @@
+package com.example.account.controller;
+
+import com.example.account.dto.AccountDailySummaryDto;
+import com.example.account.service.AccountDailySummaryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+/*
+계좌 리포팅 컨트롤러
+1. 일별 거래 요약 (날짜 구간, 양 끝 포함)
+*/
+@RestController
+@RequiredArgsConstructor
+public class AccountSummaryController {
+  private final AccountDailySummaryService accountDailySummaryService;
+
+  @GetMapping("/account/summary/daily")
+  public AccountDailySummaryDto.Response getDailySummaries(
+      @RequestParam("account_number") String accountNumber,
+      @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+      @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+  ) {
+    return accountDailySummaryService.getDailySummaries(accountNumber, from, to);
+  }
+}
@@ -1,22 +1,43 @@
 package com.example.account.controller;
 
+import com.example.account.dto.CancelBalanceBatchDto;
 import com.example.account.dto.CancelBalanceDto;
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistoryDto;
+import com.example.account.dto.UseBalanceBatchDto;
 import com.example.account.dto.UseBalanceDto;
+import com.example.account.engine.LedgerEngine;
 import com.example.account.exception.AccountException;
+import com.example.account.type.ExportFormat;
+import com.example.account.type.TransactionType;
+import com.example.account.service.FailedTransactionRecorder;
+import com.example.account.service.IdempotencyService;
+import com.example.account.service.TransactionBatchService;
+import com.example.account.service.TransactionExportService;
 import com.example.account.service.TransactionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.time.LocalDateTime;
+import java.util.Optional;
 
 /*
 잔액 관련 컨트롤러
 1. 잔액 사용
 2. 잔액 사용 취소
 3. 거래 확인
+4. 일괄 잔액 사용 / 사용 취소 (건별 결과를 돌려준다)
+5. 거래 내역 export (NDJSON / CSV 스트리밍)
+
+잔액 사용 / 사용 취소에 Idempotency-Key 헤더가 있으면
+같은 키로 재시도한 요청에는 처음 응답을 그대로 돌려준다.
 */
 @RestController
 @Slf4j //로그
@@ -24,49 +45,131 @@ import javax.validation.Valid;
 public class TransactionController {
 
   private final TransactionService transactionService;
+  private final TransactionBatchService transactionBatchService;
+  private final FailedTransactionRecorder failedTransactionRecorder;
+  private final TransactionExportService transactionExportService;
+  private final IdempotencyService idempotencyService;
+  // account.engine.enabled=true 일 때만 존재
+  private final Optional<LedgerEngine> ledgerEngine;
 
   @PostMapping("/transaction/use")
   public UseBalanceDto.Response useBalance(
+      @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false)
+      String idempotencyKey,
       @Valid @RequestBody UseBalanceDto.Request request
   ) {
+    if (idempotencyKey == null) {
+      return doUseBalance(request);
+    }
+    return idempotencyService.execute("use", idempotencyKey, request,
+        UseBalanceDto.Response.class, () -> doUseBalance(request));
+  }
+
+  @PostMapping("/transaction/cancel")
+  public CancelBalanceDto.Response cancelBalance(
+      @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false)
+      String idempotencyKey,
+      @Valid @RequestBody CancelBalanceDto.Request request
+  ) {
+    if (idempotencyKey == null) {
+      return doCancelBalance(request);
+    }
+    return idempotencyService.execute("cancel", idempotencyKey, request,
+        CancelBalanceDto.Response.class, () -> doCancelBalance(request));
+  }
+
+  @PostMapping("/transaction/use/batch")
+  public UseBalanceBatchDto.Response useBalanceBatch(
+      @Valid @RequestBody UseBalanceBatchDto.Request request
+  ) {
+    return UseBalanceBatchDto.Response.from(
+        transactionBatchService.useBalance(request.getItems()));
+  }
+
+  @PostMapping("/transaction/cancel/batch")
+  public CancelBalanceBatchDto.Response cancelBalanceBatch(
+      @Valid @RequestBody CancelBalanceBatchDto.Request request
+  ) {
+    return CancelBalanceBatchDto.Response.from(
+        transactionBatchService.cancelBalance(request.getItems()));
+  }
+
+  @GetMapping("/transaction")
+  public TransactionHistoryDto.Response getTransactions(
+      @RequestParam("account_number") String accountNumber,
+      @RequestParam(value = "after", required = false) String after,
+      @RequestParam(value = "limit", defaultValue = "20") int limit
+  ) {
+    return transactionService.getTransactions(accountNumber, after, limit);
+  }
 
+  // [from, to) 구간의 거래를 응답으로 바로 흘려보낸다.
+  @GetMapping("/transaction/export")
+  public ResponseEntity<StreamingResponseBody> exportTransactions(
+      @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+      @RequestParam(value = "transaction_type", required = false) TransactionType transactionType,
+      @RequestParam(value = "format", defaultValue = "NDJSON") ExportFormat format
+  ) {
+    StreamingResponseBody body = outputStream ->
+        transactionExportService.export(from, to, transactionType, format, outputStream);
+
+    return ResponseEntity.ok()
+        .contentType(format == ExportFormat.CSV
+            ? new MediaType("text", "csv") : new MediaType("application", "x-ndjson"))
+        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transactions."
+            + format.name().toLowerCase() + "\"")
+        .body(body);
+  }
+
+  private UseBalanceDto.Response doUseBalance(UseBalanceDto.Request request) {
     try {
-      return UseBalanceDto.Response.from(
-          transactionService.useBalance(request.getUserId(),
-              request.getAccountNumber(), request.getAmount())
-      );
+      return UseBalanceDto.Response.from(routeUseBalance(request));
     }catch (AccountException e){
       log.error("Failed to use balance.");
 
-      transactionService.saveFailedUseTransaction(
-          request.getAccountNumber(),
-          request.getAmount()
-      );
+      if (!LedgerEngine.isTimeout(e)) {
+        failedTransactionRecorder.recordUse(
+            request.getAccountNumber(),
+            request.getAmount()
+        );
+      }
       throw e;
     }
   }
 
-  @PostMapping("/transaction/cancel")
-  public CancelBalanceDto.Response cancelBalance(
-      @Valid @RequestBody CancelBalanceDto.Request request
-  ) {
-
+  private CancelBalanceDto.Response doCancelBalance(CancelBalanceDto.Request request) {
     try {
-      return CancelBalanceDto.Response.from(
-          transactionService.
-              cancelBalance(request.getTransactionId()
-                  , request.getAccountNumber()
-                  , request.getAmount())
-      );
+      return CancelBalanceDto.Response.from(routeCancelBalance(request));
     }catch (AccountException e){
       log.error("Failed to use balance.");
 
-      transactionService.saveFailedCancelTransaction(
-          request.getAccountNumber(),
-          request.getAmount()
-      );
+      if (!LedgerEngine.isTimeout(e)) {
+        failedTransactionRecorder.recordCancel(
+            request.getAccountNumber(),
+            request.getAmount()
+        );
+      }
       throw e;
     }
   }
 
+  private TransactionDto routeUseBalance(UseBalanceDto.Request request) {
+    if (ledgerEngine.isPresent()) {
+      return ledgerEngine.get().useBalance(request.getUserId(),
+          request.getAccountNumber(), request.getAmount());
+    }
+    return transactionService.useBalance(request.getUserId(),
+        request.getAccountNumber(), request.getAmount());
+  }
+
+  private TransactionDto routeCancelBalance(CancelBalanceDto.Request request) {
+    if (ledgerEngine.isPresent()) {
+      return ledgerEngine.get().cancelBalance(request.getTransactionId(),
+          request.getAccountNumber(), request.getAmount());
+    }
+    return transactionService.cancelBalance(request.getTransactionId(),
+        request.getAccountNumber(), request.getAmount());
+  }
+
 }
@@ -17,12 +17,20 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
+@NamedEntityGraph(name = "Account.withAccountUser", attributeNodes = @NamedAttributeNode("accountUser"))
+@Table(indexes = {
+    @Index(name = "uk_account_account_number", columnList = "accountNumber", unique = true),
+    @Index(name = "idx_account_account_user", columnList = "account_user_id")
+})
 public class Account {
   @Id // PK 지정 >> 이건 좀 신기하네
-  @GeneratedValue
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_seq")
+  @SequenceGenerator(name = "account_seq", sequenceName = "account_seq", allocationSize = 50)
   private Long id;
 
-  @ManyToOne
+  // 필요한 곳에서만 entity graph 로 같이 읽는다.
+  @ManyToOne(fetch = FetchType.LAZY)
+  @ToString.Exclude
   private AccountUser accountUser;
   private String accountNumber;
 
@@ -30,6 +38,10 @@ public class Account {
   private AccountStatus accountStatus;
   private long balance;
 
+  // 낙관적 락 : 같은 계좌를 동시에 고친 트랜잭션 중 나중에 커밋하는 쪽이 실패한다.
+  @Version
+  private Long version;
+
   private LocalDateTime unRegisteredAt;
   private LocalDateTime registeredAt;
 
@@ -0,0 +1,53 @@
+package com.example.account.domain;
+
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/*
+계좌별 일별 거래 요약 (계좌, 날짜, 거래 종류, 거래 결과 단위)
+거래를 저장하는 트랜잭션 안에서 같이 갱신되므로 Transaction 을 훑지 않고 기간 요약을 읽을 수 있다.
+PK 가 (account_id, summary_date, ...) 순서라 계좌 + 날짜 구간 조회는 PK 인덱스만 탄다.
+*/
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@Entity
+@IdClass(AccountDailySummary.Key.class)
+public class AccountDailySummary {
+  @Id
+  private Long accountId;
+  @Id
+  private LocalDate summaryDate;
+  @Id
+  @Enumerated(EnumType.STRING)
+  private TransactionType transactionType;
+  @Id
+  @Enumerated(EnumType.STRING)
+  private TransactionResultType transactionResultType;
+
+  private long transactionCount;
+  private long amountSum;
+  // 이 묶음에서 가장 늦게 일어난 거래의 balanceSnapshot
+  private Long closingBalance;
+  private LocalDateTime lastTransactedAt;
+
+  @Getter
+  @EqualsAndHashCode
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Key implements Serializable {
+    private Long accountId;
+    private LocalDate summaryDate;
+    private TransactionType transactionType;
+    private TransactionResultType transactionResultType;
+  }
+}
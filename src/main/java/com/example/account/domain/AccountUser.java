@@ -1,14 +1,12 @@
 package com.example.account.domain;
 
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
-import javax.persistence.Entity;
-import javax.persistence.EntityListeners;
-import javax.persistence.GeneratedValue;
-import javax.persistence.Id;
+import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Getter
@@ -21,11 +19,20 @@ import java.time.LocalDateTime;
 @EntityListeners(AuditingEntityListener.class)
 public class AccountUser {
   @Id
-  @GeneratedValue
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_user_seq")
+  @SequenceGenerator(name = "account_user_seq", sequenceName = "account_user_seq", allocationSize = 50)
   private long id;
 
   private String name;
 
+  /*
+  사용 중(IN_USE)인 계좌 수 : 계좌 생성/해지 때 조건부 UPDATE 로 같이 바꾼다.
+  생성 때마다 계좌를 세지 않고 이 행 하나만 고친다. 어긋나면 AccountCountRepairJob 이 다시 센다.
+  */
+  @ColumnDefault("0")
+  @Column(nullable = false)
+  private int accountCount;
+
   @CreatedDate
   private LocalDateTime createAt;
   @LastModifiedDate
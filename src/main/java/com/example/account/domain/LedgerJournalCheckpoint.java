@@ -0,0 +1,23 @@
+package com.example.account.domain;
+
+import lombok.*;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/*
+샤드 저널을 DB 에 어디까지 반영했는지 (account.engine.journal.enabled=true 일 때)
+반영한 거래와 같은 트랜잭션에서 갱신되므로, 재기동 후 여기서부터 다시 반영하면 중복도 누락도 없다.
+*/
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+public class LedgerJournalCheckpoint {
+  @Id
+  private Integer shardId;
+
+  private long sequence;
+}
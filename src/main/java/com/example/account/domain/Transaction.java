@@ -17,10 +17,18 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @ToString
 @Entity
+@NamedEntityGraph(name = "Transaction.withAccount", attributeNodes = @NamedAttributeNode("account"))
+@Table(indexes = {
+    @Index(name = "uk_transaction_transaction_id", columnList = "transactionId", unique = true),
+    @Index(name = "idx_transaction_account_transacted_at", columnList = "account_id, transactedAt, id"),
+    // 기간 export (계좌 조건 없이 거래 시각 범위로 읽는다. TransactionRepository.streamForExport)
+    @Index(name = "idx_transaction_transacted_at", columnList = "transactedAt, id")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class Transaction {
   @Id
-  @GeneratedValue
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+  @SequenceGenerator(name = "transaction_seq", sequenceName = "transaction_seq", allocationSize = 50)
   private Long id;
 
   @Enumerated(EnumType.STRING)
@@ -28,7 +36,8 @@ public class Transaction {
   @Enumerated(EnumType.STRING)
   private TransactionResultType transactionResultType;
 
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
+  @ToString.Exclude
   private Account account;
   private Long amount;
   private Long balanceSnapshot;
@@ -0,0 +1,63 @@
+package com.example.account.dto;
+
+import com.example.account.domain.AccountDailySummary;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/*
+계좌별 일별 거래 요약
+날짜마다 (거래 종류, 거래 결과) 별 건수와 금액 합계, 그날 마지막 거래 직후의 잔액을 준다.
+거래가 없는 날은 빠진다.
+*/
+public class AccountDailySummaryDto {
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @Builder
+  @ToString
+  public static class Item {
+    private TransactionType transactionType;
+    private TransactionResultType transactionResult;
+    private long count;
+    private long amount;
+
+    public static Item from(AccountDailySummary summary) {
+      return Item.builder()
+          .transactionType(summary.getTransactionType())
+          .transactionResult(summary.getTransactionResultType())
+          .count(summary.getTransactionCount())
+          .amount(summary.getAmountSum())
+          .build();
+    }
+  }
+
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @Builder
+  @ToString
+  public static class Day {
+    private LocalDate date;
+    private Long closingBalance;
+    private List<Item> items;
+  }
+
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @Builder
+  @ToString
+  public static class Response {
+    private String accountNumber;
+    private LocalDate from;
+    private LocalDate to;
+    private List<Day> days;
+  }
+}
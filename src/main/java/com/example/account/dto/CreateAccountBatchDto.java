@@ -0,0 +1,82 @@
+package com.example.account.dto;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class CreateAccountBatchDto {
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @ToString
+  public static class Request {
+    @Valid
+    @NotEmpty
+    @Size(max = 10000)
+    private List<CreateAccountDto.Request> items;
+  }
+
+  // 건별 결과 (요청 순서와 같고, 실패한 건은 errorCode 가 채워진다)
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @Builder
+  @ToString
+  public static class Item {
+    private long userId;
+    private String accountNumber;
+    private Long balance;
+    private LocalDateTime registeredAt;
+    private ErrorCode errorCode;
+    private String errorMessage;
+
+    public static Item success(AccountDto accountDto) {
+      return Item.builder()
+          .userId(accountDto.getUserId())
+          .accountNumber(accountDto.getAccountNumber())
+          .balance(accountDto.getBalance())
+          .registeredAt(accountDto.getRegisteredAt())
+          .build();
+    }
+
+    public static Item fail(long userId, AccountException e) {
+      return Item.builder()
+          .userId(userId)
+          .errorCode(e.getErrorCode())
+          .errorMessage(e.getErrorMessage())
+          .build();
+    }
+  }
+
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @Builder
+  @ToString
+  public static class Response {
+    private int successCount;
+    private int failCount;
+    private List<Item> results;
+
+    public static Response from(List<Item> results) {
+      int successCount = (int) results.stream()
+          .filter(result -> result.getErrorCode() == null)
+          .count();
+
+      return Response.builder()
+          .successCount(successCount)
+          .failCount(results.size() - successCount)
+          .results(results)
+          .build();
+    }
+  }
+}
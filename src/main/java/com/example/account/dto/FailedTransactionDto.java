@@ -0,0 +1,19 @@
+package com.example.account.dto;
+
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// 실패 거래 기록 대기열에 들어가는 한 건 (계좌 조회는 기록할 때 한번에 한다)
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class FailedTransactionDto {
+  private TransactionType transactionType;
+  private String accountNumber;
+  private Long amount;
+  private LocalDateTime failedAt;
+}
@@ -0,0 +1,45 @@
+package com.example.account.dto;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// 일괄 요청의 건별 결과 (실패한 건은 errorCode 가 채워진다)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class TransactionBatchResultDto {
+  private String accountNumber;
+  private TransactionResultType transactionResult;
+  private String transactionId;
+  private Long amount;
+  private LocalDateTime transactedAt;
+  private ErrorCode errorCode;
+  private String errorMessage;
+
+  public static TransactionBatchResultDto success(TransactionDto transactionDto) {
+    return TransactionBatchResultDto.builder()
+        .accountNumber(transactionDto.getAccountNumber())
+        .transactionResult(transactionDto.getTransactionResultType())
+        .transactionId(transactionDto.getTransactionId())
+        .amount(transactionDto.getAmount())
+        .transactedAt(transactionDto.getTransactedAt())
+        .build();
+  }
+
+  public static TransactionBatchResultDto fail(String accountNumber, Long amount, AccountException e) {
+    return TransactionBatchResultDto.builder()
+        .accountNumber(accountNumber)
+        .transactionResult(TransactionResultType.F)
+        .amount(amount)
+        .errorCode(e.getErrorCode())
+        .errorMessage(e.getErrorMessage())
+        .build();
+  }
+}
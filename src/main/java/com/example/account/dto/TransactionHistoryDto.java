@@ -0,0 +1,73 @@
+package com.example.account.dto;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+/*
+계좌별 거래 내역 (최신순)
+nextCursor 를 다음 요청의 after 로 넘기면 이어서 조회한다. 마지막 페이지면 null.
+*/
+public class TransactionHistoryDto {
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @ToString
+  public static class Item {
+    private Long id;
+    private String transactionId;
+    private TransactionType transactionType;
+    private TransactionResultType transactionResult;
+    private Long amount;
+    private Long balanceSnapshot;
+    private LocalDateTime transactedAt;
+  }
+
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @Builder
+  @ToString
+  public static class Response {
+    private String accountNumber;
+    private List<Item> transactions;
+    private String nextCursor;
+  }
+
+  // 커서 = 마지막 항목의 (transactedAt, id)
+  @Getter
+  @AllArgsConstructor
+  public static class Cursor {
+    private final LocalDateTime transactedAt;
+    private final Long id;
+
+    public static Cursor of(Item item) {
+      return new Cursor(item.getTransactedAt(), item.getId());
+    }
+
+    public String encode() {
+      return Base64.getUrlEncoder().withoutPadding()
+          .encodeToString((transactedAt + "_" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String cursor) {
+      try {
+        String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+            .split("_", 2);
+        return new Cursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+      } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | DateTimeParseException e) {
+        throw new AccountException(ErrorCode.INVALID_ID_REQUEST);
+      }
+    }
+  }
+}
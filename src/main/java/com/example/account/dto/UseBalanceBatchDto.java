@@ -0,0 +1,46 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+public class UseBalanceBatchDto {
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @ToString
+  public static class Request {
+    @Valid
+    @NotEmpty
+    @Size(max = 1000)
+    private List<UseBalanceDto.Request> items;
+  }
+
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @Builder
+  @ToString
+  public static class Response {
+    private int successCount;
+    private int failCount;
+    private List<TransactionBatchResultDto> results;
+
+    public static Response from(List<TransactionBatchResultDto> results) {
+      int successCount = (int) results.stream()
+          .filter(result -> result.getErrorCode() == null)
+          .count();
+
+      return Response.builder()
+          .successCount(successCount)
+          .failCount(results.size() - successCount)
+          .results(results)
+          .build();
+    }
+  }
+}
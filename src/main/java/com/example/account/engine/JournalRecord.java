@@ -0,0 +1,125 @@
+package com.example.account.engine;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.type.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32;
+
+import static com.example.account.type.TransactionResultType.S;
+
+/*
+저널 레코드 하나 (고정 길이 96 byte, 성공한 사용/취소만 남는다)
+
+ 0  int   MAGIC          0 이면 아직 안 쓴 자리 (새 세그먼트 파일은 0 으로 채워져 있다)
+ 4  int   crc32          [8, 96) 구간. 쓰다 만 레코드를 걸러낸다.
+ 8  long  sequence       샤드 저널 안에서 1 부터 1씩 증가
+16  long  accountId
+24  long  amount
+32  long  balanceSnapshot
+40  long  transactedAt   epoch second (LocalDateTime 을 그대로 UTC 로 보고 옮긴다)
+48  int   transactedAt   nano
+52  byte  transactionType
+53  byte  transactionId 길이
+54  32byte transactionId (ASCII)
+*/
+@Getter
+@AllArgsConstructor
+class JournalRecord {
+  static final int SIZE = 96;
+  static final int MAX_TRANSACTION_ID_LENGTH = 32;
+  private static final int MAGIC = 0x4C454447;
+  private static final int BODY_OFFSET = 8;
+
+  private final long sequence;
+  private final long accountId;
+  private final TransactionType transactionType;
+  private final long amount;
+  private final long balanceSnapshot;
+  private final String transactionId;
+  private final LocalDateTime transactedAt;
+
+  static JournalRecord of(long sequence, Transaction transaction) {
+    return new JournalRecord(sequence, transaction.getAccount().getId(),
+        transaction.getTransactionType(), transaction.getAmount(),
+        transaction.getBalanceSnapshot(), transaction.getTransactionId(),
+        transaction.getTransactedAt());
+  }
+
+  // 프로젝션용 : 계좌는 호출하는 쪽에서 참조(프록시)로 넘긴다.
+  Transaction toTransaction(Account account) {
+    return Transaction.builder()
+        .transactionType(transactionType)
+        .transactionResultType(S)
+        .account(account)
+        .amount(amount)
+        .balanceSnapshot(balanceSnapshot)
+        .transactionId(transactionId)
+        .transactedAt(transactedAt)
+        .build();
+  }
+
+  // buffer 의 현재 position 부터 SIZE 만큼 쓴다.
+  void writeTo(ByteBuffer buffer) {
+    byte[] id = transactionId.getBytes(StandardCharsets.US_ASCII);
+    if (id.length > MAX_TRANSACTION_ID_LENGTH) {
+      throw new IllegalArgumentException("Transaction id is too long for the journal : " + transactionId);
+    }
+
+    int start = buffer.position();
+    buffer.putInt(0)
+        .putInt(0)
+        .putLong(sequence)
+        .putLong(accountId)
+        .putLong(amount)
+        .putLong(balanceSnapshot)
+        .putLong(transactedAt.toEpochSecond(ZoneOffset.UTC))
+        .putInt(transactedAt.getNano())
+        .put((byte) transactionType.ordinal())
+        .put((byte) id.length)
+        .put(id)
+        .put(new byte[SIZE - BODY_OFFSET - 46 - id.length]);
+
+    buffer.putInt(start + 4, crc(buffer, start));
+    // MAGIC 을 마지막에 써서, 중간에 죽으면 빈 자리나 crc 불일치로 보이게 한다.
+    buffer.putInt(start, MAGIC);
+  }
+
+  // buffer 의 현재 position 부터 SIZE 만큼 읽는다. 빈 자리이거나 깨진 레코드면 null
+  static JournalRecord readFrom(ByteBuffer buffer) {
+    int start = buffer.position();
+    if (buffer.getInt(start) != MAGIC || buffer.getInt(start + 4) != crc(buffer, start)) {
+      return null;
+    }
+
+    buffer.position(start + BODY_OFFSET);
+    long sequence = buffer.getLong();
+    long accountId = buffer.getLong();
+    long amount = buffer.getLong();
+    long balanceSnapshot = buffer.getLong();
+    long epochSecond = buffer.getLong();
+    int nano = buffer.getInt();
+    TransactionType transactionType = TransactionType.values()[buffer.get()];
+    byte[] id = new byte[buffer.get()];
+    buffer.get(id);
+    buffer.position(start + SIZE);
+
+    return new JournalRecord(sequence, accountId, transactionType, amount, balanceSnapshot,
+        new String(id, StandardCharsets.US_ASCII),
+        LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC));
+  }
+
+  private static int crc(ByteBuffer buffer, int start) {
+    CRC32 crc = new CRC32();
+    ByteBuffer body = buffer.duplicate();
+    body.position(start + BODY_OFFSET).limit(start + SIZE);
+    crc.update(body);
+    return (int) crc.getValue();
+  }
+}
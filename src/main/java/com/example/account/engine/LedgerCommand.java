@@ -0,0 +1,41 @@
+package com.example.account.engine;
+
+import com.example.account.type.TransactionType;
+import lombok.Getter;
+
+/*
+링버퍼 슬롯에 미리 만들어두고 재사용하는 명령 객체
+USE : userId, accountNumber, amount
+CANSLE : transactionId(취소할 거래), accountNumber, amount
+계좌 상태 변경 알림 : accountChanged = true, accountNumber
+*/
+@Getter
+public class LedgerCommand {
+  private TransactionType transactionType;
+  private Long userId;
+  private String transactionId;
+  private String accountNumber;
+  private Long amount;
+  private LedgerResult result;
+  private boolean accountChanged;
+
+  void set(TransactionType transactionType, Long userId, String transactionId,
+           String accountNumber, Long amount, LedgerResult result) {
+    this.transactionType = transactionType;
+    this.userId = userId;
+    this.transactionId = transactionId;
+    this.accountNumber = accountNumber;
+    this.amount = amount;
+    this.result = result;
+    this.accountChanged = false;
+  }
+
+  void setAccountChanged(String accountNumber) {
+    set(null, null, null, accountNumber, null, null);
+    this.accountChanged = true;
+  }
+
+  void clear() {
+    set(null, null, null, null, null, null);
+  }
+}
@@ -0,0 +1,181 @@
+package com.example.account.engine;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.service.AccountCache;
+import com.example.account.service.TransactionIdGenerator;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.EventTranslatorOneArg;
+import com.lmax.disruptor.EventTranslatorVararg;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+import static com.example.account.type.TransactionType.CANSLE;
+import static com.example.account.type.TransactionType.USE;
+
+/*
+잔액 사용/취소 전용 single-writer 엔진 (account.engine.enabled=true 일 때만 뜬다)
+계좌번호로 샤드를 고르고, 샤드마다 링버퍼 하나와 스레드 하나가 붙는다.
+같은 계좌는 항상 같은 스레드에서만 처리되므로 락 없이 메모리 잔액을 갱신할 수 있다.
+
+주의 : 엔진이 계좌 잔액을 메모리에 들고 있으므로, 엔진 모드에서는
+이 노드가 해당 계좌들의 유일한 writer 여야 한다.
+계좌 상태(해지)는 AccountService 가 바꾸므로, AccountCache 의 evict 알림을 받아 그 계좌의 샤드에 전달한다.
+
+account.engine.journal.enabled=true 면 샤드는 DB 대신 저널에 기록하고 응답한다. (LedgerJournalProjector)
+*/
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.engine.enabled", havingValue = "true")
+public class LedgerEngine {
+  private static final EventTranslatorVararg<LedgerCommand> TRANSLATOR =
+      (command, sequence, args) -> command.set(
+          (TransactionType) args[0], (Long) args[1], (String) args[2],
+          (String) args[3], (Long) args[4], (LedgerResult) args[5]);
+  private static final EventTranslatorOneArg<LedgerCommand, String> ACCOUNT_CHANGED =
+      (command, sequence, accountNumber) -> command.setAccountChanged(accountNumber);
+
+  private final LedgerPersister ledgerPersister;
+  private final TransactionIdGenerator transactionIdGenerator;
+  private final AccountCache accountCache;
+  // account.engine.journal.enabled=true 일 때만 존재
+  private final Optional<LedgerJournalProjector> journalProjector;
+  private final int shardCount;
+  private final int ringBufferSize;
+  private final int maxBatchSize;
+  private final long timeoutMs;
+
+  private final List<Disruptor<LedgerCommand>> disruptors = new ArrayList<>();
+  private final List<RingBuffer<LedgerCommand>> ringBuffers = new ArrayList<>();
+  private final List<LedgerShard> shards = new ArrayList<>();
+
+  public LedgerEngine(LedgerPersister ledgerPersister,
+                      TransactionIdGenerator transactionIdGenerator,
+                      AccountCache accountCache,
+                      Optional<LedgerJournalProjector> journalProjector,
+                      @Value("${account.engine.shards}") int shardCount,
+                      @Value("${account.engine.ring-buffer-size}") int ringBufferSize,
+                      @Value("${account.engine.max-batch-size}") int maxBatchSize,
+                      @Value("${account.engine.timeout-ms}") long timeoutMs) {
+    this.ledgerPersister = ledgerPersister;
+    this.transactionIdGenerator = transactionIdGenerator;
+    this.accountCache = accountCache;
+    this.journalProjector = journalProjector;
+    this.shardCount = shardCount;
+    this.ringBufferSize = ringBufferSize;
+    this.maxBatchSize = maxBatchSize;
+    this.timeoutMs = timeoutMs;
+  }
+
+  @PostConstruct
+  public void start() {
+    for (int shardId = 0; shardId < shardCount; shardId++) {
+      String threadName = "ledger-shard-" + shardId;
+      ThreadFactory threadFactory = runnable -> new Thread(runnable, threadName);
+      Disruptor<LedgerCommand> disruptor = new Disruptor<>(
+          LedgerCommand::new, ringBufferSize, threadFactory,
+          ProducerType.MULTI, new BlockingWaitStrategy());
+      LedgerJournal journal = journalProjector.isPresent() ? journalProjector.get().journal(shardId) : null;
+      LedgerShard shard = new LedgerShard(shardId, ledgerPersister, transactionIdGenerator, maxBatchSize, journal);
+      disruptor.handleEventsWith(shard);
+      shards.add(shard);
+
+      ringBuffers.add(disruptor.start());
+      disruptors.add(disruptor);
+    }
+    accountCache.addEvictionListener(this::accountChanged);
+    log.info("Ledger engine started with {} shards{}", shardCount,
+        journalProjector.isPresent() ? " (journal mode)" : "");
+  }
+
+  @PreDestroy
+  public void stop() {
+    // 링버퍼에 남은 명령을 모두 처리하고 멈춘다.
+    for (Disruptor<LedgerCommand> disruptor : disruptors) {
+      try {
+        disruptor.shutdown(timeoutMs, TimeUnit.MILLISECONDS);
+      } catch (com.lmax.disruptor.TimeoutException e) {
+        log.error("Ledger shard did not drain in {} ms", timeoutMs);
+        disruptor.halt();
+      }
+    }
+  }
+
+  public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
+    return await(submit(USE, userId, null, accountNumber, amount));
+  }
+
+  public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
+    return await(submit(CANSLE, null, transactionId, accountNumber, amount));
+  }
+
+  public LedgerResult submit(TransactionType transactionType, Long userId,
+                             String transactionId, String accountNumber, Long amount) {
+    LedgerResult result = new LedgerResult();
+    ringBuffers.get(shardOf(accountNumber)).publishEvent(TRANSLATOR,
+        transactionType, userId, transactionId, accountNumber, amount, result);
+    return result;
+  }
+
+  // 엔진 밖에서 상태가 바뀐 계좌를 그 계좌의 샤드에 알린다.
+  public void accountChanged(String accountNumber) {
+    ringBuffers.get(shardOf(accountNumber)).publishEvent(ACCOUNT_CHANGED, accountNumber);
+  }
+
+  /*
+  저널 모드에서 이 계좌의 거래가 아직 DB 에 반영되지 않았는지
+  그동안은 DB 잔액이 실제 잔액보다 늦으므로 AccountService 는 해지하지 않는다.
+  */
+  public boolean hasUnprojectedTransactions(String accountNumber) {
+    return shards.get(shardOf(accountNumber)).hasUnprojected(accountNumber);
+  }
+
+  int shardOf(String accountNumber) {
+    return Math.floorMod(accountNumber.hashCode(), shardCount);
+  }
+
+  public TransactionDto await(LedgerResult result) {
+    try {
+      return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof AccountException) {
+        throw (AccountException) e.getCause();
+      }
+      throw new IllegalStateException("Ledger command failed", e.getCause());
+    } catch (TimeoutException e) {
+      throw giveUp(result);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw giveUp(result);
+    }
+  }
+
+  // 아직 샤드가 꺼내지 않았으면 취소하고, 이미 적용 중이면 결과를 알 수 없다고 돌려준다.
+  private AccountException giveUp(LedgerResult result) {
+    if (result.tryCancel()) {
+      return new AccountException(ErrorCode.ACCOUNT_TRANSACTION_TIMEOUT);
+    }
+    log.warn("Ledger command outlived the {} ms wait after it was applied", timeoutMs);
+    return new AccountException(ErrorCode.TRANSACTION_OUTCOME_UNKNOWN);
+  }
+
+  // 기다리다 포기한 요청은 실패 거래로 기록하지 않는다. (반영됐을 수 있고, 취소됐다면 재시도하면 된다)
+  public static boolean isTimeout(AccountException e) {
+    return e.getErrorCode() == ErrorCode.ACCOUNT_TRANSACTION_TIMEOUT
+        || e.getErrorCode() == ErrorCode.TRANSACTION_OUTCOME_UNKNOWN;
+  }
+}
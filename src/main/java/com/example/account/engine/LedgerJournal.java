@@ -0,0 +1,284 @@
+package com.example.account.engine;
+
+import com.example.account.domain.Transaction;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/*
+샤드 하나의 append-only 저널 (memory-mapped 세그먼트 파일)
+세그먼트 파일 이름은 첫 레코드의 sequence 이고, 가득 차면 다음 sequence 이름으로 새 파일을 연다.
+
+쓰기는 샤드 스레드 하나만 한다. (begin / append / commit / abort)
+읽기는 projector 스레드가 하고, 샤드 스레드가 commit 에서 올리는 writtenSequence 까지만 읽는다.
+projector 가 DB 에 반영한 위치는 projectedSequence 로 샤드에 알려준다.
+
+다시 열 때는 마지막 세그먼트를 훑어서 온전한 마지막 레코드 다음부터 이어 쓴다.
+(쓰다 만 레코드는 crc 가 맞지 않으므로 버려지고 그 자리에 덮어쓴다)
+*/
+@Slf4j
+class LedgerJournal implements AutoCloseable {
+  private static final String SEGMENT_SUFFIX = ".journal";
+
+  private final Path directory;
+  private final int recordsPerSegment;
+  private final long fsyncIntervalMs;
+
+  // 첫 sequence -> 세그먼트 파일 (쓰기 스레드가 바꾸고 읽기 스레드가 보므로 동기화)
+  private final TreeMap<Long, Path> segments = new TreeMap<>();
+
+  private FileChannel writeChannel;
+  private MappedByteBuffer writeBuffer;
+  private long lastSyncedAt;
+  private long appendedSequence;
+
+  private volatile long writtenSequence;
+  private volatile long projectedSequence;
+
+  // 읽기 쪽에서 열어둔 세그먼트
+  private long readSegmentStart = -1;
+  private FileChannel readChannel;
+
+  private LedgerJournal(Path directory, int segmentSizeBytes, long fsyncIntervalMs) {
+    this.directory = directory;
+    this.recordsPerSegment = Math.max(1, segmentSizeBytes / JournalRecord.SIZE);
+    this.fsyncIntervalMs = fsyncIntervalMs;
+  }
+
+  static LedgerJournal open(Path directory, int segmentSizeBytes, long fsyncIntervalMs) {
+    LedgerJournal journal = new LedgerJournal(directory, segmentSizeBytes, fsyncIntervalMs);
+    try {
+      Files.createDirectories(directory);
+      journal.recover();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to open ledger journal " + directory, e);
+    }
+    return journal;
+  }
+
+  private void recover() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+          .forEach(file -> segments.put(firstSequenceOf(file), file));
+    }
+
+    if (segments.isEmpty()) {
+      mapSegment(1);
+      return;
+    }
+
+    Map.Entry<Long, Path> last = segments.lastEntry();
+    mapSegment(last.getKey());
+    long sequence = last.getKey() - 1;
+    while (writeBuffer.remaining() >= JournalRecord.SIZE) {
+      int position = writeBuffer.position();
+      JournalRecord record = JournalRecord.readFrom(writeBuffer);
+      if (record == null || record.getSequence() != sequence + 1) {
+        writeBuffer.position(position);
+        break;
+      }
+      sequence = record.getSequence();
+    }
+    appendedSequence = sequence;
+    writtenSequence = sequence;
+    log.info("Ledger journal {} recovered up to sequence {}", directory, sequence);
+  }
+
+  /*
+  샤드 스레드 전용 : begin -> append * n -> commit (또는 abort)
+  배치 하나는 항상 한 세그먼트 안에 쓴다. (자리가 모자라면 begin 에서 미리 새 세그먼트로 넘어간다)
+  commit 전에는 writtenSequence 를 올리지 않으므로 projector 는 반쯤 쓴 배치를 보지 못한다.
+  */
+  void begin(int records) {
+    if (records > recordsPerSegment) {
+      throw new IllegalArgumentException("Batch of " + records
+          + " records does not fit in a journal segment of " + recordsPerSegment);
+    }
+    if (writeBuffer.remaining() < records * JournalRecord.SIZE) {
+      roll();
+    }
+  }
+
+  // 반환값은 레코드의 sequence
+  long append(Transaction transaction) {
+    long sequence = appendedSequence + 1;
+    JournalRecord.of(sequence, transaction).writeTo(writeBuffer);
+    appendedSequence = sequence;
+    return sequence;
+  }
+
+  /*
+  fsyncIntervalMs 가 0 이면 매번 디스크까지 내린 뒤 commit 하고, 아니면 그 간격이 지났을 때만 내린다.
+  (간격 사이에 OS 가 죽으면 응답한 거래를 잃을 수 있다. 프로세스만 죽는 건 page cache 에 남아서 괜찮다)
+  */
+  void commit() {
+    if (appendedSequence == writtenSequence) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    if (fsyncIntervalMs == 0 || now - lastSyncedAt >= fsyncIntervalMs) {
+      writeBuffer.force();
+      lastSyncedAt = now;
+    }
+    writtenSequence = appendedSequence;
+  }
+
+  // commit 하지 않은 레코드를 지우고 그 자리부터 다시 쓴다.
+  void abort() {
+    int position = writeBuffer.position() - (int) (appendedSequence - writtenSequence) * JournalRecord.SIZE;
+    for (int offset = position; offset < writeBuffer.position(); offset += JournalRecord.SIZE) {
+      writeBuffer.putInt(offset, 0);
+    }
+    writeBuffer.position(position);
+    appendedSequence = writtenSequence;
+  }
+
+  private void roll() {
+    writeBuffer.force();
+    closeWriteChannel();
+    try {
+      mapSegment(appendedSequence + 1);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to roll ledger journal " + directory, e);
+    }
+  }
+
+  private void mapSegment(long firstSequence) throws IOException {
+    Path file = directory.resolve(String.format("%020d%s", firstSequence, SEGMENT_SUFFIX));
+    writeChannel = FileChannel.open(file,
+        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    writeBuffer = writeChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+        (long) recordsPerSegment * JournalRecord.SIZE);
+    synchronized (segments) {
+      segments.put(firstSequence, file);
+    }
+  }
+
+  long getWrittenSequence() {
+    return writtenSequence;
+  }
+
+  long getProjectedSequence() {
+    return projectedSequence;
+  }
+
+  void setProjectedSequence(long projectedSequence) {
+    this.projectedSequence = projectedSequence;
+  }
+
+  // projector 스레드 전용. fromSequence 부터 최대 maxRecords 개 (writtenSequence 까지)
+  List<JournalRecord> read(long fromSequence, int maxRecords) {
+    long toSequence = Math.min(writtenSequence, fromSequence + maxRecords - 1);
+    List<JournalRecord> records = new ArrayList<>();
+    ByteBuffer buffer = ByteBuffer.allocate(JournalRecord.SIZE);
+    try {
+      for (long sequence = fromSequence; sequence <= toSequence; sequence++) {
+        long segmentStart = openReadSegment(sequence);
+        buffer.clear();
+        readChannel.read(buffer, (sequence - segmentStart) * JournalRecord.SIZE);
+        buffer.flip();
+        JournalRecord record = buffer.remaining() == JournalRecord.SIZE
+            ? JournalRecord.readFrom(buffer) : null;
+        if (record == null || record.getSequence() != sequence) {
+          throw new IllegalStateException("Ledger journal " + directory
+              + " is corrupted at sequence " + sequence);
+        }
+        records.add(record);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read ledger journal " + directory, e);
+    }
+    return records;
+  }
+
+  private long openReadSegment(long sequence) throws IOException {
+    Map.Entry<Long, Path> segment;
+    synchronized (segments) {
+      segment = segments.floorEntry(sequence);
+    }
+    if (segment == null) {
+      throw new IllegalStateException("Ledger journal " + directory + " has no segment for sequence " + sequence);
+    }
+    if (segment.getKey() != readSegmentStart) {
+      closeReadChannel();
+      readChannel = FileChannel.open(segment.getValue(), StandardOpenOption.READ);
+      readSegmentStart = segment.getKey();
+    }
+    return readSegmentStart;
+  }
+
+  // 남아 있는 가장 오래된 세그먼트의 첫 sequence (앞쪽은 이미 반영하고 지운 것)
+  long getFirstSequence() {
+    synchronized (segments) {
+      return segments.firstKey();
+    }
+  }
+
+  // projector 스레드 전용. sequence 까지 모두 반영된 세그먼트 파일을 지운다. (쓰고 있는 마지막 세그먼트는 남긴다)
+  void deleteSegmentsUpTo(long sequence) {
+    List<Map.Entry<Long, Path>> deletable = new ArrayList<>();
+    synchronized (segments) {
+      while (segments.size() > 1 && segments.higherKey(segments.firstKey()) - 1 <= sequence) {
+        deletable.add(segments.pollFirstEntry());
+      }
+    }
+    for (Map.Entry<Long, Path> segment : deletable) {
+      if (segment.getKey() == readSegmentStart) {
+        closeReadChannel();
+      }
+      try {
+        Files.deleteIfExists(segment.getValue());
+      } catch (IOException e) {
+        log.warn("Failed to delete projected journal segment {}", segment.getValue(), e);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    if (writeBuffer != null) {
+      writeBuffer.force();
+    }
+    closeWriteChannel();
+    closeReadChannel();
+  }
+
+  private void closeWriteChannel() {
+    try {
+      if (writeChannel != null) {
+        writeChannel.close();
+      }
+    } catch (IOException e) {
+      log.warn("Failed to close ledger journal segment in {}", directory, e);
+    }
+  }
+
+  private void closeReadChannel() {
+    try {
+      if (readChannel != null) {
+        readChannel.close();
+      }
+    } catch (IOException e) {
+      log.warn("Failed to close ledger journal reader in {}", directory, e);
+    }
+    readChannel = null;
+    readSegmentStart = -1;
+  }
+
+  private static long firstSequenceOf(Path file) {
+    String name = file.getFileName().toString();
+    return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+  }
+}
@@ -0,0 +1,195 @@
+package com.example.account.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+저널 모드 (account.engine.journal.enabled=true)
+엔진 샤드는 결과를 샤드별 저널에 append 하고 바로 응답하고, 여기서 저널을 뒤따라가며 DB 에 반영한다.
+
+1. 기동할 때 : 엔진이 요청을 받기 전에 모든 샤드 저널을 체크포인트 다음부터 끝까지 반영한다. (crash 복구)
+   샤드 엔진은 계좌를 처음 볼 때 DB 에서 잔액을 읽으므로, 이게 끝나야 잔액이 맞다.
+2. 도는 동안 : projector-interval-ms 마다 샤드별로 writtenSequence 까지 batch-size 씩 반영하고,
+   다 반영한 세그먼트 파일은 지운다.
+
+반영이 끝나기 전까지 거래 내역 / 일별 요약 조회에는 아직 안 보일 수 있다.
+
+저널 디렉토리와 DB 는 함께 남거나 함께 지워져야 한다. (예: in-memory H2 는 재기동하면 비지만 저널은 남는다)
+기동할 때 체크포인트와 저널이 맞지 않으면 반영하지 않고 실패한다.
+*/
+@Slf4j
+@Component
+@ConditionalOnProperty(name = {"account.engine.enabled", "account.engine.journal.enabled"}, havingValue = "true")
+public class LedgerJournalProjector {
+  private static final String SHARD_DIRECTORY_PREFIX = "shard-";
+
+  private final LedgerPersister ledgerPersister;
+  private final Path directory;
+  private final int shardCount;
+  private final int segmentSizeBytes;
+  private final long fsyncIntervalMs;
+  private final long intervalMs;
+  private final int batchSize;
+
+  private final List<LedgerJournal> journals = new ArrayList<>();
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "ledger-journal-projector");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public LedgerJournalProjector(LedgerPersister ledgerPersister,
+                                @Value("${account.engine.journal.dir}") String directory,
+                                @Value("${account.engine.shards}") int shardCount,
+                                @Value("${account.engine.max-batch-size}") int maxBatchSize,
+                                @Value("${account.engine.journal.segment-size-bytes}") int segmentSizeBytes,
+                                @Value("${account.engine.journal.fsync-interval-ms}") long fsyncIntervalMs,
+                                @Value("${account.engine.journal.projector-interval-ms}") long intervalMs,
+                                @Value("${account.engine.journal.projector-batch-size}") int batchSize) {
+    // 샤드 배치 하나는 한 세그먼트 안에 써야 한다.
+    if (segmentSizeBytes / JournalRecord.SIZE < maxBatchSize) {
+      throw new IllegalArgumentException("account.engine.journal.segment-size-bytes must hold at least "
+          + maxBatchSize + " records of " + JournalRecord.SIZE + " bytes");
+    }
+    this.ledgerPersister = ledgerPersister;
+    this.directory = Paths.get(directory);
+    this.shardCount = shardCount;
+    this.segmentSizeBytes = segmentSizeBytes;
+    this.fsyncIntervalMs = fsyncIntervalMs;
+    this.intervalMs = intervalMs;
+    this.batchSize = batchSize;
+  }
+
+  @PostConstruct
+  public void start() {
+    // 샤드 수를 줄여서 띄운 경우에도 남아있는 저널은 모두 반영한다.
+    for (int shardId : existingShardIds()) {
+      if (shardId >= shardCount) {
+        try (LedgerJournal journal = openJournal(shardId)) {
+          replay(shardId, journal);
+        }
+      }
+    }
+    for (int shardId = 0; shardId < shardCount; shardId++) {
+      LedgerJournal journal = openJournal(shardId);
+      replay(shardId, journal);
+      journals.add(journal);
+    }
+
+    scheduler.scheduleWithFixedDelay(this::projectAll, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  // 엔진이 먼저 멈춘 뒤(엔진이 이 빈에 의존한다) 남은 레코드를 마저 반영하고 닫는다.
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    scheduler.shutdown();
+    scheduler.awaitTermination(10, TimeUnit.SECONDS);
+    projectAll();
+    journals.forEach(LedgerJournal::close);
+  }
+
+  LedgerJournal journal(int shardId) {
+    return journals.get(shardId);
+  }
+
+  private void replay(int shardId, LedgerJournal journal) {
+    journal.setProjectedSequence(verifyCheckpoint(shardId, journal));
+    long from = journal.getProjectedSequence();
+    while (project(shardId, journal) > 0) {
+      // 끝까지 반영
+    }
+    if (journal.getProjectedSequence() > from) {
+      log.info("Replayed ledger journal shard {} : sequence {} ~ {}",
+          shardId, from + 1, journal.getProjectedSequence());
+    }
+  }
+
+  /*
+  체크포인트 행은 저널을 처음 열 때 만들어둔다.
+  그래서 행이 없는데 저널에 레코드가 있거나, 체크포인트가 저널 범위 밖이면 저널과 DB 중 한쪽만 새것이다.
+  그대로 반영하면 없는 계좌에 거래를 쓰거나 이미 지운 세그먼트를 찾게 되므로 기동을 멈춘다.
+  */
+  private long verifyCheckpoint(int shardId, LedgerJournal journal) {
+    Optional<Long> checkpoint = ledgerPersister.findJournalCheckpoint(shardId);
+    long writtenSequence = journal.getWrittenSequence();
+    if (checkpoint.isEmpty()) {
+      if (writtenSequence > 0) {
+        throw new IllegalStateException("Ledger journal shard " + shardId + " has records up to sequence "
+            + writtenSequence + " but the database has no checkpoint for it."
+            + " The journal in " + directory + " belongs to another (or a reset in-memory) database;"
+            + " remove it or point the datasource at the database it was written for");
+      }
+      ledgerPersister.createJournalCheckpoint(shardId);
+      return 0;
+    }
+
+    long sequence = checkpoint.get();
+    if (sequence > writtenSequence || sequence + 1 < journal.getFirstSequence()) {
+      throw new IllegalStateException("Ledger journal shard " + shardId + " checkpoint " + sequence
+          + " is outside the journal in " + directory + " (sequence " + journal.getFirstSequence()
+          + " ~ " + writtenSequence + "). The journal and the database were not kept together");
+    }
+    return sequence;
+  }
+
+  private void projectAll() {
+    for (int shardId = 0; shardId < journals.size(); shardId++) {
+      try {
+        while (project(shardId, journals.get(shardId)) == batchSize) {
+          // 밀려 있으면 다음 주기를 기다리지 않고 계속 반영
+        }
+      } catch (RuntimeException e) {
+        // 다음 주기에 같은 위치부터 다시 시도한다.
+        log.error("Failed to project ledger journal shard {}", shardId, e);
+      }
+    }
+  }
+
+  private int project(int shardId, LedgerJournal journal) {
+    List<JournalRecord> records = journal.read(journal.getProjectedSequence() + 1, batchSize);
+    if (records.isEmpty()) {
+      return 0;
+    }
+    ledgerPersister.project(shardId, records);
+    journal.setProjectedSequence(records.get(records.size() - 1).getSequence());
+    journal.deleteSegmentsUpTo(journal.getProjectedSequence());
+    return records.size();
+  }
+
+  private LedgerJournal openJournal(int shardId) {
+    return LedgerJournal.open(directory.resolve(SHARD_DIRECTORY_PREFIX + shardId),
+        segmentSizeBytes, fsyncIntervalMs);
+  }
+
+  private List<Integer> existingShardIds() {
+    if (!Files.isDirectory(directory)) {
+      return new ArrayList<>();
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.map(file -> file.getFileName().toString())
+          .filter(name -> name.startsWith(SHARD_DIRECTORY_PREFIX))
+          .map(name -> Integer.parseInt(name.substring(SHARD_DIRECTORY_PREFIX.length())))
+          .collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to list ledger journal directory " + directory, e);
+    }
+  }
+}
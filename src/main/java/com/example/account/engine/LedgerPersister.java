@@ -0,0 +1,102 @@
+package com.example.account.engine;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.LedgerJournalCheckpoint;
+import com.example.account.domain.Transaction;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.LedgerJournalCheckpointRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.service.AccountDailySummaryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.transaction.Transactional;
+import java.util.*;
+
+/*
+샤드 루프가 DB 에 접근하는 통로
+계좌는 처음 한번만 읽어오고, 이후에는 배치 단위로 잔액과 거래만 기록한다.
+*/
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.engine.enabled", havingValue = "true")
+public class LedgerPersister {
+  private final AccountRepository accountRepository;
+  private final AccountUserRepository accountUserRepository;
+  private final TransactionRepository transactionRepository;
+  private final AccountDailySummaryService accountDailySummaryService;
+  private final LedgerJournalCheckpointRepository ledgerJournalCheckpointRepository;
+
+  // 엔진은 트랜잭션 밖에서 계좌를 계속 들고 있으므로 소유자까지 같이 읽어둔다.
+  public Optional<Account> findAccount(String accountNumber) {
+    return accountRepository.findWithAccountUserByAccountNumber(accountNumber);
+  }
+
+  public boolean existsUser(Long userId) {
+    return accountUserRepository.existsById(userId);
+  }
+
+  public Optional<Transaction> findTransaction(String transactionId) {
+    return transactionRepository.findByTransactionId(transactionId);
+  }
+
+  /*
+  샤드가 들고 있는 계좌 상태는 해지 직후 잠깐 늦을 수 있다. (AccountCache evict 알림이 커밋 뒤에 오므로)
+  그 사이 해지된 계좌가 하나라도 있으면 예외를 던져 배치 전체를 되돌린다.
+  */
+  @Transactional
+  public void persist(Collection<Account> accounts, List<Transaction> transactions) {
+    for (Account account : accounts) {
+      if (accountRepository.updateBalanceIfInUse(account.getId(), account.getBalance()) == 0) {
+        throw new IllegalStateException("Account " + account.getId() + " is no longer in use");
+      }
+    }
+    transactionRepository.saveAll(transactions);
+    accountDailySummaryService.record(transactions);
+  }
+
+  // 저널을 한번도 열지 않은 DB 면 empty
+  public Optional<Long> findJournalCheckpoint(int shardId) {
+    return ledgerJournalCheckpointRepository.findById(shardId)
+        .map(LedgerJournalCheckpoint::getSequence);
+  }
+
+  public void createJournalCheckpoint(int shardId) {
+    ledgerJournalCheckpointRepository.save(new LedgerJournalCheckpoint(shardId, 0));
+  }
+
+  /*
+  저널 레코드를 DB 에 반영한다. (LedgerJournalProjector)
+  계좌는 읽지 않고 참조만 걸고, 잔액은 계좌마다 마지막 레코드의 balanceSnapshot 으로 덮어쓴다.
+  체크포인트를 같은 트랜잭션에서 올리므로 반영과 체크포인트가 항상 같이 커밋된다.
+
+  persist 와 같이 사용 중인 계좌의 잔액만 바꾼다.
+  AccountService 는 반영되지 않은 거래가 있는 계좌를 해지하지 않지만, 해지 커밋과 샤드 알림 사이에
+  저널에 들어간 거래는 막지 못한다. 이미 성공으로 응답한 거래이므로 멈추지 않고
+  거래는 남기되 해지된 계좌의 잔액은 건드리지 않고 로그를 남긴다. (수동 정산 대상)
+  */
+  @Transactional
+  public void project(int shardId, List<JournalRecord> records) {
+    Map<Long, Long> balances = new LinkedHashMap<>();
+    List<Transaction> transactions = new ArrayList<>(records.size());
+    for (JournalRecord record : records) {
+      transactions.add(record.toTransaction(accountRepository.getReferenceById(record.getAccountId())));
+      balances.put(record.getAccountId(), record.getBalanceSnapshot());
+    }
+
+    balances.forEach((accountId, balance) -> {
+      if (accountRepository.updateBalanceIfInUse(accountId, balance) == 0) {
+        log.error("Ledger journal shard {} projected a transaction onto unregistered account {};"
+            + " balance {} was not applied", shardId, accountId, balance);
+      }
+    });
+    transactionRepository.saveAll(transactions);
+    accountDailySummaryService.record(transactions);
+    ledgerJournalCheckpointRepository.save(new LedgerJournalCheckpoint(
+        shardId, records.get(records.size() - 1).getSequence()));
+  }
+}
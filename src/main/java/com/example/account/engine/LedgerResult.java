@@ -0,0 +1,24 @@
+package com.example.account.engine;
+
+import com.example.account.dto.TransactionDto;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+엔진에 넣은 명령 하나의 결과
+샤드가 명령을 적용하기 시작하는 것(tryStart)과 기다리던 쪽이 포기하는 것(tryCancel) 중 먼저 온 쪽만 성공한다.
+- tryCancel 이 이기면 샤드는 이 명령을 적용하지 않는다. (잔액이 바뀌지 않았음이 확실하다)
+- tryStart 가 이기면 이미 적용 중이므로 취소할 수 없다. (기다리던 쪽은 결과를 알 수 없다)
+*/
+public class LedgerResult extends CompletableFuture<TransactionDto> {
+  private final AtomicBoolean claimed = new AtomicBoolean();
+
+  boolean tryStart() {
+    return claimed.compareAndSet(false, true);
+  }
+
+  boolean tryCancel() {
+    return claimed.compareAndSet(false, true) && cancel(false);
+  }
+}
@@ -0,0 +1,262 @@
+package com.example.account.engine;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.service.TransactionIdGenerator;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
+import com.lmax.disruptor.EventHandler;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANSLE;
+import static com.example.account.type.TransactionType.USE;
+
+/*
+샤드 하나 = 스레드 하나
+이 샤드로 라우팅된 계좌의 잔액은 이 스레드만 읽고 쓰기 때문에 락이 필요 없다.
+검증 규칙은 TransactionService 와 같고, 결과는 배치가 끝날 때 한번에 DB 에 기록한 뒤 응답한다.
+저널 모드면 DB 대신 샤드 저널에 append 하고 응답한다. (DB 반영은 LedgerJournalProjector)
+
+계좌는 처음 한번 읽어 계속 들고 있으므로, 해지처럼 엔진 밖에서 상태가 바뀌면
+LedgerEngine 이 상태 변경 알림 명령을 넣어주고 그때 상태만 다시 읽는다.
+*/
+@Slf4j
+class LedgerShard implements EventHandler<LedgerCommand> {
+  private final int shardId;
+  private final LedgerPersister ledgerPersister;
+  private final TransactionIdGenerator transactionIdGenerator;
+  private final int maxBatchSize;
+  // 저널 모드가 아니면 null
+  private final LedgerJournal journal;
+
+  private final Map<String, Account> accounts = new HashMap<>();
+
+  // 저널에만 있고 아직 DB 에 반영되지 않은 거래 (취소할 때 원 거래를 찾기 위함)
+  private final Map<String, Transaction> journaledTransactions = new HashMap<>();
+  private final Deque<JournaledTransaction> journaledOrder = new ArrayDeque<>();
+  // 계좌별로 저널에 마지막으로 쓴 sequence (해지하는 스레드가 읽으므로 concurrent)
+  private final Map<String, Long> lastJournaledSequences = new ConcurrentHashMap<>();
+
+  // 이번 배치에서 바뀐 계좌와 배치 시작 전 잔액 (기록 실패 시 되돌린다)
+  private final Map<Account, Long> originalBalances = new IdentityHashMap<>();
+  private final List<Transaction> pendingTransactions = new ArrayList<>();
+  private final List<CompletableFuture<TransactionDto>> pendingResults = new ArrayList<>();
+
+  LedgerShard(int shardId, LedgerPersister ledgerPersister,
+              TransactionIdGenerator transactionIdGenerator, int maxBatchSize, LedgerJournal journal) {
+    this.shardId = shardId;
+    this.ledgerPersister = ledgerPersister;
+    this.transactionIdGenerator = transactionIdGenerator;
+    this.maxBatchSize = maxBatchSize;
+    this.journal = journal;
+  }
+
+  @Override
+  public void onEvent(LedgerCommand command, long sequence, boolean endOfBatch) {
+    if (journal != null) {
+      forgetProjected();
+    }
+    if (command.isAccountChanged()) {
+      // 미뤄둔 배치에 이 계좌가 있을 수 있으므로 먼저 기록한다.
+      flush();
+      refreshStatus(command.getAccountNumber());
+      command.clear();
+      return;
+    }
+
+    LedgerResult result = command.getResult();
+    if (!result.tryStart()) {
+      // 기다리던 쪽이 이미 포기(취소)한 명령은 적용하지 않는다.
+      command.clear();
+    } else {
+      apply(command, result);
+    }
+
+    if (endOfBatch || pendingTransactions.size() >= maxBatchSize) {
+      flush();
+    }
+  }
+
+  private void apply(LedgerCommand command, LedgerResult result) {
+    try {
+      Transaction transaction = command.getTransactionType() == USE
+          ? useBalance(command) : cancelBalance(command);
+      pendingTransactions.add(transaction);
+      pendingResults.add(result);
+    } catch (RuntimeException e) {
+      result.completeExceptionally(e);
+    } finally {
+      command.clear();
+    }
+  }
+
+  private Transaction useBalance(LedgerCommand command) {
+    Account account = accounts.get(command.getAccountNumber());
+    if (account == null) {
+      if (!ledgerPersister.existsUser(command.getUserId())) {
+        throw new AccountException(ErrorCode.USER_NOT_FOUND);
+      }
+      account = loadAccount(command.getAccountNumber(), ErrorCode.ACCOUNT_NOT_FOUND);
+    }
+
+    if (!Objects.equals(command.getUserId(), account.getAccountUser().getId())) {
+      if (!ledgerPersister.existsUser(command.getUserId())) {
+        throw new AccountException(ErrorCode.USER_NOT_FOUND);
+      }
+      throw new AccountException(ErrorCode.USER_ACCOUNT_UNMATCHED);
+    }
+    if (account.getAccountStatus() != AccountStatus.IN_USE) {
+      throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+    }
+
+    originalBalances.putIfAbsent(account, account.getBalance());
+    account.useBalance(command.getAmount());
+
+    return newTransaction(USE, command.getAmount(), account);
+  }
+
+  private Transaction cancelBalance(LedgerCommand command) {
+    Transaction transaction = Optional.ofNullable(journaledTransactions.get(command.getTransactionId()))
+        .or(() -> ledgerPersister.findTransaction(command.getTransactionId()))
+        .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
+
+    Account account = accounts.get(command.getAccountNumber());
+    if (account == null) {
+      account = loadAccount(command.getAccountNumber(), ErrorCode.USER_NOT_FOUND);
+    }
+
+    if (!Objects.equals(transaction.getAccount().getId(), account.getId())) {
+      throw new AccountException(ErrorCode.TRANSACTION_ACCOUNT_UNMATCHED);
+    }
+    if (!Objects.equals(transaction.getAmount(), command.getAmount())) {
+      throw new AccountException(ErrorCode.CANCEL_MUST_FULLY);
+    }
+    if (transaction.getTransactedAt().isBefore(LocalDateTime.now().minusYears(1))) {
+      throw new AccountException(ErrorCode.TOO_OLD_ORDER_TO_CANCEL);
+    }
+
+    originalBalances.putIfAbsent(account, account.getBalance());
+    account.cancelBalance(command.getAmount());
+
+    return newTransaction(CANSLE, command.getAmount(), account);
+  }
+
+  private Account loadAccount(String accountNumber, ErrorCode notFound) {
+    Account account = ledgerPersister.findAccount(accountNumber)
+        .orElseThrow(() -> new AccountException(notFound));
+    accounts.put(accountNumber, account);
+    return account;
+  }
+
+  // 잔액은 저널 모드에서 DB 보다 앞서 있을 수 있으므로 건드리지 않고 상태만 덮어쓴다.
+  private void refreshStatus(String accountNumber) {
+    Account account = accounts.get(accountNumber);
+    if (account == null) {
+      return;
+    }
+    try {
+      Optional<Account> found = ledgerPersister.findAccount(accountNumber);
+      if (found.isPresent()) {
+        account.setAccountStatus(found.get().getAccountStatus());
+        account.setUnRegisteredAt(found.get().getUnRegisteredAt());
+      } else {
+        accounts.remove(accountNumber);
+      }
+    } catch (RuntimeException e) {
+      log.error("Ledger shard {} failed to refresh account {}", shardId, accountNumber, e);
+    }
+  }
+
+  private Transaction newTransaction(TransactionType transactionType, Long amount, Account account) {
+    return Transaction.builder()
+        .transactionType(transactionType)
+        .transactionResultType(S)
+        .account(account)
+        .amount(amount)
+        .balanceSnapshot(account.getBalance())
+        .transactionId(transactionIdGenerator.nextId())
+        .transactedAt(LocalDateTime.now())
+        .build();
+  }
+
+  private void flush() {
+    if (pendingTransactions.isEmpty()) {
+      return;
+    }
+
+    try {
+      if (journal != null) {
+        appendToJournal();
+      } else {
+        ledgerPersister.persist(originalBalances.keySet(), pendingTransactions);
+      }
+      for (int i = 0; i < pendingTransactions.size(); i++) {
+        pendingResults.get(i).complete(TransactionDto.fromEntity(pendingTransactions.get(i)));
+      }
+    } catch (RuntimeException e) {
+      log.error("Ledger shard {} failed to persist {} transactions", shardId, pendingTransactions.size(), e);
+      if (journal != null) {
+        journal.abort();
+      }
+      originalBalances.forEach(Account::setBalance);
+      pendingResults.forEach(result -> result.completeExceptionally(e));
+    } finally {
+      originalBalances.clear();
+      pendingTransactions.clear();
+      pendingResults.clear();
+    }
+  }
+
+  private void appendToJournal() {
+    journal.begin(pendingTransactions.size());
+    long firstSequence = -1;
+    for (Transaction transaction : pendingTransactions) {
+      long sequence = journal.append(transaction);
+      if (firstSequence < 0) {
+        firstSequence = sequence;
+      }
+    }
+    journal.commit();
+
+    for (Transaction transaction : pendingTransactions) {
+      journaledTransactions.put(transaction.getTransactionId(), transaction);
+      lastJournaledSequences.put(transaction.getAccount().getAccountNumber(), firstSequence);
+      journaledOrder.add(new JournaledTransaction(firstSequence++, transaction.getTransactionId()));
+    }
+  }
+
+  // 이 계좌의 거래가 저널에만 있고 아직 DB 에 반영되지 않았는지 (AccountService 가 해지 전에 본다)
+  boolean hasUnprojected(String accountNumber) {
+    if (journal == null) {
+      return false;
+    }
+    Long lastSequence = lastJournaledSequences.get(accountNumber);
+    return lastSequence != null && lastSequence > journal.getProjectedSequence();
+  }
+
+  // projector 가 DB 에 반영한 거래는 이제 DB 에서 찾을 수 있으므로 놓아준다.
+  private void forgetProjected() {
+    long projectedSequence = journal.getProjectedSequence();
+    while (!journaledOrder.isEmpty() && journaledOrder.peek().sequence <= projectedSequence) {
+      JournaledTransaction projected = journaledOrder.poll();
+      Transaction transaction = journaledTransactions.remove(projected.transactionId);
+      lastJournaledSequences.remove(transaction.getAccount().getAccountNumber(), projected.sequence);
+    }
+  }
+
+  @AllArgsConstructor
+  private static class JournaledTransaction {
+    private final long sequence;
+    private final String transactionId;
+  }
+}
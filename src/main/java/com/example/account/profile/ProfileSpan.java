@@ -0,0 +1,66 @@
+package com.example.account.profile;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+요청 안의 구간 하나 (서비스 메소드, 리포지토리 호출, 락 대기, flush, commit ...)
+selfMs 는 자식 구간을 뺀 시간 >> 검증, 엔티티 변경처럼 따로 구간이 없는 코드에 쓴 시간이다.
+statements 는 이 구간에서 직접 실행된 SQL 수와 시간.
+한 요청의 구간은 한 스레드에서만 만들어지므로 동기화하지 않는다.
+*/
+@Getter
+public class ProfileSpan {
+  private final String name;
+  @JsonIgnore
+  private final long startNanos;
+  @JsonIgnore
+  private long durationNanos;
+  private final List<ProfileSpan> children = new ArrayList<>();
+  private int statements;
+  @JsonIgnore
+  private long statementNanos;
+
+  ProfileSpan(String name, long startNanos) {
+    this.name = name;
+    this.startNanos = startNanos;
+  }
+
+  ProfileSpan child(String name, long startNanos) {
+    ProfileSpan child = new ProfileSpan(name, startNanos);
+    children.add(child);
+    return child;
+  }
+
+  void end(long endNanos) {
+    this.durationNanos = endNanos - startNanos;
+  }
+
+  void addStatement(long nanos) {
+    statements++;
+    statementNanos += nanos;
+  }
+
+  public double getDurationMs() {
+    return toMs(durationNanos);
+  }
+
+  public double getSelfMs() {
+    long childNanos = 0;
+    for (ProfileSpan child : children) {
+      childNanos += child.durationNanos;
+    }
+    return toMs(durationNanos - childNanos);
+  }
+
+  public double getStatementMs() {
+    return toMs(statementNanos);
+  }
+
+  static double toMs(long nanos) {
+    return Math.round(nanos / 1_000.0) / 1_000.0;
+  }
+}
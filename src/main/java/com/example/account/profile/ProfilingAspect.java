@@ -0,0 +1,50 @@
+package com.example.account.profile;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/*
+서비스 메소드, 리포지토리 호출, 계좌 락 대기, 계좌 캐시 조회를 구간으로 남긴다.
+재시도/락/트랜잭션 애스펙트보다 바깥에 있어야 서비스 구간에 락 대기와 commit 이 들어간다.
+*/
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "account.profiler.enabled", havingValue = "true")
+public class ProfilingAspect {
+  private static final String REPOSITORY_PACKAGE = "com.example.account.repository.";
+
+  @Around("execution(public * com.example.account.service.TransactionService.*(..))"
+      + " || execution(public * com.example.account.service.AccountService.*(..))"
+      + " || execution(* com.example.account.service.LockService.lock(..))"
+      + " || execution(* com.example.account.service.AccountCache.get(..))"
+      + " || execution(* org.springframework.data.repository.Repository+.*(..))")
+  public Object aroundPhase(ProceedingJoinPoint pjp) throws Throwable {
+    if (!RequestProfiler.isActive()) {
+      return pjp.proceed();
+    }
+
+    RequestProfiler.enter(phaseName(pjp));
+    try {
+      return pjp.proceed();
+    } finally {
+      RequestProfiler.exit();
+    }
+  }
+
+  // 리포지토리는 상속받은 메소드(findById 등)도 실제 리포지토리 인터페이스 이름으로 남긴다.
+  private static String phaseName(ProceedingJoinPoint pjp) {
+    String methodName = pjp.getSignature().getName();
+    for (Class<?> type : pjp.getThis().getClass().getInterfaces()) {
+      if (type.getName().startsWith(REPOSITORY_PACKAGE)) {
+        return type.getSimpleName() + "." + methodName;
+      }
+    }
+    return pjp.getSignature().getDeclaringType().getSimpleName() + "." + methodName;
+  }
+}
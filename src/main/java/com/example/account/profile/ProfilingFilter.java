@@ -0,0 +1,39 @@
+package com.example.account.profile;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+// 요청마다 구간 트리의 루트를 열고, 끝나면 느린 요청 목록에 넣어본다.
+@Component
+@ConditionalOnProperty(name = "account.profiler.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ProfilingFilter extends OncePerRequestFilter {
+  private final SlowRequestRecorder slowRequestRecorder;
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return request.getRequestURI().startsWith("/actuator");
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                  FilterChain filterChain) throws ServletException, IOException {
+    RequestProfiler.start(request.getMethod() + " " + request.getRequestURI());
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      RequestProfile profile = RequestProfiler.finish();
+      if (profile != null) {
+        slowRequestRecorder.offer(profile);
+      }
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package com.example.account.profile;
+
+import org.hibernate.BaseSessionEventListener;
+
+/*
+Hibernate 세션 이벤트로 SQL 실행, flush, commit 구간을 남긴다.
+account.profiler.enabled=true 면 ProfilerConfig 가 hibernate.session.events.auto 로 등록해 세션마다 하나씩 만들어진다.
+
+commit 은 시작 이벤트가 없으므로, 마지막 SQL/flush 가 끝난 뒤부터 트랜잭션이 끝날 때까지로 잡는다.
+*/
+public class ProfilingSessionEventListener extends BaseSessionEventListener {
+  private long statementStart;
+  private long lastDatabaseWorkEnd;
+
+  @Override
+  public void jdbcExecuteStatementStart() {
+    statementStart = System.nanoTime();
+  }
+
+  @Override
+  public void jdbcExecuteStatementEnd() {
+    endStatement();
+  }
+
+  @Override
+  public void jdbcExecuteBatchStart() {
+    statementStart = System.nanoTime();
+  }
+
+  @Override
+  public void jdbcExecuteBatchEnd() {
+    endStatement();
+  }
+
+  @Override
+  public void flushStart() {
+    RequestProfiler.enter("flush");
+  }
+
+  @Override
+  public void flushEnd(int numberOfEntities, int numberOfCollections) {
+    RequestProfiler.exit();
+    lastDatabaseWorkEnd = System.nanoTime();
+  }
+
+  @Override
+  public void transactionCompletion(boolean successful) {
+    if (lastDatabaseWorkEnd > 0) {
+      RequestProfiler.record(successful ? "commit" : "rollback", lastDatabaseWorkEnd, System.nanoTime());
+    }
+  }
+
+  private void endStatement() {
+    long now = System.nanoTime();
+    RequestProfiler.addStatement(now - statementStart);
+    lastDatabaseWorkEnd = now;
+  }
+}
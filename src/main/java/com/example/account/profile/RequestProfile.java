@@ -0,0 +1,29 @@
+package com.example.account.profile;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/*
+끝난 요청 하나의 구간 트리
+*/
+@Getter
+public class RequestProfile {
+  private final String name;
+  private final String startedAt;
+  @JsonIgnore
+  private final long durationNanos;
+  private final ProfileSpan root;
+
+  RequestProfile(String name, LocalDateTime startedAt, ProfileSpan root) {
+    this.name = name;
+    this.startedAt = startedAt.toString();
+    this.durationNanos = root.getDurationNanos();
+    this.root = root;
+  }
+
+  public double getDurationMs() {
+    return ProfileSpan.toMs(durationNanos);
+  }
+}
@@ -0,0 +1,81 @@
+package com.example.account.profile;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/*
+요청별 구간 트리를 thread-local 에 쌓는다.
+start ~ finish 사이에 enter / exit 로 구간을 열고 닫으면 현재 구간의 자식으로 붙는다.
+
+start 하지 않은 스레드(프로파일러가 꺼져 있거나 요청 밖의 스레드)에서는
+모든 호출이 thread-local 조회 한번으로 끝난다.
+*/
+public final class RequestProfiler {
+  private static final ThreadLocal<ActiveProfile> CURRENT = new ThreadLocal<>();
+
+  private RequestProfiler() {
+  }
+
+  public static void start(String name) {
+    CURRENT.set(new ActiveProfile(name));
+  }
+
+  // 진행 중인 요청이 없으면 null
+  public static RequestProfile finish() {
+    ActiveProfile active = CURRENT.get();
+    if (active == null) {
+      return null;
+    }
+    CURRENT.remove();
+    active.root.end(System.nanoTime());
+    return new RequestProfile(active.name, active.startedAt, active.root);
+  }
+
+  public static boolean isActive() {
+    return CURRENT.get() != null;
+  }
+
+  public static void enter(String name) {
+    ActiveProfile active = CURRENT.get();
+    if (active != null) {
+      active.spans.push(active.spans.peek().child(name, System.nanoTime()));
+    }
+  }
+
+  public static void exit() {
+    ActiveProfile active = CURRENT.get();
+    // 루트는 finish 에서만 닫는다.
+    if (active != null && active.spans.size() > 1) {
+      active.spans.pop().end(System.nanoTime());
+    }
+  }
+
+  // 끝난 구간을 시작/끝 시각으로 붙인다. (시작 시점에 알 수 없는 구간 : commit 등)
+  public static void record(String name, long startNanos, long endNanos) {
+    ActiveProfile active = CURRENT.get();
+    if (active != null) {
+      active.spans.peek().child(name, startNanos).end(endNanos);
+    }
+  }
+
+  public static void addStatement(long nanos) {
+    ActiveProfile active = CURRENT.get();
+    if (active != null) {
+      active.spans.peek().addStatement(nanos);
+    }
+  }
+
+  private static class ActiveProfile {
+    private final String name;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final ProfileSpan root;
+    private final Deque<ProfileSpan> spans = new ArrayDeque<>();
+
+    private ActiveProfile(String name) {
+      this.name = name;
+      this.root = new ProfileSpan(name, System.nanoTime());
+      this.spans.push(root);
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package com.example.account.profile;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// GET /actuator/slowrequests : 느린 요청 N 개의 구간 트리, DELETE 로 비운다.
+@Component
+@Endpoint(id = "slowrequests")
+@RequiredArgsConstructor
+public class SlowRequestEndpoint {
+  private final SlowRequestRecorder slowRequestRecorder;
+
+  @ReadOperation
+  public List<RequestProfile> slowRequests() {
+    return slowRequestRecorder.snapshot();
+  }
+
+  @DeleteOperation
+  public void clear() {
+    slowRequestRecorder.clear();
+  }
+}
@@ -0,0 +1,68 @@
+package com.example.account.profile;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+가장 느린 요청 N 개를 들고 있는 고정 크기 배열 (락 없음)
+새 요청이 가장 빠른 슬롯보다 느리면 CAS 로 그 슬롯을 바꾼다.
+CAS 에 지면 다시 훑는다. (동시에 들어온 요청끼리는 순서가 약간 어긋날 수 있다)
+*/
+@Component
+public class SlowRequestRecorder {
+  private final AtomicReferenceArray<RequestProfile> slots;
+
+  public SlowRequestRecorder(@Value("${account.profiler.top-n}") int topN) {
+    this.slots = new AtomicReferenceArray<>(topN);
+  }
+
+  public void offer(RequestProfile profile) {
+    while (true) {
+      int fastestIndex = -1;
+      RequestProfile fastest = null;
+      for (int i = 0; i < slots.length(); i++) {
+        RequestProfile current = slots.get(i);
+        if (current == null) {
+          fastestIndex = i;
+          fastest = null;
+          break;
+        }
+        if (fastest == null || current.getDurationNanos() < fastest.getDurationNanos()) {
+          fastestIndex = i;
+          fastest = current;
+        }
+      }
+
+      if (fastest != null && profile.getDurationNanos() <= fastest.getDurationNanos()) {
+        return;
+      }
+      if (slots.compareAndSet(fastestIndex, fastest, profile)) {
+        return;
+      }
+    }
+  }
+
+  // 느린 순서
+  public List<RequestProfile> snapshot() {
+    List<RequestProfile> profiles = new ArrayList<>(slots.length());
+    for (int i = 0; i < slots.length(); i++) {
+      RequestProfile profile = slots.get(i);
+      if (profile != null) {
+        profiles.add(profile);
+      }
+    }
+    profiles.sort(Comparator.comparingLong(RequestProfile::getDurationNanos).reversed());
+    return profiles;
+  }
+
+  public void clear() {
+    for (int i = 0; i < slots.length(); i++) {
+      slots.set(i, null);
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package com.example.account.repository;
+
+import com.example.account.domain.AccountDailySummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface AccountDailySummaryRepository
+    extends JpaRepository<AccountDailySummary, AccountDailySummary.Key> {
+
+  List<AccountDailySummary> findByAccountIdAndSummaryDateBetweenOrderBySummaryDate(
+      Long accountId, LocalDate from, LocalDate to);
+
+  /*
+  요약 행 하나에 거래 count 건, amount 원을 더한다. (없으면 만든다)
+  select 후 update/insert 대신 MERGE 한번으로 끝낸다.
+  closingBalance 는 더 늦은 거래일 때만 바꾼다. (실패 거래는 나중에 모아서 기록되기 때문)
+  */
+  @Modifying
+  @Query(value = "merge into account_daily_summary s using (select 1) "
+      + "on s.account_id = :accountId and s.summary_date = :summaryDate "
+      + "and s.transaction_type = :transactionType "
+      + "and s.transaction_result_type = :transactionResultType "
+      + "when matched then update set "
+      + "transaction_count = s.transaction_count + :count, "
+      + "amount_sum = s.amount_sum + :amount, "
+      + "closing_balance = case when s.last_transacted_at > :transactedAt "
+      + "then s.closing_balance else :closingBalance end, "
+      + "last_transacted_at = greatest(s.last_transacted_at, :transactedAt) "
+      + "when not matched then insert (account_id, summary_date, transaction_type, "
+      + "transaction_result_type, transaction_count, amount_sum, closing_balance, last_transacted_at) "
+      + "values (:accountId, :summaryDate, :transactionType, :transactionResultType, "
+      + ":count, :amount, :closingBalance, :transactedAt)",
+      nativeQuery = true)
+  int add(@Param("accountId") Long accountId,
+          @Param("summaryDate") LocalDate summaryDate,
+          @Param("transactionType") String transactionType,
+          @Param("transactionResultType") String transactionResultType,
+          @Param("count") long count,
+          @Param("amount") long amount,
+          @Param("closingBalance") Long closingBalance,
+          @Param("transactedAt") LocalDateTime transactedAt);
+}
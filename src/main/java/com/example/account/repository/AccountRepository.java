@@ -2,9 +2,16 @@ package com.example.account.repository;
 
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,9 +19,46 @@ import java.util.Optional;
 public interface AccountRepository extends JpaRepository<Account, Long> {
   Optional<Account> findFirstByOrderByIdDesc();
 
-  Integer countByAccountUser(AccountUser accountUser);
-
   Optional<Account> findByAccountNumber(String AccountNumber);
 
+  // 계좌번호는 모두 10자리라서 문자열 최댓값이 가장 큰 번호다. (uk_account_account_number 인덱스 끝에서 읽는다)
+  @Query("select max(a.accountNumber) from Account a")
+  Optional<String> findMaxAccountNumber();
+
+  // 소유자까지 한번에 읽는다. (응답으로 엔티티를 그대로 내보내거나, 트랜잭션 밖에서 소유자를 볼 때)
+  @EntityGraph("Account.withAccountUser")
+  Optional<Account> findWithAccountUserById(Long id);
+
+  @EntityGraph("Account.withAccountUser")
+  Optional<Account> findWithAccountUserByAccountNumber(String accountNumber);
+
   List<Account> findByAccountUser(AccountUser accountUser);
+
+  /*
+  account.lock.strategy=pessimistic 일 때 쓰는 SELECT ... FOR UPDATE 조회
+  account.lock.pessimistic-timeout-ms 안에 row 락을 못 잡으면 PessimisticLockingFailureException 이 난다.
+  (H2 는 한번 더 시도하므로 최대 두 배 가까이 기다린다. PessimisticLockTimeoutTest)
+  Hibernate 의 H2 dialect 는 javax.persistence.lock.timeout 힌트를 무시하므로,
+  대기 시간은 DataSourceRoutingConfig 가 커넥션마다 DB 세션에 건다.
+  */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select a from Account a where a.accountNumber = :accountNumber")
+  Optional<Account> findForUpdateByAccountNumber(@Param("accountNumber") String accountNumber);
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select a from Account a where a.id = :id")
+  Optional<Account> findForUpdateById(@Param("id") Long id);
+
+  // 여러 계좌를 잠글 때는 항상 계좌번호 순서로 잠가서 데드락을 피한다.
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select a from Account a where a.accountNumber in :accountNumbers order by a.accountNumber")
+  List<Account> findForUpdateByAccountNumberIn(@Param("accountNumbers") Collection<String> accountNumbers);
+
+  List<Account> findByAccountNumberIn(Collection<String> accountNumbers);
+
+  // 그 사이 해지된 계좌면 0 건 (LedgerPersister 가 보고 배치를 되돌리거나, 저널 반영이면 잔액을 건너뛴다)
+  @Modifying
+  @Query("update Account a set a.balance = :balance, a.version = a.version + 1"
+      + " where a.id = :id and a.accountStatus = com.example.account.type.AccountStatus.IN_USE")
+  int updateBalanceIfInUse(@Param("id") Long id, @Param("balance") long balance);
 }
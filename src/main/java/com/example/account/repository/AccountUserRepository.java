@@ -2,9 +2,36 @@ package com.example.account.repository;
 
 import com.example.account.domain.AccountUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface AccountUserRepository extends JpaRepository<AccountUser, Long> {
 
+  // 계좌 수가 max 보다 적을 때만 하나 늘린다. 0 이면 사용자가 없거나 이미 max 개다.
+  @Modifying
+  @Query("update AccountUser u set u.accountCount = u.accountCount + 1"
+      + " where u.id = :id and u.accountCount < :max")
+  int incrementAccountCount(@Param("id") Long id, @Param("max") int max);
+
+  @Modifying
+  @Query("update AccountUser u set u.accountCount = u.accountCount - 1"
+      + " where u.id = :id and u.accountCount > 0")
+  int decrementAccountCount(@Param("id") Long id);
+
+  /*
+  모든 사용자의 계좌 수를 account 테이블에서 다시 세서, 다른 행만 고친다. (고친 행 수를 돌려준다)
+  update 한번으로 끝나지만 account 를 전부 읽으므로 AccountCountRepairJob 에서 가끔만 돌린다.
+  */
+  @Transactional
+  @Modifying
+  @Query(value = "update account_user u set account_count = ("
+      + "select count(*) from account a where a.account_user_id = u.id and a.account_status = 'IN_USE') "
+      + "where account_count <> ("
+      + "select count(*) from account a where a.account_user_id = u.id and a.account_status = 'IN_USE')",
+      nativeQuery = true)
+  int recountAccountCounts();
 }
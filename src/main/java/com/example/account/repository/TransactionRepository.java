@@ -1,11 +1,74 @@
 package com.example.account.repository;
 
 import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionHistoryDto;
+import com.example.account.type.TransactionType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.*;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
+  // 취소할 때는 원 거래의 계좌가 항상 필요하므로 join 으로 같이 읽는다.
+  @EntityGraph("Transaction.withAccount")
   Optional<Transaction> findByTransactionId(String transactionId);
+
+  @EntityGraph("Transaction.withAccount")
+  List<Transaction> findByTransactionIdIn(Collection<String> transactionIds);
+
+  // 거래 내역 첫 페이지 (최신순). (account_id, transacted_at, id) 인덱스를 그대로 탄다.
+  @Query("select new com.example.account.dto.TransactionHistoryDto$Item("
+      + "t.id, t.transactionId, t.transactionType, t.transactionResultType, "
+      + "t.amount, t.balanceSnapshot, t.transactedAt) "
+      + "from Transaction t "
+      + "where t.account.id = :accountId "
+      + "order by t.transactedAt desc, t.id desc")
+  List<TransactionHistoryDto.Item> findHistory(@Param("accountId") Long accountId, Pageable pageable);
+
+  // 커서 다음 페이지. OFFSET 없이 커서 위치부터 인덱스를 읽으므로 몇번째 페이지든 비용이 같다.
+  @Query("select new com.example.account.dto.TransactionHistoryDto$Item("
+      + "t.id, t.transactionId, t.transactionType, t.transactionResultType, "
+      + "t.amount, t.balanceSnapshot, t.transactedAt) "
+      + "from Transaction t "
+      + "where t.account.id = :accountId "
+      + "and (t.transactedAt < :transactedAt "
+      + "or (t.transactedAt = :transactedAt and t.id < :id)) "
+      + "order by t.transactedAt desc, t.id desc")
+  List<TransactionHistoryDto.Item> findHistoryAfter(@Param("accountId") Long accountId,
+                                                    @Param("transactedAt") LocalDateTime transactedAt,
+                                                    @Param("id") Long id,
+                                                    Pageable pageable);
+
+  /*
+  거래 내역 export 용 스트림 (트랜잭션 안에서 다 읽고 닫아야 한다)
+  fetch size 만큼씩 커서로 읽어오고, 계좌는 join fetch 로 같이 읽어 행마다 추가 조회가 없다.
+  (계좌의 소유자는 읽지 않는다. 응답에 계좌번호만 쓴다)
+  기간 조건과 정렬 모두 (transactedAt, id) 인덱스를 타도록 거래 시각, id 순서로 읽는다.
+  거래 종류 조건은 인덱스로 읽은 행에서 거른다.
+  */
+  @QueryHints({
+      @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+      @QueryHint(name = HINT_READONLY, value = "true"),
+      @QueryHint(name = HINT_CACHEABLE, value = "false")
+  })
+  @Query("select t from Transaction t "
+      + "join fetch t.account "
+      + "where t.transactedAt >= :from and t.transactedAt < :to "
+      + "and (:transactionType is null or t.transactionType = :transactionType) "
+      + "order by t.transactedAt, t.id")
+  Stream<Transaction> streamForExport(@Param("from") LocalDateTime from,
+                                      @Param("to") LocalDateTime to,
+                                      @Param("transactionType") TransactionType transactionType);
 }
@@ -0,0 +1,149 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.type.AccountStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.redisson.api.LocalCachedMapOptions;
+import org.redisson.api.RLocalCachedMap;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/*
+계좌번호 >> 계좌 메타데이터(id, 소유자 id, 상태) near-cache
+1차 : JVM 마다 있는 LRU 로컬 캐시 (RLocalCachedMap 의 로컬 캐시)
+2차 : Redis 에 있는 공유 맵
+항목이 바뀌거나 지워지면 Redisson 이 다른 노드의 로컬 캐시도 무효화한다.
+
+잔액은 캐시하지 않는다. 캐시가 DB 조회를 줄이는 곳은 두 가지다.
+1. id 만 필요한 조회 (거래 내역, 일별 요약) 는 계좌를 읽지 않는다.
+2. 소유자는 바뀌지 않고 해지는 되돌릴 수 없으므로, 소유자가 다르거나 해지된 계좌로 온 요청은
+   계좌를 읽지 않고 거절한다. 사용 중(IN_USE)이라는 캐시 값은 늦을 수 있으므로 통과시킨 요청은
+   트랜잭션 안에서 계좌를 다시 읽어 한번 더 검증한다.
+해지하면 evict 하므로 다음 조회에서 해지 상태가 다시 캐시된다.
+
+계좌를 따로 들고 있는 곳(LedgerEngine)은 addEvictionListener 로 등록해두면
+evict 가 불릴 때 (트랜잭션 안이면 커밋된 뒤에) 계좌번호를 받는다.
+*/
+@Component
+public class AccountCache {
+  // 값 형식이 바뀌면 이름도 바꾼다. (예전 노드가 남긴 항목을 읽지 않도록)
+  static final String CACHE_NAME = "account-meta-by-number";
+
+  private final RLocalCachedMap<String, CachedAccount> cache;
+  private final int localCacheSize;
+
+  private final Counter localHitCounter;
+  private final Counter remoteHitCounter;
+  private final Counter missCounter;
+  private final Counter evictionCounter;
+
+  private final List<Consumer<String>> evictionListeners = new CopyOnWriteArrayList<>();
+
+  public AccountCache(RedissonClient redissonClient,
+                      MeterRegistry meterRegistry,
+                      @Value("${account.cache.local-size}") int localCacheSize,
+                      @Value("${account.cache.local-ttl-ms}") long localTtlMs) {
+    this.cache = redissonClient.getLocalCachedMap(CACHE_NAME,
+        LocalCachedMapOptions.<String, CachedAccount>defaults()
+            .cacheSize(localCacheSize)
+            .evictionPolicy(LocalCachedMapOptions.EvictionPolicy.LRU)
+            .timeToLive(localTtlMs, TimeUnit.MILLISECONDS)
+            .syncStrategy(LocalCachedMapOptions.SyncStrategy.INVALIDATE)
+            .reconnectionStrategy(LocalCachedMapOptions.ReconnectionStrategy.CLEAR));
+    this.localCacheSize = localCacheSize;
+
+    this.localHitCounter = meterRegistry.counter("account.cache.requests", "result", "local_hit");
+    this.remoteHitCounter = meterRegistry.counter("account.cache.requests", "result", "remote_hit");
+    this.missCounter = meterRegistry.counter("account.cache.requests", "result", "miss");
+    this.evictionCounter = meterRegistry.counter("account.cache.local.evictions");
+    Gauge.builder("account.cache.local.size", cache, c -> c.getCachedMap().size())
+        .register(meterRegistry);
+  }
+
+  public Optional<CachedAccount> get(String accountNumber) {
+    boolean local = cache.getCachedMap().containsKey(accountNumber);
+    CachedAccount cachedAccount = cache.get(accountNumber);
+    if (cachedAccount == null) {
+      missCounter.increment();
+      return Optional.empty();
+    }
+
+    if (local) {
+      localHitCounter.increment();
+    } else {
+      // Redis 에서 읽은 항목은 로컬에 채워지고, 로컬이 꽉 차 있으면 LRU 로 하나가 밀려난다.
+      countEviction();
+      remoteHitCounter.increment();
+    }
+    return Optional.of(cachedAccount);
+  }
+
+  public void put(Account account) {
+    countEviction();
+    cache.fastPut(account.getAccountNumber(), CachedAccount.from(account));
+  }
+
+  // 다른 노드의 로컬 캐시까지 무효화된다.
+  public void evict(String accountNumber) {
+    cache.fastRemove(accountNumber);
+    if (evictionListeners.isEmpty()) {
+      return;
+    }
+    // 리스너가 DB 를 다시 읽을 때 바뀐 상태가 보이도록 커밋된 뒤에 알린다.
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          notifyEviction(accountNumber);
+        }
+      });
+    } else {
+      notifyEviction(accountNumber);
+    }
+  }
+
+  public void addEvictionListener(Consumer<String> listener) {
+    evictionListeners.add(listener);
+  }
+
+  private void notifyEviction(String accountNumber) {
+    evictionListeners.forEach(listener -> listener.accept(accountNumber));
+  }
+
+  private void countEviction() {
+    if (cache.getCachedMap().size() >= localCacheSize) {
+      evictionCounter.increment();
+    }
+  }
+
+  @Getter
+  @AllArgsConstructor
+  @ToString
+  public static class CachedAccount implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+    private final Long accountUserId;
+    private final AccountStatus accountStatus;
+
+    static CachedAccount from(Account account) {
+      return new CachedAccount(account.getId(),
+          account.getAccountUser().getId(), account.getAccountStatus());
+    }
+  }
+}
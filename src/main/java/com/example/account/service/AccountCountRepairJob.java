@@ -0,0 +1,67 @@
+package com.example.account.service;
+
+import com.example.account.repository.AccountUserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+사용자별 계좌 수(AccountUser.accountCount) 보정
+계좌 수는 생성/해지 때 조건부 UPDATE 로만 바뀌므로, 그 밖의 경로(직접 넣은 데이터, 컬럼 추가 전의 기존 계좌)로
+어긋날 수 있다. repair-interval-ms 마다 account 테이블에서 전부 다시 세고 다른 행만 고친다.
+update 한 문장이라 노드 여러 대에서 같이 돌아도 결과는 같다.
+*/
+@Slf4j
+@Component
+public class AccountCountRepairJob {
+  private final AccountUserRepository accountUserRepository;
+  private final long intervalMs;
+
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "account-count-repair");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public AccountCountRepairJob(AccountUserRepository accountUserRepository,
+                               @Value("${account.account-count.repair-interval-ms}") long intervalMs) {
+    this.accountUserRepository = accountUserRepository;
+    this.intervalMs = intervalMs;
+  }
+
+  // 0 이면 돌리지 않는다. (repair() 를 직접 부를 수는 있다)
+  @PostConstruct
+  public void start() {
+    if (intervalMs > 0) {
+      scheduler.scheduleWithFixedDelay(this::repairQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @PreDestroy
+  public void stop() {
+    scheduler.shutdownNow();
+  }
+
+  // 고친 사용자 수
+  public int repair() {
+    int repaired = accountUserRepository.recountAccountCounts();
+    if (repaired > 0) {
+      log.warn("Repaired account count of {} users", repaired);
+    }
+    return repaired;
+  }
+
+  private void repairQuietly() {
+    try {
+      repair();
+    } catch (Exception e) {
+      log.error("Account count repair failed", e);
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountDailySummary;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountDailySummaryDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountDailySummaryRepository;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/*
+계좌별 일별 거래 요약
+1. 거래를 저장하는 쪽(TransactionService, LedgerPersister)이 같은 트랜잭션 안에서 record 를 부른다.
+   거래가 롤백되면 요약도 같이 롤백된다.
+2. 기간 조회는 요약 테이블만 읽으므로 거래 건수가 아니라 일수에 비례한다.
+*/
+@Service
+@RequiredArgsConstructor
+public class AccountDailySummaryService {
+  static final int MAX_SUMMARY_DAYS = 366;
+
+  private final AccountDailySummaryRepository accountDailySummaryRepository;
+  private final AccountRepository accountRepository;
+  private final AccountCache accountCache;
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void record(Transaction transaction) {
+    accountDailySummaryRepository.add(
+        transaction.getAccount().getId(),
+        transaction.getTransactedAt().toLocalDate(),
+        transaction.getTransactionType().name(),
+        transaction.getTransactionResultType().name(),
+        1,
+        transaction.getAmount(),
+        transaction.getBalanceSnapshot(),
+        transaction.getTransactedAt());
+  }
+
+  // 여러 거래는 요약 행 단위로 먼저 합쳐서 행마다 MERGE 한번만 한다.
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void record(Collection<Transaction> transactions) {
+    Map<AccountDailySummary.Key, Delta> deltas = new LinkedHashMap<>();
+    for (Transaction transaction : transactions) {
+      AccountDailySummary.Key key = new AccountDailySummary.Key(
+          transaction.getAccount().getId(),
+          transaction.getTransactedAt().toLocalDate(),
+          transaction.getTransactionType(),
+          transaction.getTransactionResultType());
+      deltas.computeIfAbsent(key, ignored -> new Delta()).add(transaction);
+    }
+
+    deltas.forEach((key, delta) -> accountDailySummaryRepository.add(
+        key.getAccountId(),
+        key.getSummaryDate(),
+        key.getTransactionType().name(),
+        key.getTransactionResultType().name(),
+        delta.count,
+        delta.amount,
+        delta.closingBalance,
+        delta.lastTransactedAt));
+  }
+
+  // [from, to] 구간 (양 끝 포함)
+  @Transactional(readOnly = true)
+  public AccountDailySummaryDto.Response getDailySummaries(String accountNumber, LocalDate from, LocalDate to) {
+    if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= MAX_SUMMARY_DAYS) {
+      throw new AccountException(ErrorCode.INVALID_DATE_RANGE);
+    }
+    Long accountId = findAccountId(accountNumber);
+
+    Map<LocalDate, List<AccountDailySummary>> byDate = accountDailySummaryRepository
+        .findByAccountIdAndSummaryDateBetweenOrderBySummaryDate(accountId, from, to)
+        .stream()
+        .collect(Collectors.groupingBy(AccountDailySummary::getSummaryDate,
+            TreeMap::new, Collectors.toList()));
+
+    List<AccountDailySummaryDto.Day> days = new ArrayList<>(byDate.size());
+    byDate.forEach((date, summaries) -> days.add(AccountDailySummaryDto.Day.builder()
+        .date(date)
+        .closingBalance(summaries.stream()
+            .max(Comparator.comparing(AccountDailySummary::getLastTransactedAt))
+            .map(AccountDailySummary::getClosingBalance)
+            .orElse(null))
+        .items(summaries.stream()
+            .map(AccountDailySummaryDto.Item::from)
+            .collect(Collectors.toList()))
+        .build()));
+
+    return AccountDailySummaryDto.Response.builder()
+        .accountNumber(accountNumber)
+        .from(from)
+        .to(to)
+        .days(days)
+        .build();
+  }
+
+  private Long findAccountId(String accountNumber) {
+    return accountCache.get(accountNumber)
+        .map(AccountCache.CachedAccount::getId)
+        .orElseGet(() -> accountRepository.findByAccountNumber(accountNumber)
+            .map(account -> {
+              accountCache.put(account);
+              return account;
+            })
+            .map(Account::getId)
+            .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND)));
+  }
+
+  private static class Delta {
+    private long count;
+    private long amount;
+    private Long closingBalance;
+    private LocalDateTime lastTransactedAt;
+
+    private void add(Transaction transaction) {
+      count++;
+      amount += transaction.getAmount();
+      if (lastTransactedAt == null || !transaction.getTransactedAt().isBefore(lastTransactedAt)) {
+        lastTransactedAt = transaction.getTransactedAt();
+        closingBalance = transaction.getBalanceSnapshot();
+      }
+    }
+  }
+}
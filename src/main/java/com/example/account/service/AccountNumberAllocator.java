@@ -0,0 +1,119 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.example.account.type.ErrorCode.ACCOUNT_NUMBER_EXHAUSTED;
+
+/*
+계좌번호 발급기
+Redis 의 RAtomicLong 에서 blockSize 만큼 구간을 빌려오고,
+구간 안에서는 메모리의 AtomicLong 으로만 번호를 나눠준다.
+노드마다 다른 구간을 빌리므로 여러 노드에서 동시에 만들어도 번호가 겹치지 않는다.
+*/
+@Slf4j
+@Component
+public class AccountNumberAllocator {
+  static final String SEQUENCE_KEY = "account-number-sequence";
+  static final long FIRST_ACCOUNT_NUMBER = 1_000_000_000L;
+  static final long LAST_ACCOUNT_NUMBER = 9_999_999_999L;
+
+  private final RedissonClient redissonClient;
+  private final AccountRepository accountRepository;
+  private final int blockSize;
+
+  private final ReentrantLock leaseLock = new ReentrantLock();
+  private volatile Block block = new Block(1, 0);
+
+  public AccountNumberAllocator(RedissonClient redissonClient,
+                                AccountRepository accountRepository,
+                                @Value("${account.account-number.block-size}") int blockSize) {
+    this.redissonClient = redissonClient;
+    this.accountRepository = accountRepository;
+    this.blockSize = blockSize;
+  }
+
+  public String nextAccountNumber() {
+    while (true) {
+      Block current = block;
+      long accountNumber = current.next.getAndIncrement();
+      if (accountNumber <= current.last) {
+        return String.valueOf(accountNumber);
+      }
+      renewBlock(current);
+    }
+  }
+
+  /*
+  일괄 발급 : count 개의 연속된 번호를 Redis 에서 한번에 빌려오고 첫 번호를 돌려준다.
+  노드가 들고 있는 구간과는 별개라서 단건 발급 흐름에 영향을 주지 않는다.
+  */
+  public long allocateRange(int count) {
+    return leaseRange(count) - count + 1;
+  }
+
+  // 구간을 다 쓴 스레드 중 하나만 Redis 에서 새 구간을 빌려온다.
+  private void renewBlock(Block exhausted) {
+    leaseLock.lock();
+    try {
+      if (block == exhausted) {
+        block = leaseBlock(blockSize);
+      }
+    } finally {
+      leaseLock.unlock();
+    }
+  }
+
+  private Block leaseBlock(int size) {
+    long last = leaseRange(size);
+    return new Block(last - size + 1, last);
+  }
+
+  // 빌려온 구간의 마지막 번호
+  private long leaseRange(int size) {
+    RAtomicLong sequence = redissonClient.getAtomicLong(SEQUENCE_KEY);
+    if (sequence.get() == 0) {
+      initSequence(sequence);
+    }
+
+    long last = sequence.addAndGet(size);
+    if (last > LAST_ACCOUNT_NUMBER) {
+      throw new AccountException(ACCOUNT_NUMBER_EXHAUSTED);
+    }
+    log.debug("Leased account numbers {} ~ {}", last - size + 1, last);
+    return last;
+  }
+
+  /*
+  Redis 에 시퀀스가 없으면 (최초 기동, Redis 초기화) DB 의 가장 큰 계좌번호부터 이어간다.
+  노드마다 다른 구간에서 발급하고 일괄 발급도 따로 구간을 빌리므로,
+  가장 최근에 만든 계좌(id 가 가장 큰 행)의 번호가 가장 큰 번호라는 보장이 없다.
+  */
+  private void initSequence(RAtomicLong sequence) {
+    long lastAccountNumber = accountRepository.findMaxAccountNumber()
+        .map(Long::parseLong)
+        .orElse(FIRST_ACCOUNT_NUMBER - 1);
+
+    if (sequence.compareAndSet(0, lastAccountNumber)) {
+      log.info("Account number sequence initialized from {}", lastAccountNumber);
+    }
+  }
+
+  private static class Block {
+    private final AtomicLong next;
+    private final long last;
+
+    private Block(long first, long last) {
+      this.next = new AtomicLong(first);
+      this.last = last;
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.CreateAccountBatchDto;
+import com.example.account.dto.CreateAccountDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountUserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.example.account.type.AccountStatus.IN_USE;
+import static com.example.account.type.ErrorCode.MAX_ACCOUNT_PER_USER_10;
+import static com.example.account.type.ErrorCode.USER_NOT_FOUND;
+
+/*
+일괄 계좌 생성 (제휴사 고객 이관 등)
+건마다 사용자 조회 / 계좌 수 조회 / 계좌번호 발급 / insert 를 하는 대신
+1. 사용자를 IN 조회 한번으로 읽고
+2. 읽어온 사용자의 계좌 수(accountCount)로 10개 제한을 본다. (같은 요청 안의 건도 합산)
+3. 사용자별 계좌 수를 조건부 UPDATE 로 늘린다. 사용자마다 한 문장이라 JDBC batch 로 보낸다. (사용자 id 순서)
+   그 사이 다른 생성 요청이 끼어들어 제한을 넘게 되면 그 사용자의 건은 모두 실패로 돌린다.
+4. 성공할 건 수만큼 연속된 계좌번호를 한번에 빌려오고
+5. JDBC batch insert (hibernate.jdbc.batch_size) 로 저장한다.
+실패한 건은 건너뛰고 건별 결과에 사유를 남긴다.
+영속성 컨텍스트에 엔티티가 쌓이지 않도록 CLEAR_INTERVAL 건마다 flush 하고 비운다.
+*/
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AccountProvisioningService {
+  static final int CLEAR_INTERVAL = 1000;
+  static final String INCREMENT_ACCOUNT_COUNT_SQL = "update account_user set account_count = account_count + ?"
+      + " where id = ? and account_count + ? <= ?";
+
+  private final AccountUserRepository accountUserRepository;
+  private final AccountNumberAllocator accountNumberAllocator;
+  private final JdbcTemplate jdbcTemplate;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Transactional
+  public List<CreateAccountBatchDto.Item> createAccounts(List<CreateAccountDto.Request> items) {
+    Set<Long> userIds = items.stream()
+        .map(CreateAccountDto.Request::getUserId)
+        .collect(Collectors.toSet());
+
+    Map<Long, AccountUser> accountUsers = accountUserRepository.findAllById(userIds).stream()
+        .collect(Collectors.toMap(AccountUser::getId, Function.identity()));
+
+    // 검증을 먼저 끝내서 사용자별로 몇 개를 늘릴지, 모두 몇 개의 계좌번호가 필요한지 알아야 한다.
+    AccountException[] failures = new AccountException[items.size()];
+    // 사용자 id 순서로 update 해서, 사용자가 겹치는 일괄 요청끼리 서로 반대 순서로 행 락을 잡지 않게 한다. (데드락)
+    Map<Long, Integer> accepted = new TreeMap<>();
+    for (int i = 0; i < items.size(); i++) {
+      long userId = items.get(i).getUserId();
+      AccountUser accountUser = accountUsers.get(userId);
+      if (accountUser == null) {
+        failures[i] = new AccountException(USER_NOT_FOUND);
+      } else if (accountUser.getAccountCount() + accepted.getOrDefault(userId, 0)
+          >= AccountService.MAX_ACCOUNT_PER_USER) {
+        failures[i] = new AccountException(MAX_ACCOUNT_PER_USER_10);
+      } else {
+        accepted.merge(userId, 1, Integer::sum);
+      }
+    }
+
+    Set<Long> raced = incrementAccountCounts(accepted);
+    int accountCount = 0;
+    for (int i = 0; i < items.size(); i++) {
+      if (failures[i] == null && raced.contains(items.get(i).getUserId())) {
+        failures[i] = new AccountException(MAX_ACCOUNT_PER_USER_10);
+      } else if (failures[i] == null) {
+        accountCount++;
+      }
+    }
+
+    long nextAccountNumber = accountCount > 0 ? accountNumberAllocator.allocateRange(accountCount) : 0;
+    LocalDateTime registeredAt = LocalDateTime.now();
+
+    List<CreateAccountBatchDto.Item> results = new ArrayList<>(items.size());
+    int saved = 0;
+    for (int i = 0; i < items.size(); i++) {
+      CreateAccountDto.Request item = items.get(i);
+      if (failures[i] != null) {
+        results.add(CreateAccountBatchDto.Item.fail(item.getUserId(), failures[i]));
+        continue;
+      }
+
+      Account account = Account.builder()
+          .accountUser(accountUsers.get(item.getUserId()))
+          .accountStatus(IN_USE)
+          .accountNumber(String.valueOf(nextAccountNumber++))
+          .balance(item.getInitialBalance())
+          .registeredAt(registeredAt)
+          .build();
+      entityManager.persist(account);
+      results.add(CreateAccountBatchDto.Item.success(AccountDto.fromEntity(account)));
+
+      if (++saved % CLEAR_INTERVAL == 0) {
+        entityManager.flush();
+        entityManager.clear();
+      }
+    }
+
+    log.info("Provisioned {} accounts ({} failed)", accountCount, items.size() - accountCount);
+    return results;
+  }
+
+  // 조건부 UPDATE 가 0 건인(그 사이 계좌 수가 바뀐) 사용자를 돌려준다.
+  private Set<Long> incrementAccountCounts(Map<Long, Integer> accepted) {
+    if (accepted.isEmpty()) {
+      return Collections.emptySet();
+    }
+
+    List<Object[]> rows = new ArrayList<>(accepted.size());
+    for (Map.Entry<Long, Integer> entry : accepted.entrySet()) {
+      rows.add(new Object[]{entry.getValue(), entry.getKey(), entry.getValue(),
+          AccountService.MAX_ACCOUNT_PER_USER});
+    }
+    int[] updated = jdbcTemplate.batchUpdate(INCREMENT_ACCOUNT_COUNT_SQL, rows);
+
+    Set<Long> raced = new HashSet<>();
+    int i = 0;
+    for (Long userId : accepted.keySet()) {
+      if (updated[i++] == 0) {
+        raced.add(userId);
+      }
+    }
+    return raced;
+  }
+}
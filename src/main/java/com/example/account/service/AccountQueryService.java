@@ -0,0 +1,108 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountDto;
+import com.example.account.exception.AccountException;
+import com.example.account.type.AccountStatus;
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.example.account.type.ErrorCode.USER_NOT_FOUND;
+
+/*
+계좌 조회 전용 reactive 경로 (R2DBC)
+JPA 와 같은 H2 데이터베이스를 R2DBC 로 읽는다.
+r2dbc-h2 는 쿼리를 구독한 스레드에서 동기로 실행하므로, 요청 스레드가 아니라 전용 스케줄러(accountQueryScheduler)에서 구독한다.
+쓰기(계좌 생성/해지, 잔액 사용/취소)는 그대로 JPA 서비스를 탄다.
+
+응답 모양은 JPA 경로(AccountService)와 같게 맞춘다.
+*/
+@Service
+@RequiredArgsConstructor
+public class AccountQueryService {
+  private static final String ACCOUNTS_BY_USER_SQL =
+      "select u.id as user_id, a.account_number, a.balance, a.registered_at, a.un_registered_at"
+          + " from account_user u left join account a on a.account_user_id = u.id"
+          + " where u.id = :userId order by a.id";
+
+  private static final String ACCOUNT_BY_ID_SQL =
+      "select a.id, a.account_number, a.account_status, a.balance, a.version,"
+          + " a.registered_at, a.un_registered_at, a.created_at, a.updated_at,"
+          + " u.id as user_id, u.name as user_name, u.create_at as user_create_at,"
+          + " u.update_at as user_update_at, u.registered_at as user_registered_at,"
+          + " u.un_registered_at as user_un_registered_at"
+          + " from account a join account_user u on u.id = a.account_user_id"
+          + " where a.id = :id";
+
+  private final DatabaseClient databaseClient;
+  private final Scheduler accountQueryScheduler;
+
+  // 사용자와 계좌를 한번에 읽는다. 사용자가 없으면 행이 없고, 계좌가 없으면 계좌 컬럼이 null 이다.
+  public Mono<List<AccountDto>> getAccountsByUserId(Long userId) {
+    return databaseClient.sql(ACCOUNTS_BY_USER_SQL)
+        .bind("userId", userId)
+        .map(AccountQueryService::toAccountDto)
+        .all()
+        .collectList()
+        .flatMap(rows -> rows.isEmpty()
+            ? Mono.error(new AccountException(USER_NOT_FOUND))
+            : Mono.just(rows.stream()
+                .filter(row -> row.getAccountNumber() != null)
+                .collect(Collectors.toList())))
+        .subscribeOn(accountQueryScheduler);
+  }
+
+  public Mono<Account> getAccount(Long id) {
+    if (id < 0) {
+      return Mono.error(new RuntimeException("Minus"));
+    }
+    return databaseClient.sql(ACCOUNT_BY_ID_SQL)
+        .bind("id", id)
+        .map(AccountQueryService::toAccount)
+        .one()
+        .switchIfEmpty(Mono.error(() -> new AccountException(USER_NOT_FOUND)))
+        .subscribeOn(accountQueryScheduler);
+  }
+
+  private static AccountDto toAccountDto(Row row) {
+    return AccountDto.builder()
+        .userId(row.get("user_id", Long.class))
+        .accountNumber(row.get("account_number", String.class))
+        .balance(row.get("balance", Long.class))
+        .registeredAt(row.get("registered_at", LocalDateTime.class))
+        .build();
+  }
+
+  private static Account toAccount(Row row) {
+    AccountUser accountUser = AccountUser.builder()
+        .id(row.get("user_id", Long.class))
+        .name(row.get("user_name", String.class))
+        .createAt(row.get("user_create_at", LocalDateTime.class))
+        .updateAt(row.get("user_update_at", LocalDateTime.class))
+        .registeredAt(row.get("user_registered_at", LocalDateTime.class))
+        .unRegisteredAt(row.get("user_un_registered_at", LocalDateTime.class))
+        .build();
+
+    return Account.builder()
+        .id(row.get("id", Long.class))
+        .accountUser(accountUser)
+        .accountNumber(row.get("account_number", String.class))
+        .accountStatus(AccountStatus.valueOf(row.get("account_status", String.class)))
+        .balance(row.get("balance", Long.class))
+        .version(row.get("version", Long.class))
+        .registeredAt(row.get("registered_at", LocalDateTime.class))
+        .unRegisteredAt(row.get("un_registered_at", LocalDateTime.class))
+        .createdAt(row.get("created_at", LocalDateTime.class))
+        .updatedAt(row.get("updated_at", LocalDateTime.class))
+        .build();
+  }
+}
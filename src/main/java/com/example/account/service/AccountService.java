@@ -3,19 +3,21 @@ package com.example.account.service;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.dto.AccountDto;
+import com.example.account.engine.LedgerEngine;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-
-import javax.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static com.example.account.type.AccountStatus.IN_USE;
@@ -23,28 +25,36 @@ import static com.example.account.type.AccountStatus.UNREGISTERED;
 import static com.example.account.type.ErrorCode.*;
 
 @Service
+@Timed("account.service")
 @RequiredArgsConstructor // final >> 사용가능하게 해줌
 public class AccountService {
 
+  static final int MAX_ACCOUNT_PER_USER = 10;
+
   private final AccountRepository accountRepository;
   private final AccountUserRepository accountUserRepository;
+  private final AccountNumberAllocator accountNumberAllocator;
+  private final AccountCache accountCache;
+  // account.engine.enabled=true 일 때만 존재
+  private final Optional<LedgerEngine> ledgerEngine;
 
   /*
-   사용자가 있는지 조회
+   사용자의 계좌 수를 조건부로 하나 늘리고 (계좌 10개 제한을 한 행 update 로 확인)
     계좌 번호를 생성하고
     계좌를 저장하고, 그 정보를 넘긴다.
+   동시에 들어온 생성 요청은 같은 사용자 행의 update 에서 줄을 서므로 10개를 넘을 수 없다.
   */
   @Transactional
   public AccountDto createAccount(Long userId, Long initialBalance) {
-    AccountUser accountUser = accountUserRepository.findById(userId)
-        .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
-    // 람다식 메서드 따로 구체적으로 해야하지만, 지금 모르니까 1회용 함수를 만들어 둔 거임
-
-    validateCreateAccount(accountUser);
+    if (accountUserRepository.incrementAccountCount(userId, MAX_ACCOUNT_PER_USER) == 0) {
+      // 실패한 경우에만 이유를 가리려고 한번 더 읽는다.
+      throw new AccountException(accountUserRepository.existsById(userId)
+          ? MAX_ACCOUNT_PER_USER_10 : USER_NOT_FOUND);
+    }
+    // 소유자는 FK 로만 쓰므로 읽지 않는다.
+    AccountUser accountUser = accountUserRepository.getReferenceById(userId);
 
-    String newAccountNumber = accountRepository.findFirstByOrderByIdDesc()
-        .map(account -> (Integer.parseInt(account.getAccountNumber())) + 1 + "")
-        .orElse("1000000000");
+    String newAccountNumber = accountNumberAllocator.nextAccountNumber();
 
     return AccountDto.fromEntity(
         accountRepository.save(Account.builder()
@@ -58,18 +68,14 @@ public class AccountService {
 
   }
 
-  private void validateCreateAccount(AccountUser accountUser) {
-    if (accountRepository.countByAccountUser(accountUser) >= 10) {
-      throw new AccountException(MAX_ACCOUNT_PER_USER_10);
-    }
-  }
-
-  @Transactional
+  // read-only 트랜잭션은 replica 로 간다. (ReadWriteRoutingDataSource)
+  @Transactional(readOnly = true)
   public Account getAccount(Long id) {
     if (id < 0) {
       throw new RuntimeException("Minus");
     }
-    return accountRepository.findById(id)
+    // 엔티티를 그대로 응답으로 내보내므로 소유자까지 읽어둔다.
+    return accountRepository.findWithAccountUserById(id)
         .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
   }
 
@@ -77,27 +83,48 @@ public class AccountService {
   public AccountDto deleteAccount(long userId, String accountNumber) {
     AccountUser accountUser = accountUserRepository.findById(userId)
         .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
-    Account account = accountRepository.findByAccountNumber(accountNumber)
+    // 캐시의 소유자/상태만으로 거절할 수 있으면 계좌를 읽지 않는다.
+    Optional<AccountCache.CachedAccount> cachedAccount = accountCache.get(accountNumber);
+    cachedAccount.ifPresent(cached ->
+        validateOwnerAndStatus(accountUser, cached.getAccountUserId(), cached.getAccountStatus()));
+    Account account = findAccount(accountNumber, cachedAccount)
         .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
 
     validateDeleteAccount(accountUser, account);
+    // 엔진 저널 모드에서는 반영되지 않은 거래만큼 DB 잔액이 늦으므로, 그동안은 해지하지 않는다.
+    if (ledgerEngine.isPresent() && ledgerEngine.get().hasUnprojectedTransactions(accountNumber)) {
+      throw new AccountException(ACCOUNT_TRANSACTION_PENDING);
+    }
 
     account.setAccountStatus(UNREGISTERED);
     account.setUnRegisteredAt(LocalDateTime.now());
 
     accountRepository.save(account);
+    accountUserRepository.decrementAccountCount(accountUser.getId());
+    // 해지된 계좌는 모든 노드의 캐시에서 지우고, 계좌를 들고 있는 샤드에도 알린다.
+    accountCache.evict(accountNumber);
 
     return AccountDto.fromEntity(account);
   }
 
-  private void validateDeleteAccount(AccountUser accountUser, Account account) {
-    if (!Objects.equals(accountUser.getId(), account.getAccountUser().getId())) {
-      throw new AccountException(USER_ACCOUNT_UNMATCHED);
+  // 캐시에 있으면 id 로 읽고, 없으면 계좌번호로 읽어서 캐시에 넣는다.
+  private Optional<Account> findAccount(String accountNumber,
+                                        Optional<AccountCache.CachedAccount> cachedAccount) {
+    Optional<Account> account = cachedAccount
+        .map(AccountCache.CachedAccount::getId)
+        .flatMap(accountRepository::findById);
+    if (account.isPresent()) {
+      return account;
     }
+    return accountRepository.findByAccountNumber(accountNumber)
+        .map(found -> {
+          accountCache.put(found);
+          return found;
+        });
+  }
 
-    if (UNREGISTERED == account.getAccountStatus()) {
-      throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
-    }
+  private void validateDeleteAccount(AccountUser accountUser, Account account) {
+    validateOwnerAndStatus(accountUser, account.getAccountUser().getId(), account.getAccountStatus());
 
     if (account.getBalance() > 0) {
       throw new AccountException(BALANCE_NOT_EMPTY);
@@ -105,7 +132,18 @@ public class AccountService {
 
   }
 
-  @Transactional
+  private static void validateOwnerAndStatus(AccountUser accountUser, Long accountUserId,
+                                             AccountStatus accountStatus) {
+    if (!Objects.equals(accountUser.getId(), accountUserId)) {
+      throw new AccountException(USER_ACCOUNT_UNMATCHED);
+    }
+
+    if (UNREGISTERED == accountStatus) {
+      throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
+    }
+  }
+
+  @Transactional(readOnly = true)
   public List<AccountDto> getAccountsByUserId(Long userId) {
     AccountUser accountUser = accountUserRepository.findById(userId)
         .orElseThrow(()->new AccountException(USER_NOT_FOUND));
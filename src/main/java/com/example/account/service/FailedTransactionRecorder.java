@@ -0,0 +1,202 @@
+package com.example.account.service;
+
+import com.example.account.dto.FailedTransactionDto;
+import com.example.account.type.TransactionType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/*
+실패 거래 write-behind 기록기
+요청 스레드는 대기열에 넣기만 하고, 백그라운드 스레드가 batchSize 만큼 모아서 한 트랜잭션으로 기록한다.
+실패가 몰릴 때 요청마다 조회 + insert 를 한번 더 하지 않도록 하기 위함.
+
+대기열이 가득 차면 요청 스레드에서 바로 기록한다.
+배치 기록이 실패하면 건별로 나눠 다시 기록하고 (한 건 때문에 배치 전체를 잃지 않도록),
+그래도 실패한 건은 대기열 뒤로 되돌려 backoff 후 다시 시도한다.
+되돌릴 자리도 없을 때(장애가 길어져 대기열이 가득 참)와 종료할 때까지 기록하지 못한 건만
+내용을 error 로그로 남기고 버린다.
+종료할 때는 지금 쓰고 있는 배치를 마저 쓰게 한 뒤, 대기열에 남은 건을 모두 기록하고 내려간다.
+
+balanceSnapshot 은 실패 시점이 아니라 기록 시점의 잔액이다. (보통 flush-interval-ms 이내의 차이)
+실패 시점 잔액을 남기려면 요청마다 계좌를 한번 더 읽어야 해서 그렇게 하지 않는다.
+*/
+@Slf4j
+@Component
+public class FailedTransactionRecorder {
+  private final TransactionService transactionService;
+  private final BlockingQueue<FailedTransactionDto> queue;
+  private final int batchSize;
+  private final long flushIntervalMs;
+  private final long maxBackoffMs;
+
+  private final Counter writtenCounter;
+  private final Counter fallbackCounter;
+  private final Counter errorCounter;
+  private final Counter requeuedCounter;
+  private final Counter lostCounter;
+
+  private volatile boolean running;
+  private Thread writer;
+
+  public FailedTransactionRecorder(TransactionService transactionService,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${account.failed-transaction.queue-capacity}") int queueCapacity,
+                                   @Value("${account.failed-transaction.batch-size}") int batchSize,
+                                   @Value("${account.failed-transaction.flush-interval-ms}") long flushIntervalMs,
+                                   @Value("${account.failed-transaction.max-backoff-ms}") long maxBackoffMs) {
+    this.transactionService = transactionService;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.batchSize = batchSize;
+    this.flushIntervalMs = flushIntervalMs;
+    this.maxBackoffMs = maxBackoffMs;
+
+    Gauge.builder("account.failed_transaction.queue.depth", queue, BlockingQueue::size)
+        .description("Failed transactions waiting to be written")
+        .register(meterRegistry);
+    this.writtenCounter = meterRegistry.counter("account.failed_transaction.written");
+    this.fallbackCounter = meterRegistry.counter("account.failed_transaction.sync_fallback");
+    this.errorCounter = meterRegistry.counter("account.failed_transaction.write_error");
+    this.requeuedCounter = meterRegistry.counter("account.failed_transaction.requeued");
+    this.lostCounter = meterRegistry.counter("account.failed_transaction.lost");
+  }
+
+  @PostConstruct
+  public void start() {
+    running = true;
+    writer = new Thread(this::writeLoop, "failed-transaction-writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    // JDBC 쓰기 도중에 끊지 않도록 interrupt 하지 않고, 지금 배치를 마저 쓰고 나오기를 기다린다.
+    running = false;
+    writer.join(TimeUnit.SECONDS.toMillis(10) + maxBackoffMs);
+
+    // 쓰는 스레드가 멈춘 뒤 남은 건을 모두 기록한다. 여기서도 실패한 건은 더 되돌릴 곳이 없다.
+    List<FailedTransactionDto> remaining = new ArrayList<>();
+    while (queue.drainTo(remaining, batchSize) > 0) {
+      discard(write(remaining));
+      remaining.clear();
+    }
+  }
+
+  public void recordUse(String accountNumber, Long amount) {
+    record(TransactionType.USE, accountNumber, amount);
+  }
+
+  public void recordCancel(String accountNumber, Long amount) {
+    record(TransactionType.CANSLE, accountNumber, amount);
+  }
+
+  private void record(TransactionType transactionType, String accountNumber, Long amount) {
+    FailedTransactionDto failedTransaction = FailedTransactionDto.builder()
+        .transactionType(transactionType)
+        .accountNumber(accountNumber)
+        .amount(amount)
+        .failedAt(LocalDateTime.now())
+        .build();
+
+    if (!queue.offer(failedTransaction)) {
+      fallbackCounter.increment();
+      discard(write(Collections.singletonList(failedTransaction)));
+    }
+  }
+
+  private void writeLoop() {
+    long backoffMs = flushIntervalMs;
+    while (running) {
+      try {
+        FailedTransactionDto first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        List<FailedTransactionDto> batch = new ArrayList<>(batchSize);
+        batch.add(first);
+        queue.drainTo(batch, batchSize - 1);
+        if (requeue(write(batch))) {
+          // DB 가 계속 실패하는 동안은 점점 간격을 늘려가며 다시 시도한다.
+          Thread.sleep(backoffMs);
+          backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+        } else {
+          backoffMs = flushIntervalMs;
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  // 대기열에서 최대 batchSize 건을 꺼내 기록하고, 꺼낸 건수를 돌려준다. 실패한 건은 대기열로 되돌린다.
+  int flush() {
+    List<FailedTransactionDto> batch = new ArrayList<>(batchSize);
+    queue.drainTo(batch, batchSize);
+    if (!batch.isEmpty()) {
+      requeue(write(batch));
+    }
+    return batch.size();
+  }
+
+  // 기록하지 못한 건을 돌려준다.
+  private List<FailedTransactionDto> write(List<FailedTransactionDto> batch) {
+    try {
+      transactionService.saveFailedTransactions(batch);
+      writtenCounter.increment(batch.size());
+      return Collections.emptyList();
+    } catch (RuntimeException e) {
+      errorCounter.increment();
+      log.error("Failed to write {} failed transactions", batch.size(), e);
+    }
+    if (batch.size() == 1) {
+      return batch;
+    }
+
+    // 문제가 되는 건만 남도록 건별로 다시 기록한다.
+    List<FailedTransactionDto> failed = new ArrayList<>();
+    for (FailedTransactionDto failedTransaction : batch) {
+      try {
+        transactionService.saveFailedTransactions(Collections.singletonList(failedTransaction));
+        writtenCounter.increment();
+      } catch (RuntimeException e) {
+        failed.add(failedTransaction);
+      }
+    }
+    return failed;
+  }
+
+  // 되돌린 건이 있으면 true
+  private boolean requeue(List<FailedTransactionDto> failed) {
+    for (FailedTransactionDto failedTransaction : failed) {
+      if (queue.offer(failedTransaction)) {
+        requeuedCounter.increment();
+      } else {
+        discard(Collections.singletonList(failedTransaction));
+      }
+    }
+    return !failed.isEmpty();
+  }
+
+  // 더 이상 되돌릴 곳이 없는 건은 나중에 손으로 넣을 수 있도록 내용을 남긴다.
+  private void discard(List<FailedTransactionDto> failed) {
+    for (FailedTransactionDto failedTransaction : failed) {
+      lostCounter.increment();
+      log.error("Lost failed transaction : {}", failedTransaction);
+    }
+  }
+}
@@ -0,0 +1,157 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static com.example.account.type.ErrorCode.*;
+
+/*
+Idempotency-Key 처리기
+성공한 응답을 키별로 Redis 에 ttl 동안 보관하고, 같은 키로 다시 들어온 요청에는
+서비스를 타지 않고 (DB 접근 없이) 보관한 응답을 그대로 돌려준다.
+
+같은 키로 동시에 들어온 요청은 키 락을 잡은 요청 하나만 실행되고,
+나머지는 락을 기다렸다가 그 결과를 돌려받는다.
+같은 키에 다른 요청 본문이 오면 IDEMPOTENCY_KEY_REUSED.
+
+실패한 요청은 보관하지 않는다. (재시도하면 다시 실행된다)
+*/
+@Slf4j
+@Component
+public class IdempotencyService {
+  public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+  static final String KEY_PREFIX = "IDEM:";
+  static final int MAX_KEY_LENGTH = 64;
+
+  private final RedissonClient redissonClient;
+  private final ObjectMapper objectMapper;
+  private final long ttlMs;
+  private final long waitTimeMs;
+
+  private final Counter replayedCounter;
+  private final Counter executedCounter;
+
+  public IdempotencyService(RedissonClient redissonClient,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${account.idempotency.ttl-ms}") long ttlMs,
+                            @Value("${account.idempotency.wait-time-ms}") long waitTimeMs) {
+    this.redissonClient = redissonClient;
+    this.objectMapper = objectMapper;
+    this.ttlMs = ttlMs;
+    this.waitTimeMs = waitTimeMs;
+
+    this.replayedCounter = meterRegistry.counter("account.idempotency.requests", "result", "replayed");
+    this.executedCounter = meterRegistry.counter("account.idempotency.requests", "result", "executed");
+  }
+
+  public <T> T execute(String scope, String idempotencyKey, Object request,
+                       Class<T> responseType, Supplier<T> action) {
+    validateKey(idempotencyKey);
+    String key = KEY_PREFIX + scope + ":" + idempotencyKey;
+    String fingerprint = toJson(request);
+    RBucket<String> bucket = redissonClient.getBucket(key, StringCodec.INSTANCE);
+
+    T stored = replay(bucket, fingerprint, responseType);
+    if (stored != null) {
+      return stored;
+    }
+
+    // lease 시간 없이 잡아서 처리 중에는 watchdog 이 락을 연장한다.
+    RLock lock = redissonClient.getLock(key + ":lock");
+    acquire(lock, idempotencyKey);
+    try {
+      // 기다리는 동안 먼저 들어온 요청이 끝났을 수 있다.
+      stored = replay(bucket, fingerprint, responseType);
+      if (stored != null) {
+        return stored;
+      }
+
+      T response = action.get();
+      bucket.set(toJson(new StoredResponse(fingerprint, toJson(response))),
+          ttlMs, TimeUnit.MILLISECONDS);
+      executedCounter.increment();
+      return response;
+    } finally {
+      if (lock.isHeldByCurrentThread()) {
+        lock.unlock();
+      }
+    }
+  }
+
+  private <T> T replay(RBucket<String> bucket, String fingerprint, Class<T> responseType) {
+    String json = bucket.get();
+    if (json == null) {
+      return null;
+    }
+
+    StoredResponse storedResponse = fromJson(json, StoredResponse.class);
+    if (!fingerprint.equals(storedResponse.getFingerprint())) {
+      throw new AccountException(IDEMPOTENCY_KEY_REUSED);
+    }
+    replayedCounter.increment();
+    return fromJson(storedResponse.getResponse(), responseType);
+  }
+
+  private void acquire(RLock lock, String idempotencyKey) {
+    boolean isLock;
+    try {
+      isLock = lock.tryLock(waitTimeMs, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AccountException(IDEMPOTENCY_REQUEST_IN_PROGRESS);
+    }
+
+    if (!isLock) {
+      log.warn("Idempotent request still in progress : {}", idempotencyKey);
+      throw new AccountException(IDEMPOTENCY_REQUEST_IN_PROGRESS);
+    }
+  }
+
+  private static void validateKey(String idempotencyKey) {
+    if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+      throw new AccountException(INVALID_ID_REQUEST);
+    }
+  }
+
+  private String toJson(Object value) {
+    try {
+      return objectMapper.writeValueAsString(value);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Failed to serialize idempotent response", e);
+    }
+  }
+
+  private <T> T fromJson(String json, Class<T> type) {
+    try {
+      return objectMapper.readValue(json, type);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Failed to read idempotent response", e);
+    }
+  }
+
+  // 요청 본문(fingerprint)과 응답을 함께 보관한다.
+  @Getter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  static class StoredResponse {
+    private String fingerprint;
+    private String response;
+  }
+}
@@ -0,0 +1,91 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.account.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+
+/*
+계좌 락 (Redisson)
+락 대기 시간은 account.lock.wait (result = acquired / timeout / interrupted),
+락을 잡고 있던 시간은 account.lock.hold 타이머로 남긴다.
+*/
+@Slf4j
+@Service
+public class LockService {
+  private final RedissonClient redissonClient;
+  private final MeterRegistry meterRegistry;
+  private final Timer holdTimer;
+
+  // 락을 잡은 시각 (unlock 에서 hold 시간을 잰다)
+  private final Map<RLock, Long> lockedAt = new ConcurrentHashMap<>();
+
+  public LockService(RedissonClient redissonClient, MeterRegistry meterRegistry) {
+    this.redissonClient = redissonClient;
+    this.meterRegistry = meterRegistry;
+    this.holdTimer = Timer.builder("account.lock.hold")
+        .description("Time an account lock was held")
+        .register(meterRegistry);
+  }
+
+  public RLock lock(String accountNumber, long waitTimeMs, long leaseTimeMs) {
+    RLock lock = redissonClient.getLock(getLockKey(accountNumber));
+    log.debug("Trying lock for accountNumber : {}", accountNumber);
+
+    long start = System.nanoTime();
+    boolean isLock;
+    try {
+      isLock = lock.tryLock(waitTimeMs, leaseTimeMs, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      recordWait("interrupted", start);
+      throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+    }
+
+    if (!isLock) {
+      recordWait("timeout", start);
+      log.error("=========Lock acquisition failed : {}======", accountNumber);
+      throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+    }
+    lockedAt.put(lock, recordWait("acquired", start));
+    return lock;
+  }
+
+  public void unlock(RLock lock, String accountNumber) {
+    log.debug("Unlock for accountNumber : {}", accountNumber);
+    Long acquiredAt = lockedAt.remove(lock);
+    if (acquiredAt != null) {
+      holdTimer.record(System.nanoTime() - acquiredAt, TimeUnit.NANOSECONDS);
+    }
+    try {
+      lock.unlock();
+    } catch (IllegalMonitorStateException e) {
+      // lease 시간이 지나서 이미 풀린 락 >> 다른 노드가 같은 계좌를 건드렸을 수 있다.
+      log.error("Lock lease expired before unlock : {}", accountNumber);
+    }
+  }
+
+  // 대기 시간을 기록하고 기록한 시각을 돌려준다.
+  private long recordWait(String result, long start) {
+    long now = System.nanoTime();
+    Timer.builder("account.lock.wait")
+        .description("Time spent waiting for an account lock")
+        .tag("result", result)
+        .register(meterRegistry)
+        .record(now - start, TimeUnit.NANOSECONDS);
+    return now;
+  }
+
+  private static String getLockKey(String accountNumber) {
+    return "ACLK:" + accountNumber;
+  }
+}
@@ -0,0 +1,90 @@
+package com.example.account.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/*
+Snowflake 방식 거래 id
+64bit = 시각(ms, 41bit) | 노드(10bit) | 순번(12bit) >> 16자리 hex
+시각이 앞에 있으므로 id 가 시간 순으로 증가해서 transactionId 인덱스 끝에만 쌓인다.
+
+노드 id 는 account.transaction-id.node-id 로 주거나, -1 이면 기동할 때 Redis 카운터에서 받는다.
+(1024 번 재기동하면 한바퀴 돈다. 그 사이에 살아있는 노드와 겹치지 않는 한 문제 없다)
+
+시각과 순번은 AtomicLong 하나에 (시각 << 12 | 순번) 으로 들고 CAS 로만 올린다.
+1ms 에 4096 개를 넘기거나 시계가 뒤로 가면 순번의 올림이 시각으로 넘어가서 다음 ms 를 빌려 쓴다.
+그래서 한 노드 안에서는 항상 단조 증가한다.
+*/
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.transaction-id.generator", havingValue = "snowflake", matchIfMissing = true)
+public class SnowflakeTransactionIdGenerator implements TransactionIdGenerator {
+  static final String NODE_SEQUENCE_KEY = "transaction-id-node-sequence";
+  // 2023-01-01T00:00:00Z
+  static final long EPOCH_MS = 1_672_531_200_000L;
+  static final int NODE_BITS = 10;
+  static final int SEQUENCE_BITS = 12;
+  static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+  private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final long nodeId;
+  private final LongSupplier clock;
+  private final AtomicLong state = new AtomicLong();
+
+  @Autowired
+  public SnowflakeTransactionIdGenerator(RedissonClient redissonClient,
+                                         @Value("${account.transaction-id.node-id}") long nodeId) {
+    this(nodeId < 0 ? leaseNodeId(redissonClient) : nodeId, System::currentTimeMillis);
+  }
+
+  SnowflakeTransactionIdGenerator(long nodeId, LongSupplier clock) {
+    if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+      throw new IllegalArgumentException("Transaction id node id must be 0 ~ " + MAX_NODE_ID);
+    }
+    this.nodeId = nodeId;
+    this.clock = clock;
+    log.info("Transaction id node id : {}", nodeId);
+  }
+
+  private static long leaseNodeId(RedissonClient redissonClient) {
+    return Math.floorMod(
+        redissonClient.getAtomicLong(NODE_SEQUENCE_KEY).getAndIncrement(), MAX_NODE_ID + 1);
+  }
+
+  @Override
+  public String nextId() {
+    return toHex(nextLong());
+  }
+
+  long nextLong() {
+    long now = (clock.getAsLong() - EPOCH_MS) << SEQUENCE_BITS;
+    long previous;
+    long next;
+    do {
+      previous = state.get();
+      next = Math.max(now, previous + 1);
+    } while (!state.compareAndSet(previous, next));
+
+    long timestamp = next >>> SEQUENCE_BITS;
+    return timestamp << (NODE_BITS + SEQUENCE_BITS)
+        | nodeId << SEQUENCE_BITS
+        | next & SEQUENCE_MASK;
+  }
+
+  private static String toHex(long value) {
+    char[] chars = new char[16];
+    for (int i = 15; i >= 0; i--) {
+      chars[i] = HEX[(int) (value & 0xF)];
+      value >>>= 4;
+    }
+    return new String(chars);
+  }
+}
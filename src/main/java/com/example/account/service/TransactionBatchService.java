@@ -0,0 +1,141 @@
+package com.example.account.service;
+
+import com.example.account.dto.CancelBalanceDto;
+import com.example.account.dto.TransactionBatchResultDto;
+import com.example.account.dto.UseBalanceDto;
+import com.example.account.engine.LedgerEngine;
+import com.example.account.engine.LedgerResult;
+import com.example.account.exception.AccountException;
+import com.example.account.type.LockStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.example.account.type.TransactionType.CANSLE;
+import static com.example.account.type.TransactionType.USE;
+
+/*
+일괄 잔액 사용/취소
+1. 요청에 포함된 계좌들의 락을 계좌번호 순서대로 잡는다. (두 일괄 요청이 서로의 락을 기다리는 데드락 방지)
+   account.lock.strategy=redis 일 때만 Redis 락을 잡는다. pessimistic 이면 TransactionService 가 row 락을 같은 순서로 잡는다.
+2. TransactionService 의 일괄 메소드로 한 트랜잭션 안에서 처리한다.
+엔진 모드에서는 모든 건을 엔진에 먼저 넣고 결과를 모아서 기다린다. (엔진 샤드가 알아서 묶어서 기록한다)
+기다리다 포기한 건은 실패 거래로 기록하지 않는다. (LedgerEngine.isTimeout)
+*/
+@Slf4j
+@Service
+public class TransactionBatchService {
+  private final TransactionService transactionService;
+  private final LockService lockService;
+  private final FailedTransactionRecorder failedTransactionRecorder;
+  private final Optional<LedgerEngine> ledgerEngine;
+
+  @Value("${account.lock.wait-time-ms}")
+  private long waitTimeMs;
+
+  @Value("${account.lock.lease-time-ms}")
+  private long leaseTimeMs;
+
+  @Value("${account.lock.strategy}")
+  private LockStrategy lockStrategy;
+
+  public TransactionBatchService(TransactionService transactionService,
+                                 LockService lockService,
+                                 FailedTransactionRecorder failedTransactionRecorder,
+                                 Optional<LedgerEngine> ledgerEngine) {
+    this.transactionService = transactionService;
+    this.lockService = lockService;
+    this.failedTransactionRecorder = failedTransactionRecorder;
+    this.ledgerEngine = ledgerEngine;
+  }
+
+  public List<TransactionBatchResultDto> useBalance(List<UseBalanceDto.Request> items) {
+    if (ledgerEngine.isPresent()) {
+      List<LedgerResult> results = new ArrayList<>(items.size());
+      for (UseBalanceDto.Request item : items) {
+        results.add(ledgerEngine.get().submit(USE, item.getUserId(), null,
+            item.getAccountNumber(), item.getAmount()));
+      }
+
+      List<TransactionBatchResultDto> batchResults = new ArrayList<>(items.size());
+      for (int i = 0; i < items.size(); i++) {
+        UseBalanceDto.Request item = items.get(i);
+        batchResults.add(awaitResult(results.get(i), item.getAccountNumber(), item.getAmount(),
+            () -> failedTransactionRecorder.recordUse(item.getAccountNumber(), item.getAmount())));
+      }
+      return batchResults;
+    }
+
+    return withLocks(accountNumbersOf(items, UseBalanceDto.Request::getAccountNumber),
+        () -> transactionService.useBalanceBatch(items));
+  }
+
+  public List<TransactionBatchResultDto> cancelBalance(List<CancelBalanceDto.Request> items) {
+    if (ledgerEngine.isPresent()) {
+      List<LedgerResult> results = new ArrayList<>(items.size());
+      for (CancelBalanceDto.Request item : items) {
+        results.add(ledgerEngine.get().submit(CANSLE, null, item.getTransactionId(),
+            item.getAccountNumber(), item.getAmount()));
+      }
+
+      List<TransactionBatchResultDto> batchResults = new ArrayList<>(items.size());
+      for (int i = 0; i < items.size(); i++) {
+        CancelBalanceDto.Request item = items.get(i);
+        batchResults.add(awaitResult(results.get(i), item.getAccountNumber(), item.getAmount(),
+            () -> failedTransactionRecorder.recordCancel(item.getAccountNumber(), item.getAmount())));
+      }
+      return batchResults;
+    }
+
+    return withLocks(accountNumbersOf(items, CancelBalanceDto.Request::getAccountNumber),
+        () -> transactionService.cancelBalanceBatch(items));
+  }
+
+  private TransactionBatchResultDto awaitResult(LedgerResult result,
+                                                String accountNumber, Long amount,
+                                                Runnable recordFailure) {
+    try {
+      return TransactionBatchResultDto.success(ledgerEngine.get().await(result));
+    } catch (AccountException e) {
+      if (!LedgerEngine.isTimeout(e)) {
+        recordFailure.run();
+      }
+      return TransactionBatchResultDto.fail(accountNumber, amount, e);
+    }
+  }
+
+  private <T> SortedSet<String> accountNumbersOf(List<T> items,
+                                                 Function<T, String> accountNumber) {
+    SortedSet<String> accountNumbers = new TreeSet<>();
+    for (T item : items) {
+      accountNumbers.add(accountNumber.apply(item));
+    }
+    return accountNumbers;
+  }
+
+  private List<TransactionBatchResultDto> withLocks(SortedSet<String> accountNumbers,
+                                                    Supplier<List<TransactionBatchResultDto>> batch) {
+    if (lockStrategy != LockStrategy.REDIS) {
+      return batch.get();
+    }
+
+    Deque<RLock> locks = new ArrayDeque<>();
+    Deque<String> lockedAccountNumbers = new ArrayDeque<>();
+    try {
+      for (String accountNumber : accountNumbers) {
+        locks.push(lockService.lock(accountNumber, waitTimeMs, leaseTimeMs));
+        lockedAccountNumbers.push(accountNumber);
+      }
+      return batch.get();
+    } finally {
+      while (!locks.isEmpty()) {
+        lockService.unlock(locks.pop(), lockedAccountNumbers.pop());
+      }
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package com.example.account.service;
+
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDto;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.ExportFormat;
+import com.example.account.type.TransactionType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/*
+거래 내역 export (정산 대사용)
+DB 커서로 읽으면서 한 줄씩 바로 응답에 쓴다. 몇 건이든 메모리에는 fetch size 만큼만 올라온다.
+영속성 컨텍스트에 엔티티가 쌓이지 않도록 CLEAR_INTERVAL 건마다 비운다.
+*/
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionExportService {
+  static final int CLEAR_INTERVAL = 1000;
+  static final String CSV_HEADER =
+      "transactionId,accountNumber,transactionType,transactionResult,amount,balanceSnapshot,transactedAt";
+
+  private final TransactionRepository transactionRepository;
+  private final ObjectMapper objectMapper;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Transactional(readOnly = true)
+  public long export(LocalDateTime from, LocalDateTime to, TransactionType transactionType,
+                     ExportFormat format, OutputStream outputStream) throws IOException {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    if (format == ExportFormat.CSV) {
+      writer.write(CSV_HEADER);
+      writer.write('\n');
+    }
+
+    long count = 0;
+    try (Stream<Transaction> transactions = transactionRepository.streamForExport(from, to, transactionType)) {
+      Iterator<Transaction> iterator = transactions.iterator();
+      while (iterator.hasNext()) {
+        TransactionDto transaction = TransactionDto.fromEntity(iterator.next());
+        if (format == ExportFormat.CSV) {
+          writeCsv(writer, transaction);
+        } else {
+          writer.write(objectMapper.writeValueAsString(transaction));
+        }
+        writer.write('\n');
+
+        if (++count % CLEAR_INTERVAL == 0) {
+          entityManager.clear();
+          writer.flush();
+        }
+      }
+    }
+    writer.flush();
+
+    log.info("Exported {} transactions ({} ~ {}, {})", count, from, to, transactionType);
+    return count;
+  }
+
+  private static void writeCsv(Writer writer, TransactionDto transaction) throws IOException {
+    writer.write(transaction.getTransactionId());
+    writer.write(',');
+    writer.write(transaction.getAccountNumber());
+    writer.write(',');
+    writer.write(transaction.getTransactionType().name());
+    writer.write(',');
+    writer.write(transaction.getTransactionResultType().name());
+    writer.write(',');
+    writer.write(String.valueOf(transaction.getAmount()));
+    writer.write(',');
+    writer.write(String.valueOf(transaction.getBalanceSnapshot()));
+    writer.write(',');
+    writer.write(String.valueOf(transaction.getTransactedAt()));
+  }
+}
@@ -0,0 +1,11 @@
+package com.example.account.service;
+
+/*
+거래 id 발급기 (account.transaction-id.generator 로 구현을 고른다)
+snowflake (기본) : 시간 순서로 정렬되는 16자리 hex
+uuid : 예전 방식 (UUID 32자리 hex)
+id 는 32자를 넘지 않고, 여러 노드에서 동시에 발급해도 겹치지 않아야 한다.
+*/
+public interface TransactionIdGenerator {
+  String nextId();
+}
@@ -1,43 +1,71 @@
 package com.example.account.service;
 
+import com.example.account.aop.AccountLock;
+import com.example.account.aop.OptimisticRetry;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
+import com.example.account.dto.CancelBalanceDto;
+import com.example.account.dto.FailedTransactionDto;
+import com.example.account.dto.TransactionBatchResultDto;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistoryDto;
+import com.example.account.dto.UseBalanceDto;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
 import com.example.account.repository.TransactionRepository;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.LockStrategy;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-
-import javax.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
-import java.util.Objects;
-import java.util.UUID;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static com.example.account.type.TransactionResultType.*;
 import static com.example.account.type.TransactionType.*;
 
 @Slf4j
 @Service
+@Timed("account.service")
 @RequiredArgsConstructor
 public class TransactionService {
+  static final int MAX_HISTORY_LIMIT = 100;
+
   private final TransactionRepository transactionRepository;
   private final AccountUserRepository accountUserRepository;
   private final AccountRepository accountRepository;
+  private final AccountCache accountCache;
+  private final TransactionIdGenerator transactionIdGenerator;
+  private final AccountDailySummaryService accountDailySummaryService;
 
+  @Value("${account.lock.strategy}")
+  private LockStrategy lockStrategy;
+
+  @OptimisticRetry
+  @AccountLock
   @Transactional
   public TransactionDto useBalance(Long userid, String accountNumber, Long amount) {
     AccountUser user = accountUserRepository.findById(userid)
         .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
 
-    Account account = accountRepository.findByAccountNumber(accountNumber)
+    // 캐시의 소유자/상태만으로 거절할 수 있으면 계좌를 읽지 않는다. (락도 잡지 않는다)
+    Optional<AccountCache.CachedAccount> cachedAccount = accountCache.get(accountNumber);
+    cachedAccount.ifPresent(cached ->
+        validateOwnerAndStatus(user, cached.getAccountUserId(), cached.getAccountStatus()));
+
+    Account account = findAccount(accountNumber, cachedAccount, isRowLock())
         .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
 
     validateUseBalance(user, account, amount);
@@ -48,19 +76,25 @@ public class TransactionService {
   }
 
   private void validateUseBalance(AccountUser user, Account account, Long amount) {
-    if (!Objects.equals(user.getId(), account.getAccountUser().getId())) {
+    validateOwnerAndStatus(user, account.getAccountUser().getId(), account.getAccountStatus());
+    if (account.getBalance() < amount) {
+      throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+    }
+  }
+
+  private static void validateOwnerAndStatus(AccountUser user, Long accountUserId,
+                                             AccountStatus accountStatus) {
+    if (!Objects.equals(user.getId(), accountUserId)) {
       throw new AccountException(ErrorCode.USER_ACCOUNT_UNMATCHED);
     }
-    if (account.getAccountStatus() != AccountStatus.IN_USE) {
+    if (accountStatus != AccountStatus.IN_USE) {
       throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
     }
-    if (account.getBalance() < amount) {
-      throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
-    }
   }
 
+  @Transactional
   public void saveFailedUseTransaction(String accountNumber, Long amount) {
-    Account account = accountRepository.findByAccountNumber(accountNumber)
+    Account account = findAccount(accountNumber, false)
         .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
 
     saveAndGetTransaction(USE, F, amount, account);
@@ -68,26 +102,33 @@ public class TransactionService {
 
   private Transaction saveAndGetTransaction(TransactionType transactionType, TransactionResultType transactionResultType,  Long amount, Account account) {
 
-    return transactionRepository.save(
+    Transaction transaction = transactionRepository.save(
         Transaction.builder()
             .transactionType(transactionType)
             .transactionResultType(transactionResultType)
             .account(account)
             .amount(amount)
             .balanceSnapshot(account.getBalance())
-            .transactionId(UUID.randomUUID().toString().replace("-", ""))
+            .transactionId(transactionIdGenerator.nextId())
             .transactedAt(LocalDateTime.now())
             .build()
     );
+    accountDailySummaryService.record(transaction);
+    return transaction;
   }
 
+  @OptimisticRetry
+  @AccountLock
   @Transactional
   public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
+    // 거래 조회가 계좌를 같이 읽어오므로, row 락은 그보다 먼저 잡아야 잠근 뒤의 잔액을 보게 된다.
+    Optional<Account> lockedAccount = isRowLock()
+        ? findAccount(accountNumber, true) : Optional.empty();
 
     Transaction transaction = transactionRepository.findByTransactionId(transactionId)
         .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
 
-    Account account = accountRepository.findByAccountNumber(accountNumber)
+    Account account = (isRowLock() ? lockedAccount : findAccount(accountNumber, false))
         .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
 
     validateCancelBalance(transaction,account,amount);
@@ -113,9 +154,202 @@ public class TransactionService {
 
   @Transactional
   public void saveFailedCancelTransaction(String accountNumber, Long amount) {
-    Account account = accountRepository.findByAccountNumber(accountNumber)
+    Account account = findAccount(accountNumber, false)
         .orElseThrow(()-> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
 
     saveAndGetTransaction(CANSLE, F, amount, account);
   }
+
+  /*
+  실패 거래 일괄 기록 (FailedTransactionRecorder 가 모아서 호출한다)
+  계좌는 IN 쿼리 한번으로 읽고, 없는 계좌의 실패 건은 남길 수 없으므로 버린다.
+  */
+  @Transactional
+  public void saveFailedTransactions(List<FailedTransactionDto> failedTransactions) {
+    Map<String, Account> accounts = findAccounts(failedTransactions.stream()
+        .map(FailedTransactionDto::getAccountNumber)
+        .collect(Collectors.toSet()), false);
+
+    List<Transaction> transactions = new ArrayList<>(failedTransactions.size());
+    for (FailedTransactionDto failedTransaction : failedTransactions) {
+      Account account = accounts.get(failedTransaction.getAccountNumber());
+      if (account == null) {
+        log.warn("Skip failed transaction of unknown account : {}", failedTransaction.getAccountNumber());
+        continue;
+      }
+      transactions.add(Transaction.builder()
+          .transactionType(failedTransaction.getTransactionType())
+          .transactionResultType(F)
+          .account(account)
+          .amount(failedTransaction.getAmount())
+          .balanceSnapshot(account.getBalance())
+          .transactionId(transactionIdGenerator.nextId())
+          .transactedAt(failedTransaction.getFailedAt())
+          .build());
+    }
+    transactionRepository.saveAll(transactions);
+    accountDailySummaryService.record(transactions);
+  }
+
+  /*
+  일괄 잔액 사용
+  사용자, 계좌를 IN 쿼리로 한번에 읽어두고 건별로 검증/차감한다.
+  실패한 건은 실패 거래로 남기고 나머지는 계속 처리한다. (계좌 락은 TransactionBatchService 에서 잡는다)
+  */
+  @OptimisticRetry
+  @Transactional
+  public List<TransactionBatchResultDto> useBalanceBatch(List<UseBalanceDto.Request> items) {
+    Map<Long, AccountUser> users = accountUserRepository.findAllById(
+            items.stream().map(UseBalanceDto.Request::getUserId).collect(Collectors.toSet()))
+        .stream()
+        .collect(Collectors.toMap(AccountUser::getId, Function.identity()));
+    Map<String, Account> accounts = findAccounts(
+        items.stream().map(UseBalanceDto.Request::getAccountNumber).collect(Collectors.toSet()),
+        isRowLock());
+
+    List<TransactionBatchResultDto> results = new ArrayList<>(items.size());
+    for (UseBalanceDto.Request item : items) {
+      Account account = accounts.get(item.getAccountNumber());
+      try {
+        AccountUser user = Optional.ofNullable(users.get(item.getUserId()))
+            .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
+        if (account == null) {
+          throw new AccountException(ErrorCode.ACCOUNT_NOT_FOUND);
+        }
+
+        validateUseBalance(user, account, item.getAmount());
+
+        account.useBalance(item.getAmount());
+
+        results.add(TransactionBatchResultDto.success(TransactionDto.fromEntity(
+            saveAndGetTransaction(USE, S, item.getAmount(), account))));
+      } catch (AccountException e) {
+        if (account != null) {
+          saveAndGetTransaction(USE, F, item.getAmount(), account);
+        }
+        results.add(TransactionBatchResultDto.fail(item.getAccountNumber(), item.getAmount(), e));
+      }
+    }
+    return results;
+  }
+
+  @OptimisticRetry
+  @Transactional
+  public List<TransactionBatchResultDto> cancelBalanceBatch(List<CancelBalanceDto.Request> items) {
+    // 계좌를 먼저 읽는다. (거래 조회가 계좌를 같이 읽어오기 전에 row 락을 잡기 위함)
+    Map<String, Account> accounts = findAccounts(
+        items.stream().map(CancelBalanceDto.Request::getAccountNumber).collect(Collectors.toSet()),
+        isRowLock());
+    Map<String, Transaction> transactions = transactionRepository.findByTransactionIdIn(
+            items.stream().map(CancelBalanceDto.Request::getTransactionId).collect(Collectors.toSet()))
+        .stream()
+        .collect(Collectors.toMap(Transaction::getTransactionId, Function.identity()));
+
+    List<TransactionBatchResultDto> results = new ArrayList<>(items.size());
+    for (CancelBalanceDto.Request item : items) {
+      Account account = accounts.get(item.getAccountNumber());
+      try {
+        Transaction transaction = Optional.ofNullable(transactions.get(item.getTransactionId()))
+            .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
+        if (account == null) {
+          throw new AccountException(ErrorCode.ACCOUNT_NOT_FOUND);
+        }
+
+        validateCancelBalance(transaction, account, item.getAmount());
+
+        account.cancelBalance(item.getAmount());
+
+        results.add(TransactionBatchResultDto.success(TransactionDto.fromEntity(
+            saveAndGetTransaction(CANSLE, S, item.getAmount(), account))));
+      } catch (AccountException e) {
+        if (account != null) {
+          saveAndGetTransaction(CANSLE, F, item.getAmount(), account);
+        }
+        results.add(TransactionBatchResultDto.fail(item.getAccountNumber(), item.getAmount(), e));
+      }
+    }
+    return results;
+  }
+
+  /*
+  거래 내역 조회 (keyset 페이지네이션)
+  limit + 1 건을 읽어서 다음 페이지가 있는지 판단한다.
+  */
+  @Transactional(readOnly = true)
+  public TransactionHistoryDto.Response getTransactions(String accountNumber, String after, int limit) {
+    // id 만 필요하므로 캐시에 있으면 계좌를 읽지 않는다.
+    Long accountId = accountCache.get(accountNumber)
+        .map(AccountCache.CachedAccount::getId)
+        .orElseGet(() -> findAccount(accountNumber, Optional.empty(), false)
+            .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND))
+            .getId());
+    int pageSize = Math.max(1, Math.min(limit, MAX_HISTORY_LIMIT));
+    PageRequest page = PageRequest.of(0, pageSize + 1);
+
+    List<TransactionHistoryDto.Item> items;
+    if (after == null || after.isEmpty()) {
+      items = transactionRepository.findHistory(accountId, page);
+    } else {
+      TransactionHistoryDto.Cursor cursor = TransactionHistoryDto.Cursor.decode(after);
+      items = transactionRepository.findHistoryAfter(
+          accountId, cursor.getTransactedAt(), cursor.getId(), page);
+    }
+
+    String nextCursor = null;
+    if (items.size() > pageSize) {
+      items = items.subList(0, pageSize);
+      nextCursor = TransactionHistoryDto.Cursor.of(items.get(pageSize - 1)).encode();
+    }
+
+    return TransactionHistoryDto.Response.builder()
+        .accountNumber(accountNumber)
+        .transactions(items)
+        .nextCursor(nextCursor)
+        .build();
+  }
+
+  private boolean isRowLock() {
+    return lockStrategy == LockStrategy.PESSIMISTIC;
+  }
+
+  private Optional<Account> findAccount(String accountNumber, boolean forUpdate) {
+    return findAccount(accountNumber, accountCache.get(accountNumber), forUpdate);
+  }
+
+  // 캐시에 있으면 id(PK) 로 읽고, 없으면 계좌번호로 읽어서 캐시에 넣는다.
+  // forUpdate 면 같은 조회를 SELECT ... FOR UPDATE 로 한다.
+  private Optional<Account> findAccount(String accountNumber,
+                                        Optional<AccountCache.CachedAccount> cachedAccount,
+                                        boolean forUpdate) {
+    try {
+      Optional<Account> account = cachedAccount
+          .map(AccountCache.CachedAccount::getId)
+          .flatMap(id -> forUpdate ? accountRepository.findForUpdateById(id) : accountRepository.findById(id));
+      if (account.isPresent()) {
+        return account;
+      }
+      return (forUpdate
+          ? accountRepository.findForUpdateByAccountNumber(accountNumber)
+          : accountRepository.findByAccountNumber(accountNumber))
+          .map(found -> {
+            accountCache.put(found);
+            return found;
+          });
+    } catch (PessimisticLockingFailureException e) {
+      throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+    }
+  }
+
+  private Map<String, Account> findAccounts(Set<String> accountNumbers, boolean forUpdate) {
+    List<Account> accounts;
+    try {
+      accounts = forUpdate
+          ? accountRepository.findForUpdateByAccountNumberIn(accountNumbers)
+          : accountRepository.findByAccountNumberIn(accountNumbers);
+    } catch (PessimisticLockingFailureException e) {
+      throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+    }
+    return accounts.stream()
+        .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+  }
 }
@@ -0,0 +1,17 @@
+package com.example.account.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+// 예전 방식 : 랜덤 UUID 32자리 hex (account.transaction-id.generator=uuid)
+@Component
+@ConditionalOnProperty(name = "account.transaction-id.generator", havingValue = "uuid")
+public class UuidTransactionIdGenerator implements TransactionIdGenerator {
+
+  @Override
+  public String nextId() {
+    return UUID.randomUUID().toString().replace("-", "");
+  }
+}
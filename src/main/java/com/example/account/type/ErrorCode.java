@@ -29,7 +29,25 @@ public enum ErrorCode {
 
   BALANCE_NOT_EMPTY("잔액이 있는 계좌는 해지할 수가 없습니다."),
 
-  MAX_ACCOUNT_PER_USER_10("사용자의 최대 계좌는 10개 입니다.");
+  ACCOUNT_TRANSACTION_PENDING("아직 반영 중인 거래가 있어 해지할 수 없습니다. 잠시 후 다시 시도해 주세요."),
+
+  MAX_ACCOUNT_PER_USER_10("사용자의 최대 계좌는 10개 입니다."),
+
+  ACCOUNT_TRANSACTION_LOCK("해당 계좌는 사용 중입니다."),
+
+  ACCOUNT_TRANSACTION_TIMEOUT("처리가 늦어 거래를 취소했습니다. 잔액은 바뀌지 않았습니다."),
+
+  TRANSACTION_OUTCOME_UNKNOWN("거래 처리 결과를 알 수 없습니다. 거래 내역을 확인한 뒤 다시 시도해 주세요."),
+
+  ACCOUNT_NUMBER_EXHAUSTED("더 이상 발급할 수 있는 계좌번호가 없습니다."),
+
+  ACCOUNT_CONCURRENT_UPDATE("다른 거래와 충돌했습니다. 다시 시도해 주세요."),
+
+  IDEMPOTENCY_KEY_REUSED("같은 멱등 키로 다른 요청이 들어왔습니다."),
+
+  IDEMPOTENCY_REQUEST_IN_PROGRESS("같은 멱등 키의 요청이 아직 처리 중입니다."),
+
+  INVALID_DATE_RANGE("조회 기간이 잘못되었습니다.");
 
 
   private final String description;
@@ -0,0 +1,15 @@
+package com.example.account.type;
+
+/*
+잔액 변경 동시성 제어 방식 (account.lock.strategy)
+NONE        : 락도 재시도도 없음. 충돌한 커밋은 @Version 검사에서 그대로 실패한다.
+OPTIMISTIC  : @Version 충돌 시 @OptimisticRetry 로 재시도
+PESSIMISTIC : SELECT ... FOR UPDATE 로 계좌 row 를 잠근다.
+REDIS       : @AccountLock 으로 계좌번호 단위 Redis 분산 락
+*/
+public enum LockStrategy {
+  NONE,
+  OPTIMISTIC,
+  PESSIMISTIC,
+  REDIS
+}
@@ -0,0 +1,87 @@
+package com.example.account;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.repository.AccountRepository;
+import com.example.account.service.AccountNumberAllocator;
+import com.example.account.type.AccountStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+account.lock.pessimistic-timeout-ms 가 실제 DB(H2)의 row 락 대기에 걸리는지 확인한다.
+H2 는 락 대기가 끝나면 문장을 한번 더 시도하므로 설정값의 두 배 가까이 기다린다.
+H2 자체 기본값(2000ms)이 쓰이면 4초 가까이 기다리게 된다.
+*/
+@SpringBootTest
+class PessimisticLockTimeoutTest {
+  private static final long PORORO_ID = 1L;
+  private static final long SLACK_MS = 500;
+
+  @Autowired
+  private AccountRepository accountRepository;
+
+  @Autowired
+  private AccountNumberAllocator accountNumberAllocator;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Value("${account.lock.pessimistic-timeout-ms}")
+  private long lockTimeoutMs;
+
+  @Test
+  @DisplayName("다른 트랜잭션이 잡은 row 락을 설정한 시간만 기다리고 PessimisticLockingFailureException")
+  void lockTimeout() throws InterruptedException {
+    // given 어떤 데이터가 있을때
+    String accountNumber = accountRepository.save(Account.builder()
+        .accountUser(AccountUser.builder().id(PORORO_ID).build())
+        .accountStatus(AccountStatus.IN_USE)
+        .accountNumber(accountNumberAllocator.nextAccountNumber())
+        .balance(10_000L)
+        .registeredAt(LocalDateTime.now())
+        .build()).getAccountNumber();
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    CountDownLatch locked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Thread holder = new Thread(() -> transactionTemplate.executeWithoutResult(status -> {
+      accountRepository.findForUpdateByAccountNumber(accountNumber);
+      locked.countDown();
+      try {
+        release.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }));
+    holder.start();
+    assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+    try {
+      // when 어떤 동작을 하면
+      long start = System.nanoTime();
+      assertThrows(PessimisticLockingFailureException.class, () -> transactionTemplate.executeWithoutResult(
+          status -> accountRepository.findForUpdateByAccountNumber(accountNumber)));
+      long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+      // then 어떤 결과가 나와야 한다
+      assertTrue(elapsedMs >= lockTimeoutMs * 8 / 10, "waited " + elapsedMs + " ms");
+      assertTrue(elapsedMs < lockTimeoutMs * 2 + SLACK_MS, "waited " + elapsedMs + " ms");
+    } finally {
+      release.countDown();
+      holder.join();
+    }
+  }
+}
@@ -0,0 +1,307 @@
+package com.example.account;
+
+import com.example.account.dto.AccountDailySummaryDto;
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.CreateAccountBatchDto;
+import com.example.account.dto.CreateAccountDto;
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistoryDto;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.exception.AccountException;
+import com.example.account.service.AccountCountRepairJob;
+import com.example.account.service.AccountDailySummaryService;
+import com.example.account.service.AccountNumberAllocator;
+import com.example.account.service.AccountProvisioningService;
+import com.example.account.service.AccountQueryService;
+import com.example.account.service.AccountService;
+import com.example.account.service.TransactionExportService;
+import com.example.account.service.TransactionService;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.ExportFormat;
+import com.example.account.type.TransactionType;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+서비스 메소드별 SQL 실행 횟수 회귀 테스트
+N+1 이나 불필요한 조회가 끼어들면 여기서 깨진다.
+숫자를 바꿔야 한다면 바뀐 쿼리가 의도한 것인지 먼저 확인할 것.
+*/
+@SpringBootTest
+class QueryCountTest {
+  private static final long PORORO_ID = 1L;
+  private static final long LUPI_ID = 2L;
+  private static final long EDDIE_ID = 3L;
+
+  private static boolean warmedUp;
+
+  @Autowired
+  private AccountService accountService;
+
+  @Autowired
+  private AccountQueryService accountQueryService;
+
+  @Autowired
+  private TransactionService transactionService;
+
+  @Autowired
+  private AccountRepository accountRepository;
+
+  @Autowired
+  private TransactionExportService transactionExportService;
+
+  @Autowired
+  private AccountDailySummaryService accountDailySummaryService;
+
+  @Autowired
+  private AccountProvisioningService accountProvisioningService;
+
+  @Autowired
+  private AccountNumberAllocator accountNumberAllocator;
+
+  @Autowired
+  private AccountCountRepairJob accountCountRepairJob;
+
+  @Autowired
+  private AccountUserRepository accountUserRepository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private Statistics statistics;
+  private String accountNumber;
+
+  @BeforeEach
+  void setUp() {
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.setStatisticsEnabled(true);
+
+    // 계좌번호 구간, id 시퀀스 구간을 미리 빌려와서 측정 대상 쿼리만 세도록 한다.
+    // (pooled optimizer 는 처음 두 번의 id 발급에서 시퀀스를 호출한다)
+    if (!warmedUp) {
+      accountService.createAccount(EDDIE_ID, 10_000L);
+      String warmUpAccountNumber = accountService.createAccount(EDDIE_ID, 10_000L).getAccountNumber();
+      transactionService.useBalance(EDDIE_ID, warmUpAccountNumber, 100L);
+      transactionService.useBalance(EDDIE_ID, warmUpAccountNumber, 100L);
+      warmedUp = true;
+    }
+
+    // 테스트마다 새 계좌를 쓴다. 사용자당 계좌 수 제한(10개)에 걸리지 않도록 서비스를 거치지 않고 저장한다.
+    accountNumber = accountRepository.save(Account.builder()
+        .accountUser(AccountUser.builder().id(PORORO_ID).build())
+        .accountStatus(AccountStatus.IN_USE)
+        .accountNumber(accountNumberAllocator.nextAccountNumber())
+        .balance(10_000L)
+        .registeredAt(LocalDateTime.now())
+        .build()).getAccountNumber();
+    statistics.clear();
+  }
+
+  @Test
+  @DisplayName("계좌 생성 : 사용자 계좌 수 조건부 update, 계좌 insert")
+  void createAccount() {
+    accountService.createAccount(LUPI_ID, 1000L);
+
+    assertEquals(2, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  @DisplayName("잔액 사용 : 사용자 조회, 계좌 조회, 일별 요약 merge, 계좌 update, 거래 insert")
+  void useBalance() {
+    transactionService.useBalance(PORORO_ID, accountNumber, 100L);
+    assertEquals(5, statistics.getPrepareStatementCount());
+
+    // 두번째 호출은 캐시에서 찾은 id 로 계좌를 읽는다.
+    statistics.clear();
+    transactionService.useBalance(PORORO_ID, accountNumber, 100L);
+    assertEquals(5, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  @DisplayName("잔액 사용 거절 : 해지된 계좌는 캐시의 상태로 거절하고 계좌를 읽지 않음")
+  void useBalanceOnUnregisteredAccount() {
+    AccountDto empty = accountService.createAccount(LUPI_ID, 0L);
+    accountService.deleteAccount(LUPI_ID, empty.getAccountNumber());
+    // 해지하면서 캐시에서 지웠으므로 한번은 계좌를 읽어서 해지 상태를 캐시에 넣는다.
+    assertThrows(AccountException.class,
+        () -> transactionService.useBalance(LUPI_ID, empty.getAccountNumber(), 100L));
+    statistics.clear();
+
+    AccountException exception = assertThrows(AccountException.class,
+        () -> transactionService.useBalance(LUPI_ID, empty.getAccountNumber(), 100L));
+
+    assertEquals(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED, exception.getErrorCode());
+    // 사용자 조회 하나
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  @DisplayName("잔액 사용 취소 : 거래+계좌 조회(entity graph), 일별 요약 merge, 계좌 update, 거래 insert")
+  void cancelBalance() {
+    TransactionDto used = transactionService.useBalance(PORORO_ID, accountNumber, 100L);
+    statistics.clear();
+
+    transactionService.cancelBalance(used.getTransactionId(), accountNumber, 100L);
+
+    assertEquals(4, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  @DisplayName("일별 요약 조회 : 계좌 id 는 캐시, 요약 테이블 구간 조회 하나")
+  void getDailySummaries() {
+    TransactionDto used = transactionService.useBalance(PORORO_ID, accountNumber, 100L);
+    transactionService.useBalance(PORORO_ID, accountNumber, 200L);
+    transactionService.cancelBalance(used.getTransactionId(), accountNumber, 100L);
+    statistics.clear();
+
+    LocalDate today = LocalDate.now();
+    AccountDailySummaryDto.Response summary =
+        accountDailySummaryService.getDailySummaries(accountNumber, today.minusDays(7), today);
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(1, summary.getDays().size());
+    assertEquals(9_800L, summary.getDays().get(0).getClosingBalance());
+    Map<TransactionType, AccountDailySummaryDto.Item> items = summary.getDays().get(0).getItems().stream()
+        .collect(Collectors.toMap(AccountDailySummaryDto.Item::getTransactionType, Function.identity()));
+    assertEquals(2, items.get(TransactionType.USE).getCount());
+    assertEquals(300L, items.get(TransactionType.USE).getAmount());
+    assertEquals(1, items.get(TransactionType.CANSLE).getCount());
+    assertEquals(100L, items.get(TransactionType.CANSLE).getAmount());
+  }
+
+  @Test
+  @DisplayName("일괄 계좌 생성 : 사용자 IN 조회, 계좌 batch insert (계좌 수 batch update 는 JdbcTemplate 이라 세지 않는다)")
+  void createAccounts() {
+    List<CreateAccountBatchDto.Item> results = accountProvisioningService.createAccounts(Arrays.asList(
+        new CreateAccountDto.Request(LUPI_ID, 1000L),
+        new CreateAccountDto.Request(EDDIE_ID, 1000L),
+        new CreateAccountDto.Request(LUPI_ID, 1000L),
+        new CreateAccountDto.Request(EDDIE_ID, 1000L)));
+
+    assertTrue(results.stream().allMatch(result -> result.getErrorCode() == null));
+    assertEquals(4, statistics.getEntityInsertCount());
+    assertEquals(2, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  @DisplayName("계좌 해지 : 사용자 조회, 계좌 조회, 계좌 update, 사용자 계좌 수 update")
+  void deleteAccount() {
+    AccountDto empty = accountService.createAccount(LUPI_ID, 0L);
+    statistics.clear();
+
+    accountService.deleteAccount(LUPI_ID, empty.getAccountNumber());
+
+    assertEquals(4, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  @DisplayName("계좌 수 보정 : update 한 문장으로 어긋난 사용자만 고친다")
+  void repairAccountCounts() {
+    // setUp 의 계좌는 서비스를 거치지 않아서 PORORO 의 계좌 수가 어긋나 있다.
+    assertTrue(accountCountRepairJob.repair() > 0);
+    assertEquals(1, statistics.getPrepareStatementCount());
+
+    long inUse = accountRepository.findByAccountUser(AccountUser.builder().id(PORORO_ID).build()).stream()
+        .filter(account -> account.getAccountStatus() == AccountStatus.IN_USE)
+        .count();
+    assertEquals(inUse, accountUserRepository.findById(PORORO_ID).get().getAccountCount());
+    assertEquals(0, accountCountRepairJob.repair());
+  }
+
+  @Test
+  @DisplayName("계좌 단건 조회 : 계좌+소유자 조회(entity graph)")
+  void getAccount() {
+    Long accountId = accountRepository.findByAccountNumber(accountNumber).get().getId();
+    statistics.clear();
+
+    accountService.getAccount(accountId);
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  @DisplayName("계좌 목록 조회 : 사용자 조회, 계좌 목록 조회")
+  void getAccountsByUserId() {
+    accountService.getAccountsByUserId(PORORO_ID);
+
+    assertEquals(2, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  @DisplayName("계좌 조회 reactive 경로 : R2DBC 로 같은 DB 를 읽고, Hibernate 는 타지 않음")
+  void reactiveReads() {
+    Long accountId = accountRepository.findByAccountNumber(accountNumber).get().getId();
+    statistics.clear();
+
+    List<AccountDto> accounts = accountQueryService.getAccountsByUserId(PORORO_ID).block();
+    Account account = accountQueryService.getAccount(accountId).block();
+
+    assertTrue(accounts.stream()
+        .anyMatch(accountDto -> accountDto.getAccountNumber().equals(accountNumber)));
+    assertEquals(accountNumber, account.getAccountNumber());
+    assertEquals(PORORO_ID, account.getAccountUser().getId());
+    assertEquals(0, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  @DisplayName("계좌 조회 reactive 경로 : 쿼리는 호출한 스레드가 아니라 전용 스케줄러에서 실행")
+  void reactiveReadsOffCallerThread() {
+    Long accountId = accountRepository.findByAccountNumber(accountNumber).get().getId();
+
+    String queryThread = accountQueryService.getAccount(accountId)
+        .map(account -> Thread.currentThread().getName())
+        .block();
+
+    assertTrue(queryThread.startsWith("account-r2dbc"), queryThread);
+  }
+
+  @Test
+  @DisplayName("거래 내역 조회 : 계좌 id 는 캐시, 거래 내역 한 페이지")
+  void getTransactions() {
+    transactionService.useBalance(PORORO_ID, accountNumber, 100L);
+    transactionService.useBalance(PORORO_ID, accountNumber, 100L);
+    statistics.clear();
+
+    TransactionHistoryDto.Response page = transactionService.getTransactions(accountNumber, null, 1);
+    transactionService.getTransactions(accountNumber, page.getNextCursor(), 1);
+
+    assertEquals(2, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  @DisplayName("거래 내역 export : 거래/계좌를 한번에 읽는 쿼리 하나")
+  void exportTransactions() throws Exception {
+    transactionService.useBalance(PORORO_ID, accountNumber, 100L);
+    transactionService.useBalance(PORORO_ID, accountNumber, 100L);
+    statistics.clear();
+
+    long count = transactionExportService.export(LocalDateTime.now().minusDays(1),
+        LocalDateTime.now().plusDays(1), null, ExportFormat.NDJSON, new ByteArrayOutputStream());
+
+    assertTrue(count >= 2);
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+}
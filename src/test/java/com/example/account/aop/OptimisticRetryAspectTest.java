@@ -0,0 +1,86 @@
+package com.example.account.aop;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.LockStrategy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class OptimisticRetryAspectTest {
+  @Mock
+  private ProceedingJoinPoint pjp;
+
+  @Mock
+  private Signature signature;
+
+  private MeterRegistry meterRegistry;
+  private OptimisticRetryAspect optimisticRetryAspect;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    optimisticRetryAspect = new OptimisticRetryAspect(meterRegistry, 3, 1L, 2L, LockStrategy.OPTIMISTIC);
+    given(pjp.getSignature()).willReturn(signature);
+    given(signature.getName()).willReturn("useBalance");
+  }
+
+  @Test
+  @DisplayName("충돌이 나면 다시 실행해서 성공")
+  void retryUntilSuccess() throws Throwable {
+    // given 어떤 데이터가 있을때
+    given(pjp.proceed())
+        .willThrow(new ObjectOptimisticLockingFailureException("Account", 1L))
+        .willThrow(new ObjectOptimisticLockingFailureException("Account", 1L))
+        .willReturn("ok");
+
+    // when 어떤 동작을 하면
+    Object result = optimisticRetryAspect.aroundMethod(pjp, retry(-1));
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals("ok", result);
+    verify(pjp, times(3)).proceed();
+    assertEquals(2.0, meterRegistry.get("account.optimistic.retries")
+        .tag("method", "useBalance").counter().count());
+  }
+
+  @Test
+  @DisplayName("최대 횟수까지 충돌하면 실패")
+  void retryExhausted() throws Throwable {
+    // given 어떤 데이터가 있을때
+    given(pjp.proceed())
+        .willThrow(new ObjectOptimisticLockingFailureException("Account", 1L));
+
+    // when 어떤 동작을 하면
+    AccountException exception = assertThrows(AccountException.class,
+        () -> optimisticRetryAspect.aroundMethod(pjp, retry(2)));
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(ErrorCode.ACCOUNT_CONCURRENT_UPDATE, exception.getErrorCode());
+    verify(pjp, times(2)).proceed();
+    assertEquals(1.0, meterRegistry.get("account.optimistic.exhausted")
+        .tag("method", "useBalance").counter().count());
+  }
+
+  private static OptimisticRetry retry(int maxAttempts) {
+    OptimisticRetry optimisticRetry = mock(OptimisticRetry.class);
+    given(optimisticRetry.maxAttempts()).willReturn(maxAttempts);
+    return optimisticRetry;
+  }
+}
@@ -0,0 +1,41 @@
+package com.example.account.config;
+
+import com.example.account.profile.ProfilingSessionEventListener;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProfilerConfigTest {
+  private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+      .withUserConfiguration(ProfilerConfig.class);
+
+  @Test
+  @DisplayName("프로파일러가 꺼져 있으면 세션 이벤트 리스너를 등록하지 않음")
+  void disabledByDefault() {
+    contextRunner.run(context ->
+        assertTrue(context.getBeansOfType(HibernatePropertiesCustomizer.class).isEmpty()));
+  }
+
+  @Test
+  @DisplayName("프로파일러를 켜면 세션마다 ProfilingSessionEventListener 를 붙임")
+  void registerListenerWhenEnabled() {
+    contextRunner.withPropertyValues("account.profiler.enabled=true").run(context -> {
+      // given 어떤 데이터가 있을때
+      Map<String, Object> properties = new HashMap<>();
+
+      // when 어떤 동작을 하면
+      context.getBean(HibernatePropertiesCustomizer.class).customize(properties);
+
+      // then 어떤 결과가 나와야 한다
+      assertEquals(ProfilingSessionEventListener.class.getName(),
+          properties.get("hibernate.session.events.auto"));
+    });
+  }
+}
@@ -0,0 +1,103 @@
+package com.example.account.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+H2 세 개 (primary, replica 두 개) 에 자기 이름을 넣어두고
+어느 DB 에서 읽었는지로 라우팅을 확인한다.
+*/
+class ReadWriteRoutingDataSourceTest {
+  private JdbcTemplate jdbcTemplate;
+  private TransactionTemplate readWrite;
+  private TransactionTemplate readOnly;
+
+  @BeforeEach
+  void setUp() {
+    Map<Object, Object> targets = new HashMap<>();
+    targets.put("primary", database("primary"));
+    targets.put("replica-0", database("replica-0"));
+    targets.put("replica-1", database("replica-1"));
+
+    ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(2);
+    routingDataSource.setTargetDataSources(targets);
+    routingDataSource.setDefaultTargetDataSource(targets.get("primary"));
+    routingDataSource.afterPropertiesSet();
+    DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+
+    DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    readWrite = new TransactionTemplate(transactionManager);
+    readOnly = new TransactionTemplate(transactionManager);
+    readOnly.setReadOnly(true);
+    ReadWriteRoutingDataSource.clearWrites();
+  }
+
+  @AfterEach
+  void tearDown() {
+    ReadWriteRoutingDataSource.clearWrites();
+  }
+
+  @Test
+  @DisplayName("read-only 트랜잭션은 replica 를 돌아가며, 나머지는 primary")
+  void route() {
+    // given 어떤 데이터가 있을때
+    Set<String> readOnlyTargets = new HashSet<>();
+
+    // when 어떤 동작을 하면
+    for (int i = 0; i < 4; i++) {
+      readOnlyTargets.add(readOnly.execute(status -> whoAmI()));
+    }
+    String withoutTransaction = whoAmI();
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(Set.of("replica-0", "replica-1"), readOnlyTargets);
+    assertEquals("primary", withoutTransaction);
+  }
+
+  @Test
+  @DisplayName("쓰기 트랜잭션 뒤의 read-only 트랜잭션은 표시를 지울 때까지 primary")
+  void readYourWrites() {
+    // given 어떤 데이터가 있을때
+    String write = readWrite.execute(status -> whoAmI());
+
+    // when 어떤 동작을 하면
+    String readAfterWrite = readOnly.execute(status -> whoAmI());
+    ReadWriteRoutingDataSource.clearWrites();
+    String readInNextRequest = readOnly.execute(status -> whoAmI());
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals("primary", write);
+    assertEquals("primary", readAfterWrite);
+    assertEquals("replica", readInNextRequest.substring(0, "replica".length()));
+  }
+
+  private String whoAmI() {
+    return jdbcTemplate.queryForObject("select name from whoami", String.class);
+  }
+
+  private static DataSource database(String name) {
+    DataSource dataSource =
+        new DriverManagerDataSource("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1");
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("create table if not exists whoami (name varchar(20))");
+    jdbcTemplate.update("delete from whoami");
+    jdbcTemplate.update("insert into whoami values (?)", name);
+    return dataSource;
+  }
+}
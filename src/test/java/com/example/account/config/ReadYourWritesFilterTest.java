@@ -0,0 +1,94 @@
+package com.example.account.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.servlet.http.Cookie;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+요청 안에서 트랜잭션 표시만 바꿔가며 라우팅 키를 직접 확인한다.
+*/
+class ReadYourWritesFilterTest {
+  private final ReadYourWritesFilter filter = new ReadYourWritesFilter(5_000);
+  private final ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(1);
+
+  @AfterEach
+  void tearDown() {
+    TransactionSynchronizationManager.setActualTransactionActive(false);
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+  }
+
+  @Test
+  @DisplayName("쓰기가 있었던 요청은 쿠키를 받고, 그 쿠키로 온 다음 요청의 조회는 primary")
+  void readYourWritesAcrossRequests() throws Exception {
+    // given 어떤 데이터가 있을때
+    MockHttpServletResponse writeResponse = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("POST", "/transaction/use"), writeResponse,
+        (request, response) -> {
+          write();
+          write();
+        });
+    Cookie cookie = writeResponse.getCookie(ReadYourWritesFilter.COOKIE_NAME);
+
+    // when 어떤 동작을 하면
+    List<Object> withCookie = new ArrayList<>();
+    MockHttpServletRequest nextRequest = new MockHttpServletRequest("GET", "/transaction");
+    nextRequest.setCookies(cookie);
+    filter.doFilter(nextRequest, new MockHttpServletResponse(),
+        (request, response) -> withCookie.add(read()));
+    List<Object> withoutCookie = new ArrayList<>();
+    filter.doFilter(new MockHttpServletRequest("GET", "/transaction"), new MockHttpServletResponse(),
+        (request, response) -> withoutCookie.add(read()));
+
+    // then 어떤 결과가 나와야 한다
+    assertNotNull(cookie);
+    assertEquals(1, writeResponse.getCookies().length);
+    assertEquals(5, cookie.getMaxAge());
+    assertEquals(List.of(ReadWriteRoutingDataSource.PRIMARY), withCookie);
+    assertEquals(List.of(ReadWriteRoutingDataSource.REPLICA_PREFIX + 0), withoutCookie);
+  }
+
+  @Test
+  @DisplayName("만료 시각이 지난 쿠키나 쓰기가 없던 요청은 replica")
+  void expiredCookie() throws Exception {
+    // given 어떤 데이터가 있을때
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/transaction");
+    request.setCookies(new Cookie(ReadYourWritesFilter.COOKIE_NAME,
+        String.valueOf(System.currentTimeMillis() - 1)));
+    MockHttpServletResponse readResponse = new MockHttpServletResponse();
+
+    // when 어떤 동작을 하면
+    List<Object> targets = new ArrayList<>();
+    filter.doFilter(request, readResponse, (req, res) -> targets.add(read()));
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(List.of(ReadWriteRoutingDataSource.REPLICA_PREFIX + 0), targets);
+    assertNull(readResponse.getCookie(ReadYourWritesFilter.COOKIE_NAME));
+  }
+
+  private void write() {
+    TransactionSynchronizationManager.setActualTransactionActive(true);
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    assertEquals(ReadWriteRoutingDataSource.PRIMARY, routingDataSource.determineCurrentLookupKey());
+    TransactionSynchronizationManager.setActualTransactionActive(false);
+  }
+
+  private Object read() {
+    TransactionSynchronizationManager.setActualTransactionActive(true);
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    try {
+      return routingDataSource.determineCurrentLookupKey();
+    } finally {
+      TransactionSynchronizationManager.setActualTransactionActive(false);
+      TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+  }
+}
@@ -2,10 +2,15 @@ package com.example.account.controller;
 
 
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.CreateAccountBatchDto;
 import com.example.account.dto.CreateAccountDto;
 import com.example.account.dto.DeleteAccountDto;
+import com.example.account.exception.AccountException;
+import com.example.account.service.AccountProvisioningService;
+import com.example.account.service.AccountQueryService;
 import com.example.account.service.AccountService;
 import com.example.account.service.RedisTestService;
+import com.example.account.type.ErrorCode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,17 +18,21 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(AccountController.class)
@@ -31,6 +40,12 @@ class AccountControllerTest {
   @MockBean
   private AccountService accountService;
 
+  @MockBean
+  private AccountQueryService accountQueryService;
+
+  @MockBean
+  private AccountProvisioningService accountProvisioningService;
+
   @MockBean
   private RedisTestService redisTestService;
 
@@ -64,6 +79,37 @@ class AccountControllerTest {
         .andDo(print());
   }
 
+  @Test
+  void successCreateAccountBatch() throws Exception {
+    // given 어떤 데이터가 있을때
+    given(accountProvisioningService.createAccounts(anyList()))
+        .willReturn(Arrays.asList(
+            CreateAccountBatchDto.Item.success(AccountDto.builder()
+                .userId(1L)
+                .accountNumber("1000000000")
+                .balance(100L)
+                .registeredAt(LocalDateTime.now())
+                .build()),
+            CreateAccountBatchDto.Item.fail(2L,
+                new AccountException(ErrorCode.USER_NOT_FOUND))));
+    // when 어떤 동작을 하면
+    // then 어떤 결과가 나와야 한다
+    mockMvc.perform(post("/account/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(
+                new CreateAccountBatchDto.Request(Arrays.asList(
+                    new CreateAccountDto.Request(1L, 100L),
+                    new CreateAccountDto.Request(2L, 100L)))
+            )))
+        .andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.successCount").value(1))
+        .andExpect(jsonPath("$.failCount").value(1))
+        .andExpect(jsonPath("$.results[0].accountNumber").value("1000000000"))
+        .andExpect(jsonPath("$.results[1].userId").value(2))
+        .andExpect(jsonPath("$.results[1].errorCode").value("USER_NOT_FOUND"));
+  }
+
 //  @Test
 //  void successGetAccount() throws Exception {
 //    // given 어떤 데이터가 있을때
@@ -117,14 +163,16 @@ class AccountControllerTest {
             AccountDto.builder().accountNumber("2345678901")
                 .balance(3000L).build());
 
-    given(accountService.getAccountsByUserId(anyLong()))
-        .willReturn(accountDtos);
+    given(accountQueryService.getAccountsByUserId(anyLong()))
+        .willReturn(Mono.just(accountDtos));
 
     // when 어떤 동작을 하면
-
+    MvcResult mvcResult = mockMvc.perform(get("/account?user_id=1"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
 
     // then 어떤 결과가 나와야 한다
-    mockMvc.perform(get("/account?user_id=1"))
+    mockMvc.perform(asyncDispatch(mvcResult))
         .andDo(print())
         .andExpect(jsonPath("$[0].accountNumber").value("1234567890"))
         .andExpect(jsonPath("$[0].balance").value(1000L))
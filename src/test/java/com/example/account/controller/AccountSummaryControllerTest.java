@@ -0,0 +1,63 @@
+package com.example.account.controller;
+
+import com.example.account.dto.AccountDailySummaryDto;
+import com.example.account.service.AccountDailySummaryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.Collections;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(AccountSummaryController.class)
+class AccountSummaryControllerTest {
+  @MockBean
+  private AccountDailySummaryService accountDailySummaryService;
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Test
+  void successGetDailySummaries() throws Exception {
+    // given 어떤 데이터가 있을때
+    LocalDate day = LocalDate.of(2023, 7, 1);
+    given(accountDailySummaryService.getDailySummaries("1000000000", day, day.plusDays(6)))
+        .willReturn(AccountDailySummaryDto.Response.builder()
+            .accountNumber("1000000000")
+            .from(day)
+            .to(day.plusDays(6))
+            .days(Collections.singletonList(AccountDailySummaryDto.Day.builder()
+                .date(day)
+                .closingBalance(9000L)
+                .items(Collections.singletonList(AccountDailySummaryDto.Item.builder()
+                    .transactionType(USE)
+                    .transactionResult(S)
+                    .count(2)
+                    .amount(1000L)
+                    .build()))
+                .build()))
+            .build());
+
+    // when 어떤 동작을 하면
+    // then 어떤 결과가 나와야 한다
+    mockMvc.perform(get("/account/summary/daily?account_number=1000000000&from=2023-07-01&to=2023-07-07"))
+        .andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.accountNumber").value("1000000000"))
+        .andExpect(jsonPath("$.days[0].date").value("2023-07-01"))
+        .andExpect(jsonPath("$.days[0].closingBalance").value(9000))
+        .andExpect(jsonPath("$.days[0].items[0].transactionType").value("USE"))
+        .andExpect(jsonPath("$.days[0].items[0].count").value(2))
+        .andExpect(jsonPath("$.days[0].items[0].amount").value(1000));
+  }
+}
@@ -1,9 +1,18 @@
 package com.example.account.controller;
 
 import com.example.account.dto.CancelBalanceDto;
+import com.example.account.dto.TransactionBatchResultDto;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistoryDto;
+import com.example.account.dto.UseBalanceBatchDto;
 import com.example.account.dto.UseBalanceDto;
+import com.example.account.exception.AccountException;
+import com.example.account.service.FailedTransactionRecorder;
+import com.example.account.service.IdempotencyService;
+import com.example.account.service.TransactionBatchService;
+import com.example.account.service.TransactionExportService;
 import com.example.account.service.TransactionService;
+import com.example.account.type.ErrorCode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,11 +22,19 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
 
 import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -28,6 +45,14 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 class TransactionControllerTest {
   @MockBean
   private TransactionService transactionService;
+  @MockBean
+  private TransactionBatchService transactionBatchService;
+  @MockBean
+  private FailedTransactionRecorder failedTransactionRecorder;
+  @MockBean
+  private TransactionExportService transactionExportService;
+  @MockBean
+  private IdempotencyService idempotencyService;
   @Autowired
   private MockMvc mockMvc;
 
@@ -90,4 +115,87 @@ class TransactionControllerTest {
         .andExpect(jsonPath("$.transactionId").value("transactionIdForCancel"))
         .andExpect(jsonPath("$.amount").value(12345L));
   }
-}
\ No newline at end of file
+
+  @Test
+  void successUseBalanceWithIdempotencyKey() throws Exception {
+    //given
+    given(idempotencyService.execute(eq("use"), eq("key-1"), any(),
+        eq(UseBalanceDto.Response.class), any()))
+        .willReturn(UseBalanceDto.Response.builder()
+            .accountNumber("1000000000")
+            .transactionResult(S)
+            .transactionId("firstTransactionId")
+            .amount(3000L)
+            .transactedAt(LocalDateTime.now())
+            .build());
+    //when
+
+    //then
+    mockMvc.perform(post("/transaction/use")
+            .header(IdempotencyService.IDEMPOTENCY_KEY_HEADER, "key-1")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(
+                new UseBalanceDto.Request(1L, "1000000000", 3000L)
+            ))
+        ).andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.transactionId").value("firstTransactionId"));
+    verify(transactionService, never()).useBalance(anyLong(), anyString(), anyLong());
+  }
+
+  @Test
+  void successUseBalanceBatch() throws Exception {
+    //given
+    given(transactionBatchService.useBalance(anyList()))
+        .willReturn(Arrays.asList(
+            TransactionBatchResultDto.success(TransactionDto.builder()
+                .accountNumber("1000000000")
+                .transactedAt(LocalDateTime.now())
+                .amount(1000L)
+                .transactionId("transactionId")
+                .transactionResultType(S)
+                .build()),
+            TransactionBatchResultDto.fail("1000000001", 2000L,
+                new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE))));
+    //when
+
+    //then
+    mockMvc.perform(post("/transaction/use/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(
+                new UseBalanceBatchDto.Request(Arrays.asList(
+                    new UseBalanceDto.Request(1L, "1000000000", 1000L),
+                    new UseBalanceDto.Request(1L, "1000000001", 2000L)))
+            ))
+        ).andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.successCount").value(1))
+        .andExpect(jsonPath("$.failCount").value(1))
+        .andExpect(jsonPath("$.results[0].transactionId").value("transactionId"))
+        .andExpect(jsonPath("$.results[1].transactionResult").value("F"))
+        .andExpect(jsonPath("$.results[1].errorCode").value("AMOUNT_EXCEED_BALANCE"));
+  }
+
+  @Test
+  void successGetTransactions() throws Exception {
+    //given
+    given(transactionService.getTransactions(anyString(), any(), anyInt()))
+        .willReturn(TransactionHistoryDto.Response.builder()
+            .accountNumber("1000000000")
+            .transactions(Arrays.asList(
+                new TransactionHistoryDto.Item(2L, "transactionId", USE, S,
+                    1000L, 9000L, LocalDateTime.now())))
+            .nextCursor("cursor")
+            .build());
+    //when
+
+    //then
+    mockMvc.perform(get("/transaction?account_number=1000000000&limit=1"))
+        .andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.accountNumber").value("1000000000"))
+        .andExpect(jsonPath("$.transactions[0].transactionId").value("transactionId"))
+        .andExpect(jsonPath("$.transactions[0].transactionType").value("USE"))
+        .andExpect(jsonPath("$.nextCursor").value("cursor"));
+  }
+}
@@ -0,0 +1,164 @@
+package com.example.account.engine;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.example.account.service.AccountCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.account.type.AccountStatus.IN_USE;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerEngineTest {
+  private static final int SHARDS = 4;
+
+  @Mock
+  private LedgerPersister ledgerPersister;
+
+  @Mock
+  private AccountCache accountCache;
+
+  private final AtomicLong transactionIds = new AtomicLong();
+  private LedgerEngine ledgerEngine;
+
+  @BeforeEach
+  void setUp() {
+    ledgerEngine = new LedgerEngine(ledgerPersister,
+        () -> String.format("%016x", transactionIds.incrementAndGet()),
+        accountCache, Optional.empty(), SHARDS, 1024, 100, 5_000L);
+  }
+
+  @AfterEach
+  void tearDown() {
+    ledgerEngine.stop();
+  }
+
+  @Test
+  @DisplayName("같은 계좌번호는 항상 같은 샤드로")
+  void shardOf() {
+    // given 어떤 데이터가 있을때
+    Set<Integer> shards = ConcurrentHashMap.newKeySet();
+
+    // when 어떤 동작을 하면
+    for (int i = 0; i < 1_000; i++) {
+      int shard = ledgerEngine.shardOf(String.valueOf(1_000_000_000L + i));
+      assertEquals(shard, ledgerEngine.shardOf(String.valueOf(1_000_000_000L + i)));
+      shards.add(shard);
+    }
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(Set.of(0, 1, 2, 3), shards);
+  }
+
+  @Test
+  @DisplayName("여러 스레드에서 같은 계좌로 보내도 한 샤드 스레드에서만 처리되고 잔액이 맞음")
+  void routesAccountToSingleShard() {
+    // given 어떤 데이터가 있을때
+    Account account = Account.builder()
+        .id(1L)
+        .accountUser(AccountUser.builder().id(12L).name("Pobi").build())
+        .accountNumber("1000000012")
+        .accountStatus(IN_USE)
+        .balance(10_000L)
+        .build();
+    given(ledgerPersister.existsUser(12L)).willReturn(true);
+    given(ledgerPersister.findAccount("1000000012")).willReturn(Optional.of(account));
+    Set<String> persistThreads = ConcurrentHashMap.newKeySet();
+    doAnswer(invocation -> {
+      persistThreads.add(Thread.currentThread().getName());
+      return null;
+    }).when(ledgerPersister).persist(anyCollection(), anyList());
+    ledgerEngine.start();
+
+    // when 어떤 동작을 하면
+    List<LedgerResult> results = new ArrayList<>();
+    List<Thread> clients = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      Thread client = new Thread(() -> {
+        for (int i = 0; i < 25; i++) {
+          LedgerResult result = ledgerEngine.submit(USE, 12L, null, "1000000012", 100L);
+          synchronized (results) {
+            results.add(result);
+          }
+        }
+      });
+      clients.add(client);
+      client.start();
+    }
+    clients.forEach(client -> assertDoesNotThrow(() -> client.join()));
+    results.forEach(ledgerEngine::await);
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(0L, account.getBalance());
+    assertEquals(Set.of("ledger-shard-" + ledgerEngine.shardOf("1000000012")), persistThreads);
+    verify(ledgerPersister, times(1)).findAccount(any());
+    verify(accountCache).addEvictionListener(any());
+  }
+
+  @Test
+  @DisplayName("기다리다 포기 - 적용 중인 명령은 결과를 알 수 없음, 아직 꺼내지 않은 명령은 취소되어 적용되지 않음")
+  void awaitTimeout() throws Exception {
+    // given 어떤 데이터가 있을때
+    ledgerEngine = new LedgerEngine(ledgerPersister,
+        () -> String.format("%016x", transactionIds.incrementAndGet()),
+        accountCache, Optional.empty(), 1, 1024, 100, 200L);
+    Account account = Account.builder()
+        .id(1L)
+        .accountUser(AccountUser.builder().id(12L).name("Pobi").build())
+        .accountNumber("1000000012")
+        .accountStatus(IN_USE)
+        .balance(10_000L)
+        .build();
+    given(ledgerPersister.existsUser(12L)).willReturn(true);
+    given(ledgerPersister.findAccount("1000000012")).willReturn(Optional.of(account));
+    CountDownLatch persisting = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      persisting.countDown();
+      release.await();
+      return null;
+    }).when(ledgerPersister).persist(anyCollection(), anyList());
+    ledgerEngine.start();
+
+    // when 어떤 동작을 하면
+    LedgerResult applying = ledgerEngine.submit(USE, 12L, null, "1000000012", 100L);
+    assertTrue(persisting.await(5, TimeUnit.SECONDS));
+    LedgerResult queued = ledgerEngine.submit(USE, 12L, null, "1000000012", 200L);
+    AccountException unknown = assertThrows(AccountException.class, () -> ledgerEngine.await(applying));
+    AccountException cancelled = assertThrows(AccountException.class, () -> ledgerEngine.await(queued));
+    release.countDown();
+    ledgerEngine.stop();
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(ErrorCode.TRANSACTION_OUTCOME_UNKNOWN, unknown.getErrorCode());
+    assertEquals(ErrorCode.ACCOUNT_TRANSACTION_TIMEOUT, cancelled.getErrorCode());
+    assertTrue(LedgerEngine.isTimeout(unknown));
+    assertTrue(LedgerEngine.isTimeout(cancelled));
+    // 취소된 명령은 적용되지 않고, 적용 중이던 명령만 반영된다.
+    assertEquals(9_900L, account.getBalance());
+    verify(ledgerPersister, times(1)).persist(anyCollection(), anyList());
+  }
+}
@@ -0,0 +1,132 @@
+package com.example.account.engine;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class LedgerJournalProjectorTest {
+  // 세그먼트 하나에 레코드 4개
+  private static final int SEGMENT_SIZE = JournalRecord.SIZE * 4;
+
+  @TempDir
+  Path directory;
+
+  // 재기동해도 남는 DB 역할 : 샤드별 체크포인트와 반영된 레코드
+  private final Map<Integer, Long> checkpoints = new HashMap<>();
+  private final List<Long> projectedSequences = new ArrayList<>();
+  private LedgerPersister ledgerPersister;
+
+  @BeforeEach
+  void setUp() {
+    ledgerPersister = mock(LedgerPersister.class);
+    when(ledgerPersister.findJournalCheckpoint(anyInt()))
+        .thenAnswer(invocation -> Optional.ofNullable(checkpoints.get(invocation.<Integer>getArgument(0))));
+    doAnswer(invocation -> {
+      checkpoints.put(invocation.getArgument(0), 0L);
+      return null;
+    }).when(ledgerPersister).createJournalCheckpoint(anyInt());
+    doAnswer(invocation -> {
+      List<JournalRecord> records = invocation.getArgument(1);
+      records.forEach(record -> projectedSequences.add(record.getSequence()));
+      checkpoints.put(invocation.getArgument(0), records.get(records.size() - 1).getSequence());
+      return null;
+    }).when(ledgerPersister).project(anyInt(), anyList());
+  }
+
+  @Test
+  @DisplayName("반영 전에 죽은 레코드는 재기동 때 한번만 반영되고, 다시 띄워도 중복 반영하지 않음")
+  void replayAfterRestartProjectsExactlyOnce() throws Exception {
+    // given 어떤 데이터가 있을때
+    LedgerJournalProjector first = projector();
+    first.start();
+    append(first.journal(0), 1, 6);
+    first.stop();
+
+    // 반영되기 전에 죽은 것처럼 저널에만 쓰고 닫는다.
+    try (LedgerJournal journal = LedgerJournal.open(directory.resolve("shard-0"), SEGMENT_SIZE, 0)) {
+      append(journal, 7, 10);
+    }
+
+    // when 어떤 동작을 하면
+    LedgerJournalProjector second = projector();
+    second.start();
+    second.stop();
+    LedgerJournalProjector third = projector();
+    third.start();
+    third.stop();
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(LongStream.rangeClosed(1, 10).boxed().collect(Collectors.toList()), projectedSequences);
+    assertEquals(10L, checkpoints.get(0));
+  }
+
+  @Test
+  @DisplayName("DB 만 새것(체크포인트 없음)인데 저널에 레코드가 남아 있으면 기동 실패")
+  void failsWhenDatabaseWasReset() throws Exception {
+    // given 어떤 데이터가 있을때
+    try (LedgerJournal journal = LedgerJournal.open(directory.resolve("shard-0"), SEGMENT_SIZE, 0)) {
+      append(journal, 1, 3);
+    }
+
+    // when 어떤 동작을 하면
+    IllegalStateException exception = assertThrows(IllegalStateException.class, () -> projector().start());
+
+    // then 어떤 결과가 나와야 한다
+    assertTrue(exception.getMessage().contains("has records up to sequence 3"));
+    assertTrue(projectedSequences.isEmpty());
+  }
+
+  @Test
+  @DisplayName("체크포인트가 남은 저널 범위 밖이면 기동 실패")
+  void failsWhenJournalWasReset() {
+    // given 어떤 데이터가 있을때
+    checkpoints.put(0, 5L);
+
+    // when 어떤 동작을 하면
+    IllegalStateException exception = assertThrows(IllegalStateException.class, () -> projector().start());
+
+    // then 어떤 결과가 나와야 한다
+    assertTrue(exception.getMessage().contains("checkpoint 5 is outside the journal"));
+    verify(ledgerPersister, never()).project(anyInt(), anyList());
+  }
+
+  private LedgerJournalProjector projector() {
+    // 주기 반영은 돌지 않게 길게 잡고 start / stop 에서만 반영한다.
+    return new LedgerJournalProjector(ledgerPersister, directory.toString(),
+        1, 4, SEGMENT_SIZE, 0, 60_000, 3);
+  }
+
+  private static void append(LedgerJournal journal, long from, long to) {
+    for (long index = from; index <= to; index++) {
+      journal.begin(1);
+      journal.append(Transaction.builder()
+          .account(Account.builder().id(1L).build())
+          .transactionType(USE)
+          .amount(100L)
+          .balanceSnapshot(10_000 - index * 100)
+          .transactionId(String.format("%016x", index))
+          .transactedAt(LocalDateTime.of(2023, 7, 1, 12, 0))
+          .build());
+      journal.commit();
+    }
+  }
+}
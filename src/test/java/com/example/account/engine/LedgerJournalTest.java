@@ -0,0 +1,171 @@
+package com.example.account.engine;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.example.account.type.TransactionType.CANSLE;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerJournalTest {
+  // 세그먼트 하나에 레코드 4개
+  private static final int SEGMENT_SIZE = JournalRecord.SIZE * 4;
+  private static final LocalDateTime NOW = LocalDateTime.of(2023, 7, 1, 12, 0, 0, 123_456_789);
+
+  @TempDir
+  Path directory;
+
+  @Test
+  @DisplayName("commit 한 레코드만 읽히고, 세그먼트를 넘어가도 순서대로 읽힘")
+  void appendAndRead() {
+    // given 어떤 데이터가 있을때
+    try (LedgerJournal journal = LedgerJournal.open(directory, SEGMENT_SIZE, 0)) {
+      // when 어떤 동작을 하면
+      for (int i = 1; i <= 10; i++) {
+        journal.begin(1);
+        journal.append(transaction(i));
+        if (i < 10) {
+          journal.commit();
+        }
+      }
+
+      // then 어떤 결과가 나와야 한다
+      assertEquals(9, journal.getWrittenSequence());
+      List<JournalRecord> records = journal.read(1, 100);
+      assertEquals(9, records.size());
+      JournalRecord third = records.get(2);
+      assertEquals(3, third.getSequence());
+      assertEquals(3L, third.getAccountId());
+      assertEquals(USE, third.getTransactionType());
+      assertEquals(300L, third.getAmount());
+      assertEquals(700L, third.getBalanceSnapshot());
+      assertEquals("0000000000000003", third.getTransactionId());
+      assertEquals(NOW, third.getTransactedAt());
+      assertEquals(CANSLE, records.get(3).getTransactionType());
+      assertEquals(3, segmentCount());
+    }
+  }
+
+  @Test
+  @DisplayName("abort 하면 그 자리부터 다시 쓰고, 배치는 세그먼트를 나눠 쓰지 않음")
+  void abort() {
+    // given 어떤 데이터가 있을때
+    try (LedgerJournal journal = LedgerJournal.open(directory, SEGMENT_SIZE, 0)) {
+      journal.begin(3);
+      journal.append(transaction(1));
+      journal.append(transaction(2));
+      journal.append(transaction(3));
+      journal.commit();
+
+      // when 어떤 동작을 하면
+      journal.begin(2);
+      journal.append(transaction(4));
+      journal.append(transaction(5));
+      journal.abort();
+      journal.begin(1);
+      long sequence = journal.append(transaction(6));
+      journal.commit();
+
+      // then 어떤 결과가 나와야 한다
+      assertEquals(4, sequence);
+      List<JournalRecord> records = journal.read(1, 100);
+      assertEquals(4, records.size());
+      assertEquals("0000000000000006", records.get(3).getTransactionId());
+      // 두번째 배치(2건)는 첫 세그먼트에 자리가 1개뿐이라 새 세그먼트에 썼다.
+      assertEquals(2, segmentCount());
+      assertThrows(IllegalArgumentException.class, () -> journal.begin(5));
+    }
+  }
+
+  @Test
+  @DisplayName("다시 열면 온전한 마지막 레코드 다음부터 이어 쓰고, 쓰다 만 레코드는 버림")
+  void recover() throws IOException {
+    // given 어떤 데이터가 있을때
+    try (LedgerJournal journal = LedgerJournal.open(directory, SEGMENT_SIZE, 0)) {
+      for (int i = 1; i <= 6; i++) {
+        journal.begin(1);
+        journal.append(transaction(i));
+        journal.commit();
+      }
+    }
+    // 6번 레코드의 본문을 깨뜨린다. (쓰다가 죽은 상황)
+    Path lastSegment = segments().get(segments().size() - 1);
+    try (FileChannel channel = FileChannel.open(lastSegment, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), JournalRecord.SIZE + 20);
+    }
+
+    // when 어떤 동작을 하면
+    try (LedgerJournal journal = LedgerJournal.open(directory, SEGMENT_SIZE, 0)) {
+      assertEquals(5, journal.getWrittenSequence());
+      journal.begin(1);
+      long sequence = journal.append(transaction(7));
+      journal.commit();
+
+      // then 어떤 결과가 나와야 한다
+      assertEquals(6, sequence);
+      assertEquals("0000000000000007", journal.read(6, 1).get(0).getTransactionId());
+      assertEquals(5, journal.read(1, 5).size());
+    }
+  }
+
+  @Test
+  @DisplayName("반영이 끝난 세그먼트만 지우고 쓰고 있는 세그먼트는 남김")
+  void deleteProjectedSegments() {
+    // given 어떤 데이터가 있을때
+    try (LedgerJournal journal = LedgerJournal.open(directory, SEGMENT_SIZE, 0)) {
+      for (int i = 1; i <= 10; i++) {
+        journal.begin(1);
+        journal.append(transaction(i));
+        journal.commit();
+      }
+      journal.read(1, 2);
+
+      // when 어떤 동작을 하면
+      journal.deleteSegmentsUpTo(7);
+      int afterFirstDelete = segmentCount();
+      journal.deleteSegmentsUpTo(10);
+
+      // then 어떤 결과가 나와야 한다
+      assertEquals(2, afterFirstDelete);
+      assertEquals(1, segmentCount());
+      assertEquals(10, journal.read(9, 10).get(1).getSequence());
+    }
+  }
+
+  private static Transaction transaction(long index) {
+    return Transaction.builder()
+        .account(Account.builder().id(index).build())
+        .transactionType(index % 4 == 0 ? CANSLE : USE)
+        .amount(index * 100)
+        .balanceSnapshot(1000 - index * 100)
+        .transactionId(String.format("%016x", index))
+        .transactedAt(NOW)
+        .build();
+  }
+
+  private int segmentCount() {
+    return segments().size();
+  }
+
+  private List<Path> segments() {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.sorted().collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
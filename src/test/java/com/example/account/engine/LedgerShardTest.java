@@ -0,0 +1,403 @@
+package com.example.account.engine;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.service.TransactionIdGenerator;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.account.type.AccountStatus.IN_USE;
+import static com.example.account.type.AccountStatus.UNREGISTERED;
+import static com.example.account.type.TransactionType.CANSLE;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerShardTest {
+  private static final String ACCOUNT_NUMBER = "1000000012";
+
+  @Mock
+  private LedgerPersister ledgerPersister;
+
+  private final AtomicLong transactionIds = new AtomicLong();
+  private final TransactionIdGenerator transactionIdGenerator =
+      () -> String.format("%016x", transactionIds.incrementAndGet());
+
+  private LedgerShard shard;
+
+  @BeforeEach
+  void setUp() {
+    shard = new LedgerShard(0, ledgerPersister, transactionIdGenerator, 2, null);
+  }
+
+  @Test
+  @DisplayName("잔액 사용 성공 - 배치 끝에서 바뀐 계좌와 거래를 기록하고 응답")
+  void useBalanceSuccess() throws Exception {
+    // given 어떤 데이터가 있을때
+    Account account = account(12L, IN_USE, 1000L);
+    given(ledgerPersister.existsUser(12L)).willReturn(true);
+    given(ledgerPersister.findAccount(ACCOUNT_NUMBER)).willReturn(Optional.of(account));
+    List<Integer> persisted = capturePersistedSizes();
+
+    // when 어떤 동작을 하면
+    CompletableFuture<TransactionDto> first = use(12L, 200L, false);
+    CompletableFuture<TransactionDto> second = use(12L, 300L, true);
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(800L, first.get().getBalanceSnapshot());
+    assertEquals(500L, second.get().getBalanceSnapshot());
+    assertEquals(USE, second.get().getTransactionType());
+    assertEquals(500L, account.getBalance());
+    // 계좌 1개, 거래 2건을 한번에
+    assertEquals(List.of(1, 2), persisted);
+    verify(ledgerPersister, times(1)).findAccount(ACCOUNT_NUMBER);
+  }
+
+  @Test
+  @DisplayName("잔액 사용 실패 - 사용자 없음")
+  void useBalanceUserNotFound() {
+    // given 어떤 데이터가 있을때
+    given(ledgerPersister.existsUser(12L)).willReturn(false);
+
+    // when 어떤 동작을 하면
+    CompletableFuture<TransactionDto> result = use(12L, 200L, true);
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(ErrorCode.USER_NOT_FOUND, errorCodeOf(result));
+    verify(ledgerPersister, never()).findAccount(any());
+    verify(ledgerPersister, never()).persist(anyCollection(), anyList());
+  }
+
+  @Test
+  @DisplayName("잔액 사용 실패 - 계좌 없음")
+  void useBalanceAccountNotFound() {
+    // given 어떤 데이터가 있을때
+    given(ledgerPersister.existsUser(12L)).willReturn(true);
+    given(ledgerPersister.findAccount(ACCOUNT_NUMBER)).willReturn(Optional.empty());
+
+    // when 어떤 동작을 하면
+    CompletableFuture<TransactionDto> result = use(12L, 200L, true);
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, errorCodeOf(result));
+  }
+
+  @Test
+  @DisplayName("잔액 사용 실패 - 사용자와 계좌 소유주가 다름")
+  void useBalanceUserUnmatched() {
+    // given 어떤 데이터가 있을때
+    given(ledgerPersister.existsUser(13L)).willReturn(true);
+    given(ledgerPersister.findAccount(ACCOUNT_NUMBER)).willReturn(Optional.of(account(12L, IN_USE, 1000L)));
+
+    // when 어떤 동작을 하면
+    CompletableFuture<TransactionDto> result = use(13L, 200L, true);
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(ErrorCode.USER_ACCOUNT_UNMATCHED, errorCodeOf(result));
+  }
+
+  @Test
+  @DisplayName("잔액 사용 실패 - 해지된 계좌")
+  void useBalanceAlreadyUnregistered() {
+    // given 어떤 데이터가 있을때
+    given(ledgerPersister.existsUser(12L)).willReturn(true);
+    given(ledgerPersister.findAccount(ACCOUNT_NUMBER)).willReturn(Optional.of(account(12L, UNREGISTERED, 0L)));
+
+    // when 어떤 동작을 하면
+    CompletableFuture<TransactionDto> result = use(12L, 200L, true);
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED, errorCodeOf(result));
+  }
+
+  @Test
+  @DisplayName("잔액 사용 실패 - 잔액보다 큰 금액, 잔액은 그대로")
+  void useBalanceExceedBalance() {
+    // given 어떤 데이터가 있을때
+    Account account = account(12L, IN_USE, 100L);
+    given(ledgerPersister.existsUser(12L)).willReturn(true);
+    given(ledgerPersister.findAccount(ACCOUNT_NUMBER)).willReturn(Optional.of(account));
+
+    // when 어떤 동작을 하면
+    CompletableFuture<TransactionDto> result = use(12L, 200L, true);
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, errorCodeOf(result));
+    assertEquals(100L, account.getBalance());
+    verify(ledgerPersister, never()).persist(anyCollection(), anyList());
+  }
+
+  @Test
+  @DisplayName("잔액 사용 취소 성공")
+  void cancelBalanceSuccess() throws Exception {
+    // given 어떤 데이터가 있을때
+    Account account = account(12L, IN_USE, 800L);
+    given(ledgerPersister.findTransaction("transactionId"))
+        .willReturn(Optional.of(transaction(account, 200L, LocalDateTime.now())));
+    given(ledgerPersister.findAccount(ACCOUNT_NUMBER)).willReturn(Optional.of(account));
+
+    // when 어떤 동작을 하면
+    CompletableFuture<TransactionDto> result = cancel("transactionId", 200L);
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(CANSLE, result.get().getTransactionType());
+    assertEquals(1000L, result.get().getBalanceSnapshot());
+    verify(ledgerPersister).persist(anyCollection(), anyList());
+  }
+
+  @Test
+  @DisplayName("잔액 사용 취소 실패 - 원 거래 없음")
+  void cancelBalanceTransactionNotFound() {
+    // given 어떤 데이터가 있을때
+    given(ledgerPersister.findTransaction("transactionId")).willReturn(Optional.empty());
+
+    // when 어떤 동작을 하면
+    CompletableFuture<TransactionDto> result = cancel("transactionId", 200L);
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(ErrorCode.TRANSACTION_NOT_FOUND, errorCodeOf(result));
+  }
+
+  @Test
+  @DisplayName("잔액 사용 취소 실패 - 원 거래의 계좌가 다름")
+  void cancelBalanceTransactionAccountUnmatched() {
+    // given 어떤 데이터가 있을때
+    Account other = account(12L, IN_USE, 0L);
+    other.setId(2L);
+    other.setAccountNumber("1000000013");
+    given(ledgerPersister.findTransaction("transactionId"))
+        .willReturn(Optional.of(transaction(other, 200L, LocalDateTime.now())));
+    given(ledgerPersister.findAccount(ACCOUNT_NUMBER)).willReturn(Optional.of(account(12L, IN_USE, 800L)));
+
+    // when 어떤 동작을 하면
+    CompletableFuture<TransactionDto> result = cancel("transactionId", 200L);
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(ErrorCode.TRANSACTION_ACCOUNT_UNMATCHED, errorCodeOf(result));
+  }
+
+  @Test
+  @DisplayName("잔액 사용 취소 실패 - 부분 취소 불가")
+  void cancelBalanceMustFully() {
+    // given 어떤 데이터가 있을때
+    Account account = account(12L, IN_USE, 800L);
+    given(ledgerPersister.findTransaction("transactionId"))
+        .willReturn(Optional.of(transaction(account, 200L, LocalDateTime.now())));
+    given(ledgerPersister.findAccount(ACCOUNT_NUMBER)).willReturn(Optional.of(account));
+
+    // when 어떤 동작을 하면
+    CompletableFuture<TransactionDto> result = cancel("transactionId", 100L);
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(ErrorCode.CANCEL_MUST_FULLY, errorCodeOf(result));
+  }
+
+  @Test
+  @DisplayName("잔액 사용 취소 실패 - 1년이 넘은 거래")
+  void cancelBalanceTooOld() {
+    // given 어떤 데이터가 있을때
+    Account account = account(12L, IN_USE, 800L);
+    given(ledgerPersister.findTransaction("transactionId"))
+        .willReturn(Optional.of(transaction(account, 200L, LocalDateTime.now().minusYears(1).minusDays(1))));
+    given(ledgerPersister.findAccount(ACCOUNT_NUMBER)).willReturn(Optional.of(account));
+
+    // when 어떤 동작을 하면
+    CompletableFuture<TransactionDto> result = cancel("transactionId", 200L);
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(ErrorCode.TOO_OLD_ORDER_TO_CANCEL, errorCodeOf(result));
+  }
+
+  @Test
+  @DisplayName("기록 실패 - 배치 전체가 실패하고 메모리 잔액은 배치 전으로 돌아감")
+  void persistFailedRollsBackBalances() throws Exception {
+    // given 어떤 데이터가 있을때
+    Account account = account(12L, IN_USE, 1000L);
+    given(ledgerPersister.existsUser(12L)).willReturn(true);
+    given(ledgerPersister.findAccount(ACCOUNT_NUMBER)).willReturn(Optional.of(account));
+    doThrow(new IllegalStateException("Account 1 is no longer in use"))
+        .doNothing()
+        .when(ledgerPersister).persist(anyCollection(), anyList());
+
+    // when 어떤 동작을 하면
+    CompletableFuture<TransactionDto> first = use(12L, 300L, false);
+    CompletableFuture<TransactionDto> second = use(12L, 200L, true);
+
+    // then 어떤 결과가 나와야 한다
+    assertTrue(first.isCompletedExceptionally());
+    assertTrue(second.isCompletedExceptionally());
+    assertEquals(1000L, account.getBalance());
+    // 되돌린 잔액 기준으로 다음 배치가 처리된다.
+    assertEquals(0L, use(12L, 1000L, true).get().getBalanceSnapshot());
+  }
+
+  @Test
+  @DisplayName("배치가 끝나지 않아도 maxBatchSize 만큼 쌓이면 기록")
+  void flushAtMaxBatchSize() {
+    // given 어떤 데이터가 있을때
+    given(ledgerPersister.existsUser(12L)).willReturn(true);
+    given(ledgerPersister.findAccount(ACCOUNT_NUMBER)).willReturn(Optional.of(account(12L, IN_USE, 1000L)));
+    List<Integer> persisted = capturePersistedSizes();
+
+    // when 어떤 동작을 하면
+    CompletableFuture<TransactionDto> first = use(12L, 100L, false);
+    CompletableFuture<TransactionDto> second = use(12L, 100L, false);
+    CompletableFuture<TransactionDto> third = use(12L, 100L, false);
+
+    // then 어떤 결과가 나와야 한다
+    assertTrue(first.isDone());
+    assertTrue(second.isDone());
+    assertFalse(third.isDone());
+    assertEquals(List.of(1, 2), persisted);
+  }
+
+  @Test
+  @DisplayName("계좌 상태 변경 알림 - 상태만 다시 읽고 이후 요청은 해지된 계좌로 실패")
+  void accountChangedRefreshesStatus() {
+    // given 어떤 데이터가 있을때
+    Account account = account(12L, IN_USE, 1000L);
+    given(ledgerPersister.existsUser(12L)).willReturn(true);
+    given(ledgerPersister.findAccount(ACCOUNT_NUMBER))
+        .willReturn(Optional.of(account))
+        .willReturn(Optional.of(account(12L, UNREGISTERED, 0L)));
+    use(12L, 100L, false);
+
+    // when 어떤 동작을 하면
+    LedgerCommand command = new LedgerCommand();
+    command.setAccountChanged(ACCOUNT_NUMBER);
+    shard.onEvent(command, 0, false);
+    CompletableFuture<TransactionDto> result = use(12L, 100L, true);
+
+    // then 어떤 결과가 나와야 한다
+    // 알림 전에 쌓인 건은 먼저 기록된다.
+    verify(ledgerPersister, times(1)).persist(anyCollection(), anyList());
+    assertEquals(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED, errorCodeOf(result));
+    assertEquals(UNREGISTERED, account.getAccountStatus());
+    assertEquals(900L, account.getBalance());
+  }
+
+  @Test
+  @DisplayName("기다리던 쪽이 먼저 취소한 명령은 적용하지 않음")
+  void skipsCancelledCommand() throws Exception {
+    // given 어떤 데이터가 있을때
+    Account account = account(12L, IN_USE, 1000L);
+    given(ledgerPersister.existsUser(12L)).willReturn(true);
+    given(ledgerPersister.findAccount(ACCOUNT_NUMBER)).willReturn(Optional.of(account));
+    LedgerResult cancelled = new LedgerResult();
+    assertTrue(cancelled.tryCancel());
+
+    // when 어떤 동작을 하면
+    LedgerCommand command = new LedgerCommand();
+    command.set(USE, 12L, null, ACCOUNT_NUMBER, 300L, cancelled);
+    shard.onEvent(command, 0, false);
+    LedgerResult result = use(12L, 200L, true);
+
+    // then 어떤 결과가 나와야 한다
+    assertTrue(cancelled.isCancelled());
+    assertEquals(800L, result.get().getBalanceSnapshot());
+    assertEquals(800L, account.getBalance());
+    // 적용을 시작한 명령은 더 이상 취소할 수 없다.
+    assertFalse(result.tryCancel());
+  }
+
+  @Test
+  @DisplayName("저널 모드 - DB 에 반영되기 전까지 계좌에 반영되지 않은 거래가 있다고 알려줌")
+  void hasUnprojectedInJournalMode(@TempDir Path directory) throws Exception {
+    // given 어떤 데이터가 있을때
+    Account account = account(12L, IN_USE, 1000L);
+    given(ledgerPersister.existsUser(12L)).willReturn(true);
+    given(ledgerPersister.findAccount(ACCOUNT_NUMBER)).willReturn(Optional.of(account));
+
+    try (LedgerJournal journal = LedgerJournal.open(directory, JournalRecord.SIZE * 4, 0)) {
+      shard = new LedgerShard(0, ledgerPersister, transactionIdGenerator, 2, journal);
+
+      // when 어떤 동작을 하면
+      use(12L, 200L, true).get();
+      boolean beforeProjection = shard.hasUnprojected(ACCOUNT_NUMBER);
+      journal.setProjectedSequence(journal.getWrittenSequence());
+
+      // then 어떤 결과가 나와야 한다
+      assertTrue(beforeProjection);
+      assertFalse(shard.hasUnprojected(ACCOUNT_NUMBER));
+      assertFalse(shard.hasUnprojected("9999999999"));
+      verify(ledgerPersister, never()).persist(anyCollection(), anyList());
+    }
+  }
+
+  // persist 에 넘긴 컬렉션은 샤드가 다시 쓰므로 부르는 시점의 크기를 남겨둔다. (계좌 수, 거래 수)
+  private List<Integer> capturePersistedSizes() {
+    List<Integer> sizes = new ArrayList<>();
+    doAnswer(invocation -> {
+      sizes.add(invocation.<Collection<Account>>getArgument(0).size());
+      sizes.add(invocation.<List<Transaction>>getArgument(1).size());
+      return null;
+    }).when(ledgerPersister).persist(anyCollection(), anyList());
+    return sizes;
+  }
+
+  private LedgerResult use(Long userId, Long amount, boolean endOfBatch) {
+    LedgerResult result = new LedgerResult();
+    LedgerCommand command = new LedgerCommand();
+    command.set(USE, userId, null, ACCOUNT_NUMBER, amount, result);
+    shard.onEvent(command, 0, endOfBatch);
+    return result;
+  }
+
+  private LedgerResult cancel(String transactionId, Long amount) {
+    LedgerResult result = new LedgerResult();
+    LedgerCommand command = new LedgerCommand();
+    command.set(CANSLE, null, transactionId, ACCOUNT_NUMBER, amount, result);
+    shard.onEvent(command, 0, true);
+    return result;
+  }
+
+  private static ErrorCode errorCodeOf(CompletableFuture<TransactionDto> result) {
+    ExecutionException exception = assertThrows(ExecutionException.class, result::get);
+    return ((AccountException) exception.getCause()).getErrorCode();
+  }
+
+  private static Account account(Long userId, AccountStatus accountStatus, Long balance) {
+    return Account.builder()
+        .id(1L)
+        .accountUser(AccountUser.builder().id(userId).name("Pobi").build())
+        .accountNumber(ACCOUNT_NUMBER)
+        .accountStatus(accountStatus)
+        .balance(balance)
+        .build();
+  }
+
+  private static Transaction transaction(Account account, Long amount, LocalDateTime transactedAt) {
+    return Transaction.builder()
+        .account(account)
+        .transactionType(USE)
+        .amount(amount)
+        .transactionId("transactionId")
+        .transactedAt(transactedAt)
+        .build();
+  }
+}
@@ -0,0 +1,59 @@
+package com.example.account.profile;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestProfilerTest {
+
+  @AfterEach
+  void tearDown() {
+    RequestProfiler.finish();
+  }
+
+  @Test
+  @DisplayName("열고 닫은 구간이 현재 구간의 자식으로 쌓임")
+  void spanTree() {
+    // given 어떤 데이터가 있을때
+    RequestProfiler.start("POST /transaction/use");
+
+    // when 어떤 동작을 하면
+    RequestProfiler.enter("TransactionService.useBalance");
+    RequestProfiler.enter("AccountUserRepository.findById");
+    RequestProfiler.addStatement(1_000_000L);
+    RequestProfiler.exit();
+    long commitStart = System.nanoTime();
+    RequestProfiler.record("commit", commitStart, commitStart + 2_000_000L);
+    RequestProfiler.exit();
+    RequestProfile profile = RequestProfiler.finish();
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals("POST /transaction/use", profile.getName());
+    ProfileSpan service = profile.getRoot().getChildren().get(0);
+    assertEquals("TransactionService.useBalance", service.getName());
+    assertEquals(2, service.getChildren().size());
+    ProfileSpan repository = service.getChildren().get(0);
+    assertEquals("AccountUserRepository.findById", repository.getName());
+    assertEquals(1, repository.getStatements());
+    assertEquals(1.0, repository.getStatementMs());
+    assertEquals("commit", service.getChildren().get(1).getName());
+    assertEquals(2.0, service.getChildren().get(1).getDurationMs());
+    assertFalse(RequestProfiler.isActive());
+  }
+
+  @Test
+  @DisplayName("요청 밖에서는 아무것도 남기지 않음")
+  void inactive() {
+    // given 어떤 데이터가 있을때
+    // when 어떤 동작을 하면
+    RequestProfiler.enter("TransactionService.useBalance");
+    RequestProfiler.addStatement(1_000_000L);
+    RequestProfiler.exit();
+
+    // then 어떤 결과가 나와야 한다
+    assertFalse(RequestProfiler.isActive());
+    assertNull(RequestProfiler.finish());
+  }
+}
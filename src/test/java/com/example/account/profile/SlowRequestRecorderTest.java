@@ -0,0 +1,60 @@
+package com.example.account.profile;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SlowRequestRecorderTest {
+
+  @Test
+  @DisplayName("가장 느린 N 개만 느린 순서로 남김")
+  void keepSlowest() {
+    // given 어떤 데이터가 있을때
+    SlowRequestRecorder recorder = new SlowRequestRecorder(3);
+
+    // when 어떤 동작을 하면
+    for (long durationMs : new long[]{5, 1, 9, 3, 7, 2}) {
+      recorder.offer(profile(durationMs));
+    }
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(List.of(9.0, 7.0, 5.0), durations(recorder.snapshot()));
+  }
+
+  @Test
+  @DisplayName("여러 스레드가 동시에 넣어도 가장 느린 N 개가 남음")
+  void concurrentOffer() throws InterruptedException {
+    // given 어떤 데이터가 있을때
+    SlowRequestRecorder recorder = new SlowRequestRecorder(5);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    // when 어떤 동작을 하면
+    for (int i = 1; i <= 1000; i++) {
+      long durationMs = i;
+      executor.execute(() -> recorder.offer(profile(durationMs)));
+    }
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(List.of(1000.0, 999.0, 998.0, 997.0, 996.0), durations(recorder.snapshot()));
+  }
+
+  private static RequestProfile profile(long durationMs) {
+    ProfileSpan root = new ProfileSpan("GET /account", 0);
+    root.end(TimeUnit.MILLISECONDS.toNanos(durationMs));
+    return new RequestProfile("GET /account", LocalDateTime.now(), root);
+  }
+
+  private static List<Double> durations(List<RequestProfile> profiles) {
+    return profiles.stream().map(RequestProfile::getDurationMs).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,127 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RLocalCachedMap;
+import org.redisson.api.RedissonClient;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.example.account.type.AccountStatus.IN_USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountCacheTest {
+  @Mock
+  private RedissonClient redissonClient;
+
+  @Mock
+  private RLocalCachedMap<String, AccountCache.CachedAccount> cache;
+
+  private final Map<String, AccountCache.CachedAccount> localCache = new HashMap<>();
+  private MeterRegistry meterRegistry;
+  private AccountCache accountCache;
+
+  @BeforeEach
+  void setUp() {
+    given(redissonClient.<String, AccountCache.CachedAccount>getLocalCachedMap(
+        anyString(), any()))
+        .willReturn(cache);
+    lenient().when(cache.getCachedMap()).thenReturn(localCache);
+    meterRegistry = new SimpleMeterRegistry();
+    accountCache = new AccountCache(redissonClient, meterRegistry, 1, 60_000L);
+  }
+
+  @Test
+  @DisplayName("로컬 캐시 적중")
+  void localHit() {
+    // given 어떤 데이터가 있을때
+    AccountCache.CachedAccount cachedAccount = new AccountCache.CachedAccount(7L, 12L, IN_USE);
+    localCache.put("1000000012", cachedAccount);
+    given(cache.get("1000000012")).willReturn(cachedAccount);
+
+    // when 어떤 동작을 하면
+    Optional<AccountCache.CachedAccount> found = accountCache.get("1000000012");
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(7L, found.get().getId());
+    assertEquals(12L, found.get().getAccountUserId());
+    assertEquals(IN_USE, found.get().getAccountStatus());
+    assertEquals(1.0, meterRegistry.get("account.cache.requests")
+        .tag("result", "local_hit").counter().count());
+  }
+
+  @Test
+  @DisplayName("캐시에 없으면 miss, 로컬이 꽉 찬 상태에서 넣으면 eviction")
+  void missAndEviction() {
+    // given 어떤 데이터가 있을때
+    localCache.put("1000000013", new AccountCache.CachedAccount(8L, 12L, IN_USE));
+    Account account = Account.builder()
+        .id(7L)
+        .accountUser(AccountUser.builder().id(12L).build())
+        .accountStatus(IN_USE)
+        .accountNumber("1000000012")
+        .build();
+
+    // when 어떤 동작을 하면
+    Optional<AccountCache.CachedAccount> found = accountCache.get("1000000012");
+    accountCache.put(account);
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(Optional.empty(), found);
+    ArgumentCaptor<AccountCache.CachedAccount> captor = ArgumentCaptor.forClass(AccountCache.CachedAccount.class);
+    verify(cache).fastPut(eq("1000000012"), captor.capture());
+    assertEquals(7L, captor.getValue().getId());
+    assertEquals(12L, captor.getValue().getAccountUserId());
+    assertEquals(IN_USE, captor.getValue().getAccountStatus());
+    assertEquals(1.0, meterRegistry.get("account.cache.requests")
+        .tag("result", "miss").counter().count());
+    assertEquals(1.0, meterRegistry.get("account.cache.local.evictions").counter().count());
+  }
+
+  @Test
+  @DisplayName("evict - 트랜잭션 안이면 커밋된 뒤에 리스너에 알린다")
+  void evictNotifiesListenerAfterCommit() {
+    // given 어떤 데이터가 있을때
+    List<String> notified = new ArrayList<>();
+    accountCache.addEvictionListener(notified::add);
+    TransactionSynchronizationManager.initSynchronization();
+
+    try {
+      // when 어떤 동작을 하면
+      accountCache.evict("1000000012");
+
+      // then 어떤 결과가 나와야 한다
+      verify(cache).fastRemove("1000000012");
+      assertTrue(notified.isEmpty());
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(TransactionSynchronization::afterCommit);
+      assertEquals(Collections.singletonList("1000000012"), notified);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+}
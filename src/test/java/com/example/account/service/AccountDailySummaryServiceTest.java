@@ -0,0 +1,166 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountDailySummary;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountDailySummaryDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountDailySummaryRepository;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static com.example.account.type.AccountStatus.IN_USE;
+import static com.example.account.type.TransactionResultType.F;
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANSLE;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountDailySummaryServiceTest {
+  private static final LocalDateTime NOON = LocalDateTime.of(2023, 7, 1, 12, 0);
+
+  @Mock
+  private AccountDailySummaryRepository accountDailySummaryRepository;
+
+  @Mock
+  private AccountRepository accountRepository;
+
+  @Mock
+  private AccountCache accountCache;
+
+  @InjectMocks
+  private AccountDailySummaryService accountDailySummaryService;
+
+  @Test
+  @DisplayName("여러 거래는 요약 행 단위로 합쳐서 MERGE")
+  void recordTransactions() {
+    // given 어떤 데이터가 있을때
+    Account account = Account.builder().id(1L).build();
+
+    // when 어떤 동작을 하면
+    accountDailySummaryService.record(Arrays.asList(
+        transaction(account, USE, S, 100L, 900L, NOON.plusMinutes(1)),
+        transaction(account, USE, S, 200L, 700L, NOON.plusMinutes(2)),
+        transaction(account, USE, F, 5000L, 700L, NOON),
+        transaction(account, USE, S, 300L, 400L, NOON.plusDays(1))));
+
+    // then 어떤 결과가 나와야 한다
+    verify(accountDailySummaryRepository).add(1L, NOON.toLocalDate(), "USE", "S",
+        2, 300L, 700L, NOON.plusMinutes(2));
+    verify(accountDailySummaryRepository).add(1L, NOON.toLocalDate(), "USE", "F",
+        1, 5000L, 700L, NOON);
+    verify(accountDailySummaryRepository).add(1L, NOON.toLocalDate().plusDays(1), "USE", "S",
+        1, 300L, 400L, NOON.plusDays(1));
+    verifyNoMoreInteractions(accountDailySummaryRepository);
+  }
+
+  @Test
+  @DisplayName("기간 조회 - 날짜별로 묶고 마지막 거래의 잔액을 그날 잔액으로")
+  void getDailySummaries() {
+    // given 어떤 데이터가 있을때
+    LocalDate day = NOON.toLocalDate();
+    given(accountCache.get("1000000000"))
+        .willReturn(Optional.of(new AccountCache.CachedAccount(1L, 12L, IN_USE)));
+    given(accountDailySummaryRepository.findByAccountIdAndSummaryDateBetweenOrderBySummaryDate(
+        1L, day, day.plusDays(6)))
+        .willReturn(Arrays.asList(
+            summary(day, USE, S, 2, 300L, 700L, NOON.plusMinutes(2)),
+            summary(day, CANSLE, S, 1, 100L, 800L, NOON.plusMinutes(3)),
+            summary(day.plusDays(2), USE, S, 1, 800L, 0L, NOON.plusDays(2))));
+
+    // when 어떤 동작을 하면
+    AccountDailySummaryDto.Response response =
+        accountDailySummaryService.getDailySummaries("1000000000", day, day.plusDays(6));
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(2, response.getDays().size());
+    assertEquals(day, response.getDays().get(0).getDate());
+    assertEquals(800L, response.getDays().get(0).getClosingBalance());
+    assertEquals(2, response.getDays().get(0).getItems().size());
+    assertEquals(2, response.getDays().get(0).getItems().get(0).getCount());
+    assertEquals(300L, response.getDays().get(0).getItems().get(0).getAmount());
+    assertEquals(day.plusDays(2), response.getDays().get(1).getDate());
+    assertEquals(0L, response.getDays().get(1).getClosingBalance());
+  }
+
+  @Test
+  @DisplayName("기간 조회 실패 - 시작일이 종료일보다 늦거나 기간이 너무 김")
+  void getDailySummaries_InvalidRange() {
+    // given 어떤 데이터가 있을때
+    LocalDate day = NOON.toLocalDate();
+
+    // when 어떤 동작을 하면
+    AccountException reversed = assertThrows(AccountException.class,
+        () -> accountDailySummaryService.getDailySummaries("1000000000", day, day.minusDays(1)));
+    AccountException tooLong = assertThrows(AccountException.class,
+        () -> accountDailySummaryService.getDailySummaries("1000000000", day, day.plusYears(2)));
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(ErrorCode.INVALID_DATE_RANGE, reversed.getErrorCode());
+    assertEquals(ErrorCode.INVALID_DATE_RANGE, tooLong.getErrorCode());
+    verify(accountDailySummaryRepository, never())
+        .findByAccountIdAndSummaryDateBetweenOrderBySummaryDate(anyLong(), any(), any());
+  }
+
+  @Test
+  @DisplayName("기간 조회 실패 - 계좌 없음")
+  void getDailySummaries_AccountNotFound() {
+    // given 어떤 데이터가 있을때
+    LocalDate day = NOON.toLocalDate();
+    given(accountCache.get("1000000000")).willReturn(Optional.empty());
+    given(accountRepository.findByAccountNumber("1000000000")).willReturn(Optional.empty());
+
+    // when 어떤 동작을 하면
+    AccountException exception = assertThrows(AccountException.class,
+        () -> accountDailySummaryService.getDailySummaries("1000000000", day, day));
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, exception.getErrorCode());
+  }
+
+  private static Transaction transaction(Account account, TransactionType type, TransactionResultType result,
+                                         Long amount, Long balance, LocalDateTime transactedAt) {
+    return Transaction.builder()
+        .account(account)
+        .transactionType(type)
+        .transactionResultType(result)
+        .amount(amount)
+        .balanceSnapshot(balance)
+        .transactedAt(transactedAt)
+        .build();
+  }
+
+  private static AccountDailySummary summary(LocalDate date, TransactionType type, TransactionResultType result,
+                                             long count, long amount, Long closingBalance,
+                                             LocalDateTime lastTransactedAt) {
+    return AccountDailySummary.builder()
+        .accountId(1L)
+        .summaryDate(date)
+        .transactionType(type)
+        .transactionResultType(result)
+        .transactionCount(count)
+        .amountSum(amount)
+        .closingBalance(closingBalance)
+        .lastTransactedAt(lastTransactedAt)
+        .build();
+  }
+}
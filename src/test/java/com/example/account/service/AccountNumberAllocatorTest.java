@@ -0,0 +1,136 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RedissonClient;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountNumberAllocatorTest {
+  private static final int BLOCK_SIZE = 3;
+
+  @Mock
+  private RedissonClient redissonClient;
+
+  @Mock
+  private RAtomicLong sequence;
+
+  @Mock
+  private AccountRepository accountRepository;
+
+  private AccountNumberAllocator accountNumberAllocator;
+
+  @BeforeEach
+  void setUp() {
+    accountNumberAllocator = new AccountNumberAllocator(redissonClient, accountRepository, BLOCK_SIZE);
+    given(redissonClient.getAtomicLong(anyString()))
+        .willReturn(sequence);
+  }
+
+  @Test
+  @DisplayName("첫 계좌번호 발급")
+  void firstAccountNumber() {
+    // given 어떤 데이터가 있을때
+    given(sequence.get()).willReturn(0L);
+    given(accountRepository.findMaxAccountNumber())
+        .willReturn(Optional.empty());
+    given(sequence.compareAndSet(0L, 999_999_999L)).willReturn(true);
+    given(sequence.addAndGet(BLOCK_SIZE)).willReturn(1_000_000_002L);
+
+    // when 어떤 동작을 하면
+    String accountNumber = accountNumberAllocator.nextAccountNumber();
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals("1000000000", accountNumber);
+  }
+
+  @Test
+  @DisplayName("Redis 시퀀스가 없으면 DB 의 가장 큰 계좌번호부터 이어서 발급")
+  void continueFromLastAccountNumber() {
+    // given 어떤 데이터가 있을때
+    given(sequence.get()).willReturn(0L);
+    given(accountRepository.findMaxAccountNumber())
+        .willReturn(Optional.of("1000000012"));
+    given(sequence.compareAndSet(0L, 1_000_000_012L)).willReturn(true);
+    given(sequence.addAndGet(BLOCK_SIZE)).willReturn(1_000_000_015L);
+
+    // when 어떤 동작을 하면
+    String accountNumber = accountNumberAllocator.nextAccountNumber();
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals("1000000013", accountNumber);
+  }
+
+  @Test
+  @DisplayName("빌려온 구간을 다 쓰기 전까지는 Redis 에 가지 않음")
+  void issueFromLeasedBlock() {
+    // given 어떤 데이터가 있을때
+    given(sequence.get()).willReturn(1_000_000_099L);
+    given(sequence.addAndGet(BLOCK_SIZE))
+        .willReturn(1_000_000_102L, 1_000_000_105L);
+
+    // when 어떤 동작을 하면
+    String first = accountNumberAllocator.nextAccountNumber();
+    String second = accountNumberAllocator.nextAccountNumber();
+    String third = accountNumberAllocator.nextAccountNumber();
+    String fourth = accountNumberAllocator.nextAccountNumber();
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals("1000000100", first);
+    assertEquals("1000000101", second);
+    assertEquals("1000000102", third);
+    assertEquals("1000000103", fourth);
+    verify(sequence, times(2)).addAndGet(BLOCK_SIZE);
+    verify(accountRepository, never()).findMaxAccountNumber();
+  }
+
+  @Test
+  @DisplayName("일괄 발급은 요청한 개수만큼 연속된 구간을 따로 빌린다")
+  void allocateRange() {
+    // given 어떤 데이터가 있을때
+    given(sequence.get()).willReturn(1_000_000_099L);
+    given(sequence.addAndGet(BLOCK_SIZE)).willReturn(1_000_000_102L);
+    given(sequence.addAndGet(500)).willReturn(1_000_000_602L);
+
+    // when 어떤 동작을 하면
+    String first = accountNumberAllocator.nextAccountNumber();
+    long rangeStart = accountNumberAllocator.allocateRange(500);
+    String second = accountNumberAllocator.nextAccountNumber();
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals("1000000100", first);
+    assertEquals(1_000_000_103L, rangeStart);
+    assertEquals("1000000101", second);
+  }
+
+  @Test
+  @DisplayName("10자리를 넘어가면 발급 실패")
+  void accountNumberExhausted() {
+    // given 어떤 데이터가 있을때
+    given(sequence.get()).willReturn(9_999_999_999L);
+    given(sequence.addAndGet(anyLong())).willReturn(10_000_000_002L);
+
+    // when 어떤 동작을 하면
+    AccountException exception = assertThrows(AccountException.class,
+        () -> accountNumberAllocator.nextAccountNumber());
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(ErrorCode.ACCOUNT_NUMBER_EXHAUSTED, exception.getErrorCode());
+  }
+}
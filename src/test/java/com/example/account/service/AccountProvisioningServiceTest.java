@@ -0,0 +1,217 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.CreateAccountBatchDto;
+import com.example.account.dto.CreateAccountDto;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountProvisioningServiceTest {
+  @Mock
+  private AccountUserRepository accountUserRepository;
+
+  @Mock
+  private AccountNumberAllocator accountNumberAllocator;
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  @Mock
+  private EntityManager entityManager;
+
+  @Captor
+  private ArgumentCaptor<List<Object[]>> rows;
+
+  private AccountProvisioningService accountProvisioningService;
+
+  @BeforeEach
+  void setUp() {
+    accountProvisioningService = new AccountProvisioningService(
+        accountUserRepository, accountNumberAllocator, jdbcTemplate);
+    ReflectionTestUtils.setField(accountProvisioningService, "entityManager", entityManager);
+  }
+
+  @Test
+  @DisplayName("일괄 생성 - 연속된 계좌번호로 저장하고 요청 순서대로 결과를 돌려준다")
+  void createAccounts() {
+    // given 어떤 데이터가 있을때
+    given(accountUserRepository.findAllById(any()))
+        .willReturn(Arrays.asList(user(1L, 3), user(2L, 0)));
+    given(jdbcTemplate.batchUpdate(anyString(), anyList()))
+        .willReturn(new int[]{1, 1});
+    given(accountNumberAllocator.allocateRange(3))
+        .willReturn(1_000_000_100L);
+    ArgumentCaptor<Account> captor = ArgumentCaptor.forClass(Account.class);
+
+    // when 어떤 동작을 하면
+    List<CreateAccountBatchDto.Item> results = accountProvisioningService.createAccounts(Arrays.asList(
+        new CreateAccountDto.Request(1L, 100L),
+        new CreateAccountDto.Request(2L, 200L),
+        new CreateAccountDto.Request(1L, 300L)));
+
+    // then 어떤 결과가 나와야 한다
+    verify(entityManager, times(3)).persist(captor.capture());
+    assertEquals("1000000100", captor.getAllValues().get(0).getAccountNumber());
+    assertEquals("1000000101", captor.getAllValues().get(1).getAccountNumber());
+    assertEquals(200L, captor.getAllValues().get(1).getBalance());
+    assertEquals("1000000102", results.get(2).getAccountNumber());
+    assertEquals(1L, results.get(2).getUserId());
+    assertNull(results.get(0).getErrorCode());
+    verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+    assertArrayEquals(new Object[]{2, 1L, 2, 10}, rows.getValue().get(0));
+    assertArrayEquals(new Object[]{1, 2L, 1, 10}, rows.getValue().get(1));
+  }
+
+  @Test
+  @DisplayName("일괄 생성 - 없는 사용자와 10개를 넘는 건은 실패, 번호는 성공할 건 수만큼만 빌린다")
+  void createAccountsPartiallyFailed() {
+    // given 어떤 데이터가 있을때
+    given(accountUserRepository.findAllById(any()))
+        .willReturn(Collections.singletonList(user(1L, 9)));
+    given(jdbcTemplate.batchUpdate(anyString(), anyList()))
+        .willReturn(new int[]{1});
+    given(accountNumberAllocator.allocateRange(1))
+        .willReturn(1_000_000_100L);
+
+    // when 어떤 동작을 하면
+    List<CreateAccountBatchDto.Item> results = accountProvisioningService.createAccounts(Arrays.asList(
+        new CreateAccountDto.Request(1L, 100L),
+        new CreateAccountDto.Request(5L, 100L),
+        new CreateAccountDto.Request(1L, 100L)));
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals("1000000100", results.get(0).getAccountNumber());
+    assertEquals(ErrorCode.USER_NOT_FOUND, results.get(1).getErrorCode());
+    assertEquals(5L, results.get(1).getUserId());
+    assertEquals(ErrorCode.MAX_ACCOUNT_PER_USER_10, results.get(2).getErrorCode());
+    verify(entityManager, times(1)).persist(any(Account.class));
+  }
+
+  @Test
+  @DisplayName("일괄 생성 - 모두 실패하면 계좌번호를 빌리지 않는다")
+  void createAccountsAllFailed() {
+    // given 어떤 데이터가 있을때
+    given(accountUserRepository.findAllById(any()))
+        .willReturn(Collections.emptyList());
+
+    // when 어떤 동작을 하면
+    List<CreateAccountBatchDto.Item> results = accountProvisioningService.createAccounts(
+        Collections.singletonList(new CreateAccountDto.Request(5L, 100L)));
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(ErrorCode.USER_NOT_FOUND, results.get(0).getErrorCode());
+    verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    verify(accountNumberAllocator, never()).allocateRange(anyInt());
+  }
+
+  @Test
+  @DisplayName("일괄 생성 - 그 사이 다른 요청이 계좌를 만들어 조건부 update 가 실패한 사용자의 건은 실패")
+  void createAccountsRacedWithSingleCreate() {
+    // given 어떤 데이터가 있을때
+    given(accountUserRepository.findAllById(any()))
+        .willReturn(Arrays.asList(user(1L, 8), user(2L, 0)));
+    given(jdbcTemplate.batchUpdate(anyString(), anyList()))
+        .willReturn(new int[]{0, 1});
+    given(accountNumberAllocator.allocateRange(1))
+        .willReturn(1_000_000_100L);
+
+    // when 어떤 동작을 하면
+    List<CreateAccountBatchDto.Item> results = accountProvisioningService.createAccounts(Arrays.asList(
+        new CreateAccountDto.Request(1L, 100L),
+        new CreateAccountDto.Request(2L, 100L),
+        new CreateAccountDto.Request(1L, 100L)));
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(ErrorCode.MAX_ACCOUNT_PER_USER_10, results.get(0).getErrorCode());
+    assertEquals("1000000100", results.get(1).getAccountNumber());
+    assertEquals(ErrorCode.MAX_ACCOUNT_PER_USER_10, results.get(2).getErrorCode());
+    verify(entityManager, times(1)).persist(any(Account.class));
+  }
+
+  @Test
+  @DisplayName("일괄 생성 - 계좌 수 update 는 요청 순서와 상관없이 사용자 id 순서로 보낸다")
+  void createAccountsUpdatesUsersInIdOrder() {
+    // given 어떤 데이터가 있을때
+    given(accountUserRepository.findAllById(any()))
+        .willReturn(Arrays.asList(user(1L, 0), user(2L, 0)));
+    given(jdbcTemplate.batchUpdate(anyString(), anyList()))
+        .willReturn(new int[]{1, 0});
+    given(accountNumberAllocator.allocateRange(1))
+        .willReturn(1_000_000_100L);
+
+    // when 어떤 동작을 하면
+    List<CreateAccountBatchDto.Item> results = accountProvisioningService.createAccounts(Arrays.asList(
+        new CreateAccountDto.Request(2L, 100L),
+        new CreateAccountDto.Request(1L, 100L)));
+
+    // then 어떤 결과가 나와야 한다
+    verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+    assertEquals(1L, rows.getValue().get(0)[1]);
+    assertEquals(2L, rows.getValue().get(1)[1]);
+    // 두번째 행(사용자 2)의 update 가 0 건
+    assertEquals(ErrorCode.MAX_ACCOUNT_PER_USER_10, results.get(0).getErrorCode());
+    assertEquals("1000000100", results.get(1).getAccountNumber());
+  }
+
+  @Test
+  @DisplayName("일괄 생성 - 일정 건수마다 영속성 컨텍스트를 비운다")
+  void createAccountsClearsPersistenceContext() {
+    // given 어떤 데이터가 있을때
+    int count = AccountProvisioningService.CLEAR_INTERVAL * 2 + 1;
+    List<AccountUser> users = new ArrayList<>();
+    List<CreateAccountDto.Request> items = new ArrayList<>();
+    int[] updated = new int[count];
+    Arrays.fill(updated, 1);
+    for (long userId = 1; userId <= count; userId++) {
+      users.add(user(userId, 0));
+      items.add(new CreateAccountDto.Request(userId, 0L));
+    }
+    given(accountUserRepository.findAllById(any()))
+        .willReturn(users);
+    given(jdbcTemplate.batchUpdate(anyString(), anyList()))
+        .willReturn(updated);
+    given(accountNumberAllocator.allocateRange(count))
+        .willReturn(1_000_000_000L);
+
+    // when 어떤 동작을 하면
+    List<CreateAccountBatchDto.Item> results = accountProvisioningService.createAccounts(items);
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(count, results.size());
+    verify(entityManager, times(count)).persist(any(Account.class));
+    verify(entityManager, times(2)).flush();
+    verify(entityManager, times(2)).clear();
+  }
+
+  private static AccountUser user(long id, int accountCount) {
+    return AccountUser.builder().id(id).name("user" + id).accountCount(accountCount).build();
+  }
+}
@@ -3,16 +3,17 @@ package com.example.account.service;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.dto.AccountDto;
+import com.example.account.engine.LedgerEngine;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -23,6 +24,7 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -35,9 +37,23 @@ class AccountServiceTest {
   @Mock
   private AccountUserRepository accountUserRepository;
 
-  @InjectMocks
+  @Mock
+  private AccountNumberAllocator accountNumberAllocator;
+
+  @Mock
+  private AccountCache accountCache;
+
+  @Mock
+  private LedgerEngine ledgerEngine;
+
   private AccountService accountService;
 
+  @BeforeEach
+  void setUp() {
+    accountService = new AccountService(accountRepository, accountUserRepository,
+        accountNumberAllocator, accountCache, Optional.of(ledgerEngine));
+  }
+
   @Test
   @DisplayName("계좌 생성 성공")
   void createAccountSuccess() {
@@ -45,11 +61,12 @@ class AccountServiceTest {
     AccountUser user = AccountUser.builder()
         .id(12L)
         .name("poby").build();
-    given(accountUserRepository.findById(anyLong()))
-        .willReturn(Optional.of(user));
-    given(accountRepository.findFirstByOrderByIdDesc())
-        .willReturn(Optional.of(Account.builder()
-            .accountNumber("100000012").build()));
+    given(accountUserRepository.incrementAccountCount(anyLong(), anyInt()))
+        .willReturn(1);
+    given(accountUserRepository.getReferenceById(anyLong()))
+        .willReturn(user);
+    given(accountNumberAllocator.nextAccountNumber())
+        .willReturn("100000013");
     given(accountRepository.save(any()))
         .willReturn(Account.builder()
             .accountUser(user).accountNumber("100000015").build());
@@ -62,6 +79,7 @@ class AccountServiceTest {
 
     // then 어떤 결과가 나와야 한다
     verify(accountRepository, times(1)).save(captor.capture());
+    verify(accountUserRepository, times(1)).incrementAccountCount(1L, 10);
     assertEquals(12L, accountDto.getUserId());
     assertEquals("100000013", captor.getValue().getAccountNumber());
   }// 계좌 생성 성공
@@ -73,10 +91,12 @@ class AccountServiceTest {
     AccountUser user = AccountUser.builder()
         .id(15L)
         .name("poby").build();
-    given(accountUserRepository.findById(anyLong()))
-        .willReturn(Optional.of(user));
-    given(accountRepository.findFirstByOrderByIdDesc())
-        .willReturn(Optional.empty());
+    given(accountUserRepository.incrementAccountCount(anyLong(), anyInt()))
+        .willReturn(1);
+    given(accountUserRepository.getReferenceById(anyLong()))
+        .willReturn(user);
+    given(accountNumberAllocator.nextAccountNumber())
+        .willReturn("1000000000");
     given(accountRepository.save(any()))
         .willReturn(Account.builder()
             .accountUser(user)
@@ -96,11 +116,10 @@ class AccountServiceTest {
   @DisplayName("해당 유저 없음 - 계좌 생성 실패")
   void createAccount_UserNotFound() {
     //given
-    AccountUser user = AccountUser.builder()
-        .id(15L)
-        .name("poby").build();
-    given(accountUserRepository.findById(anyLong()))
-        .willReturn(Optional.empty());
+    given(accountUserRepository.incrementAccountCount(anyLong(), anyInt()))
+        .willReturn(0);
+    given(accountUserRepository.existsById(anyLong()))
+        .willReturn(false);
 
 
     //when
@@ -109,19 +128,17 @@ class AccountServiceTest {
 
     //then
     assertEquals(ErrorCode.USER_NOT_FOUND, exception.getErrorCode());
+    verify(accountRepository, never()).save(any());
   }// 계좌 생성 실패
 
   @Test
   @DisplayName("유저 당 최대 계좌는 10개")
   void createAccount_maxAccountIs10() {
     // given 어떤 데이터가 있을때
-    AccountUser user = AccountUser.builder()
-        .id(15L)
-        .name("poby").build();
-    given(accountUserRepository.findById(anyLong()))
-        .willReturn(Optional.of(user));
-    given(accountRepository.countByAccountUser(any()))
-        .willReturn(10);
+    given(accountUserRepository.incrementAccountCount(anyLong(), anyInt()))
+        .willReturn(0);
+    given(accountUserRepository.existsById(anyLong()))
+        .willReturn(true);
 
     // when 어떤 동작을 하면
     AccountException exception = assertThrows(AccountException.class,
@@ -129,7 +146,7 @@ class AccountServiceTest {
 
     // then 어떤 결과가 나와야 한다
     assertEquals(ErrorCode.MAX_ACCOUNT_PER_USER_10, exception.getErrorCode());
-
+    verify(accountNumberAllocator, never()).nextAccountNumber();
 
   }// 계좌가 10개 이상은 안되요
 
@@ -159,8 +176,36 @@ class AccountServiceTest {
     assertEquals(12L, accountDto.getUserId());
     assertEquals("100000012", captor.getValue().getAccountNumber());
     assertEquals(AccountStatus.UNREGISTERED, captor.getValue().getAccountStatus());
+    verify(accountUserRepository, times(1)).decrementAccountCount(12L);
+    verify(accountCache, times(1)).evict("1234567890");
   }// 계좌 삭제 성공
 
+  @Test
+  @DisplayName("캐시에 있는 계좌는 id 로 조회")
+  void deleteAccount_CachedAccount() {
+    // given 어떤 데이터가 있을때
+    AccountUser user = AccountUser.builder()
+        .id(12L)
+        .name("poby").build();
+    given(accountUserRepository.findById(anyLong()))
+        .willReturn(Optional.of(user));
+    given(accountCache.get(anyString()))
+        .willReturn(Optional.of(new AccountCache.CachedAccount(7L, 12L, AccountStatus.IN_USE)));
+    given(accountRepository.findById(7L))
+        .willReturn(Optional.of(Account.builder()
+            .id(7L)
+            .accountUser(user)
+            .balance(0L)
+            .accountNumber("100000012").build()));
+
+    // when 어떤 동작을 하면
+    AccountDto accountDto = accountService.deleteAccount(1L, "100000012");
+
+    // then 어떤 결과가 나와야 한다
+    verify(accountRepository, never()).findByAccountNumber(anyString());
+    assertEquals("100000012", accountDto.getAccountNumber());
+  }
+
   @Test
   @DisplayName("해당 유저 없음 - 계좌 해지 실패")
   void deleteAccount_UserNotFound() {
@@ -253,6 +298,34 @@ class AccountServiceTest {
 
   }// 계좌 해지 실패 4 계좌 잔액 있음
 
+  @Test
+  @DisplayName("저널에 반영되지 않은 거래 있음 - 계좌 해지 실패")
+  void deleteAccountFailed_transactionPending() {
+    // given 어떤 데이터가 있을때
+    AccountUser poby = AccountUser.builder()
+        .id(12L)
+        .name("poby").build();
+    given(accountUserRepository.findById(anyLong()))
+        .willReturn(Optional.of(poby));
+    given(accountRepository.findByAccountNumber(anyString()))
+        .willReturn(Optional.of(Account.builder()
+            .accountUser(poby)
+            .accountStatus(AccountStatus.IN_USE)
+            .balance(0L)
+            .accountNumber("1234567890").build()));
+    given(ledgerEngine.hasUnprojectedTransactions("1234567890"))
+        .willReturn(true);
+
+    // when 어떤 동작을 하면
+    AccountException exception = assertThrows(AccountException.class,
+        () -> accountService.deleteAccount(1L, "1234567890"));
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(ErrorCode.ACCOUNT_TRANSACTION_PENDING, exception.getErrorCode());
+    verify(accountRepository, never()).save(any());
+    verify(accountCache, never()).evict(anyString());
+  }// 계좌 해지 실패 6 반영 중인 거래 있음
+
   @Test
   @DisplayName("계좌 이미 없음 - 계좌 해지 실패")
   void deleteAccountFailed_alreadyUnregistered() {
@@ -278,6 +351,28 @@ class AccountServiceTest {
 
   }// 계좌 해지 실패 5 계좌 이미 없음
 
+  @Test
+  @DisplayName("캐시에서 이미 해지된 계좌 - 계좌를 읽지 않고 계좌 해지 실패")
+  void deleteAccountFailed_unregisteredInCache() {
+    // given 어떤 데이터가 있을때
+    AccountUser poby = AccountUser.builder()
+        .id(12L)
+        .name("poby").build();
+    given(accountUserRepository.findById(anyLong()))
+        .willReturn(Optional.of(poby));
+    given(accountCache.get("1234567890"))
+        .willReturn(Optional.of(new AccountCache.CachedAccount(7L, 12L, AccountStatus.UNREGISTERED)));
+
+    // when 어떤 동작을 하면
+    AccountException exception = assertThrows(AccountException.class,
+        () -> accountService.deleteAccount(12L, "1234567890"));
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED, exception.getErrorCode());
+    verify(accountRepository, never()).findById(anyLong());
+    verify(accountRepository, never()).findByAccountNumber(anyString());
+  }
+
   @Test
   void successGetAccountByUserId() {
     // given 어떤 데이터가 있을때
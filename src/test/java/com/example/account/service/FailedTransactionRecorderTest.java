@@ -0,0 +1,135 @@
+package com.example.account.service;
+
+import com.example.account.dto.FailedTransactionDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static com.example.account.type.TransactionType.CANSLE;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FailedTransactionRecorderTest {
+  private static final int QUEUE_CAPACITY = 2;
+
+  @Mock
+  private TransactionService transactionService;
+
+  private MeterRegistry meterRegistry;
+  private FailedTransactionRecorder failedTransactionRecorder;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    failedTransactionRecorder = new FailedTransactionRecorder(
+        transactionService, meterRegistry, QUEUE_CAPACITY, 10, 100, 1000);
+  }
+
+  @Test
+  @DisplayName("실패 거래는 대기열에 모았다가 한번에 기록")
+  void flushQueuedFailedTransactions() {
+    // given 어떤 데이터가 있을때
+    failedTransactionRecorder.recordUse("1000000012", 1000L);
+    failedTransactionRecorder.recordCancel("1000000013", 2000L);
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<FailedTransactionDto>> captor = ArgumentCaptor.forClass(List.class);
+
+    // when 어떤 동작을 하면
+    int flushed = failedTransactionRecorder.flush();
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(2, flushed);
+    verify(transactionService, times(1)).saveFailedTransactions(captor.capture());
+    assertEquals(USE, captor.getValue().get(0).getTransactionType());
+    assertEquals("1000000012", captor.getValue().get(0).getAccountNumber());
+    assertEquals(CANSLE, captor.getValue().get(1).getTransactionType());
+    assertEquals(2000L, captor.getValue().get(1).getAmount());
+    assertEquals(0.0, meterRegistry.get("account.failed_transaction.queue.depth").gauge().value());
+  }
+
+  @Test
+  @DisplayName("대기열이 가득 차면 요청 스레드에서 바로 기록")
+  void writeSynchronouslyWhenQueueIsFull() {
+    // given 어떤 데이터가 있을때
+    failedTransactionRecorder.recordUse("1000000012", 1000L);
+    failedTransactionRecorder.recordUse("1000000012", 1000L);
+
+    // when 어떤 동작을 하면
+    failedTransactionRecorder.recordUse("1000000012", 1000L);
+
+    // then 어떤 결과가 나와야 한다
+    verify(transactionService, times(1)).saveFailedTransactions(anyList());
+    assertEquals(2.0, meterRegistry.get("account.failed_transaction.queue.depth").gauge().value());
+    assertEquals(1.0, meterRegistry.get("account.failed_transaction.sync_fallback").counter().count());
+  }
+
+  @Test
+  @DisplayName("배치 기록이 실패하면 건별로 다시 기록하고, 그래도 실패한 건은 대기열로 되돌림")
+  void retryPerItemAndRequeueWhenBatchFails() {
+    // given 어떤 데이터가 있을때
+    failedTransactionRecorder.recordUse("1000000012", 1000L);
+    failedTransactionRecorder.recordUse("1000000013", 2000L);
+    doThrow(new IllegalStateException("batch"))
+        .doNothing()
+        .doThrow(new IllegalStateException("1000000013"))
+        .when(transactionService).saveFailedTransactions(anyList());
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<FailedTransactionDto>> captor = ArgumentCaptor.forClass(List.class);
+
+    // when 어떤 동작을 하면
+    failedTransactionRecorder.flush();
+
+    // then 어떤 결과가 나와야 한다
+    verify(transactionService, times(3)).saveFailedTransactions(captor.capture());
+    assertEquals(2, captor.getAllValues().get(0).size());
+    assertEquals("1000000012", captor.getAllValues().get(1).get(0).getAccountNumber());
+    assertEquals(1.0, meterRegistry.get("account.failed_transaction.written").counter().count());
+    assertEquals(1.0, meterRegistry.get("account.failed_transaction.requeued").counter().count());
+    assertEquals(1.0, meterRegistry.get("account.failed_transaction.queue.depth").gauge().value());
+    assertEquals(0.0, meterRegistry.get("account.failed_transaction.lost").counter().count());
+  }
+
+  @Test
+  @DisplayName("종료하면 쓰는 스레드를 끊지 않고 멈춘 뒤 남은 건을 모두 기록")
+  void drainOnStop() throws InterruptedException {
+    // given 어떤 데이터가 있을때
+    failedTransactionRecorder.start();
+    failedTransactionRecorder.recordUse("1000000012", 1000L);
+    failedTransactionRecorder.recordCancel("1000000013", 2000L);
+
+    // when 어떤 동작을 하면
+    failedTransactionRecorder.stop();
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(2.0, meterRegistry.get("account.failed_transaction.written").counter().count());
+    assertEquals(0.0, meterRegistry.get("account.failed_transaction.queue.depth").gauge().value());
+  }
+
+  @Test
+  @DisplayName("종료할 때까지 기록하지 못한 건은 버린 것으로 셈")
+  void countLostOnStop() throws InterruptedException {
+    // given 어떤 데이터가 있을때
+    doThrow(new IllegalStateException("db down"))
+        .when(transactionService).saveFailedTransactions(anyList());
+    failedTransactionRecorder.recordUse("1000000012", 1000L);
+
+    // when 어떤 동작을 하면
+    failedTransactionRecorder.start();
+    failedTransactionRecorder.stop();
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(1.0, meterRegistry.get("account.failed_transaction.lost").counter().count());
+    assertEquals(0.0, meterRegistry.get("account.failed_transaction.queue.depth").gauge().value());
+  }
+}
@@ -0,0 +1,153 @@
+package com.example.account.service;
+
+import com.example.account.dto.UseBalanceDto;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RBucket;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.account.type.TransactionResultType.S;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+  private static final long TTL_MS = 60_000L;
+
+  @Mock
+  private RedissonClient redissonClient;
+
+  @Mock
+  private RBucket<String> bucket;
+
+  @Mock
+  private RLock lock;
+
+  private final ObjectMapper objectMapper = new ObjectMapper()
+      .registerModule(new JavaTimeModule())
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+  private IdempotencyService idempotencyService;
+
+  @BeforeEach
+  void setUp() {
+    idempotencyService = new IdempotencyService(redissonClient, objectMapper,
+        new SimpleMeterRegistry(), TTL_MS, 1000L);
+    given(redissonClient.<String>getBucket(anyString(), eq(StringCodec.INSTANCE)))
+        .willReturn(bucket);
+  }
+
+  @Test
+  @DisplayName("처음 들어온 키는 실행하고 응답을 보관")
+  void executeAndStore() throws Exception {
+    // given 어떤 데이터가 있을때
+    UseBalanceDto.Request request = new UseBalanceDto.Request(1L, "1000000000", 1000L);
+    given(redissonClient.getLock("IDEM:use:key-1:lock")).willReturn(lock);
+    given(lock.tryLock(anyLong(), eq(TimeUnit.MILLISECONDS))).willReturn(true);
+    given(lock.isHeldByCurrentThread()).willReturn(true);
+
+    // when 어떤 동작을 하면
+    UseBalanceDto.Response response = idempotencyService.execute("use", "key-1", request,
+        UseBalanceDto.Response.class, () -> response("transactionId"));
+
+    // then 어떤 결과가 나와야 한다
+    ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+    verify(bucket).set(captor.capture(), eq(TTL_MS), eq(TimeUnit.MILLISECONDS));
+    verify(lock).unlock();
+    assertEquals("transactionId", response.getTransactionId());
+
+    IdempotencyService.StoredResponse stored =
+        objectMapper.readValue(captor.getValue(), IdempotencyService.StoredResponse.class);
+    assertEquals(objectMapper.writeValueAsString(request), stored.getFingerprint());
+  }
+
+  @Test
+  @DisplayName("보관된 키로 다시 들어오면 실행하지 않고 처음 응답을 돌려줌")
+  void replayStoredResponse() throws Exception {
+    // given 어떤 데이터가 있을때
+    UseBalanceDto.Request request = new UseBalanceDto.Request(1L, "1000000000", 1000L);
+    given(bucket.get()).willReturn(stored(request, response("firstTransactionId")));
+
+    // when 어떤 동작을 하면
+    UseBalanceDto.Response response = idempotencyService.execute("use", "key-1", request,
+        UseBalanceDto.Response.class, () -> {
+          throw new IllegalStateException("must not run");
+        });
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals("firstTransactionId", response.getTransactionId());
+    verify(redissonClient, never()).getLock(anyString());
+  }
+
+  @Test
+  @DisplayName("같은 키에 다른 요청이 오면 실패")
+  void keyReusedWithDifferentRequest() throws Exception {
+    // given 어떤 데이터가 있을때
+    given(bucket.get()).willReturn(stored(
+        new UseBalanceDto.Request(1L, "1000000000", 1000L), response("transactionId")));
+
+    // when 어떤 동작을 하면
+    AccountException exception = assertThrows(AccountException.class,
+        () -> idempotencyService.execute("use", "key-1",
+            new UseBalanceDto.Request(1L, "1000000000", 2000L),
+            UseBalanceDto.Response.class, () -> response("other")));
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(ErrorCode.IDEMPOTENCY_KEY_REUSED, exception.getErrorCode());
+  }
+
+  @Test
+  @DisplayName("같은 키로 처리 중인 요청이 끝나지 않으면 실패")
+  void requestInProgress() throws Exception {
+    // given 어떤 데이터가 있을때
+    given(redissonClient.getLock("IDEM:use:key-1:lock")).willReturn(lock);
+    given(lock.tryLock(anyLong(), eq(TimeUnit.MILLISECONDS))).willReturn(false);
+
+    // when 어떤 동작을 하면
+    AccountException exception = assertThrows(AccountException.class,
+        () -> idempotencyService.execute("use", "key-1",
+            new UseBalanceDto.Request(1L, "1000000000", 1000L),
+            UseBalanceDto.Response.class, () -> response("transactionId")));
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(ErrorCode.IDEMPOTENCY_REQUEST_IN_PROGRESS, exception.getErrorCode());
+    verify(bucket, never()).set(anyString(), anyLong(), eq(TimeUnit.MILLISECONDS));
+  }
+
+  private String stored(UseBalanceDto.Request request, UseBalanceDto.Response response)
+      throws Exception {
+    return objectMapper.writeValueAsString(new IdempotencyService.StoredResponse(
+        objectMapper.writeValueAsString(request), objectMapper.writeValueAsString(response)));
+  }
+
+  private static UseBalanceDto.Response response(String transactionId) {
+    return UseBalanceDto.Response.builder()
+        .accountNumber("1000000000")
+        .transactionResult(S)
+        .transactionId(transactionId)
+        .amount(1000L)
+        .transactedAt(LocalDateTime.now())
+        .build();
+  }
+}
@@ -0,0 +1,113 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class LockServiceTest {
+  @Mock
+  private RedissonClient redissonClient;
+
+  @Mock
+  private RLock rLock;
+
+  private MeterRegistry meterRegistry;
+  private LockService lockService;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    lockService = new LockService(redissonClient, meterRegistry);
+  }
+
+  @Test
+  @DisplayName("계좌 락 획득 성공")
+  void successGetLock() throws InterruptedException {
+    // given 어떤 데이터가 있을때
+    given(redissonClient.getLock(anyString()))
+        .willReturn(rLock);
+    given(rLock.tryLock(anyLong(), anyLong(), any()))
+        .willReturn(true);
+
+    // when 어떤 동작을 하면
+    RLock lock = lockService.lock("1234567890", 1000L, 5000L);
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(rLock, lock);
+    verify(redissonClient, times(1)).getLock("ACLK:1234567890");
+    verify(rLock, times(1)).tryLock(1000L, 5000L, TimeUnit.MILLISECONDS);
+    assertEquals(1, meterRegistry.get("account.lock.wait")
+        .tag("result", "acquired").timer().count());
+  }
+
+  @Test
+  @DisplayName("대기 시간 초과 - 계좌 락 획득 실패")
+  void failGetLock() throws InterruptedException {
+    // given 어떤 데이터가 있을때
+    given(redissonClient.getLock(anyString()))
+        .willReturn(rLock);
+    given(rLock.tryLock(anyLong(), anyLong(), any()))
+        .willReturn(false);
+
+    // when 어떤 동작을 하면
+    AccountException exception = assertThrows(AccountException.class,
+        () -> lockService.lock("1234567890", 1000L, 5000L));
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+    assertEquals(1, meterRegistry.get("account.lock.wait")
+        .tag("result", "timeout").timer().count());
+  }
+
+  @Test
+  @DisplayName("락을 풀면 잡고 있던 시간을 기록")
+  void recordHoldTime() throws InterruptedException {
+    // given 어떤 데이터가 있을때
+    given(redissonClient.getLock(anyString()))
+        .willReturn(rLock);
+    given(rLock.tryLock(anyLong(), anyLong(), any()))
+        .willReturn(true);
+    RLock lock = lockService.lock("1234567890", 1000L, 5000L);
+
+    // when 어떤 동작을 하면
+    lockService.unlock(lock, "1234567890");
+
+    // then 어떤 결과가 나와야 한다
+    verify(rLock, times(1)).unlock();
+    assertEquals(1, meterRegistry.get("account.lock.hold").timer().count());
+  }
+
+  @Test
+  @DisplayName("이미 만료된 락 해제는 예외 없이 넘어감")
+  void unlockExpiredLock() {
+    // given 어떤 데이터가 있을때
+    willThrow(new IllegalMonitorStateException())
+        .given(rLock).unlock();
+
+    // when 어떤 동작을 하면
+    lockService.unlock(rLock, "1234567890");
+
+    // then 어떤 결과가 나와야 한다
+    verify(rLock, times(1)).unlock();
+  }
+}
@@ -0,0 +1,92 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.account.service.SnowflakeTransactionIdGenerator.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeTransactionIdGeneratorTest {
+  private static final long NOW = EPOCH_MS + 1_000_000L;
+
+  @Test
+  @DisplayName("시각, 노드, 순번이 들어간 16자리 hex")
+  void layout() {
+    // given 어떤 데이터가 있을때
+    SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(5, () -> NOW);
+
+    // when 어떤 동작을 하면
+    long first = generator.nextLong();
+    long second = generator.nextLong();
+    String id = generator.nextId();
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(NOW - EPOCH_MS, first >>> (NODE_BITS + SEQUENCE_BITS));
+    assertEquals(5, (first >>> SEQUENCE_BITS) & MAX_NODE_ID);
+    assertEquals(first + 1, second);
+    assertEquals(16, id.length());
+    assertEquals(Long.toHexString(second + 1), id.replaceFirst("^0+", ""));
+  }
+
+  @Test
+  @DisplayName("같은 ms 에 순번을 다 쓰거나 시계가 뒤로 가도 계속 증가")
+  void monotonic() {
+    // given 어떤 데이터가 있을때
+    AtomicLong clock = new AtomicLong(NOW);
+    SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(1, clock::get);
+
+    // when 어떤 동작을 하면
+    List<String> ids = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      ids.add(generator.nextId());
+    }
+    clock.addAndGet(-10);
+    ids.add(generator.nextId());
+
+    // then 어떤 결과가 나와야 한다
+    for (int i = 1; i < ids.size(); i++) {
+      assertTrue(ids.get(i - 1).compareTo(ids.get(i)) < 0);
+    }
+  }
+
+  @Test
+  @DisplayName("여러 스레드, 여러 노드에서 발급해도 겹치지 않음")
+  void uniqueAcrossThreadsAndNodes() throws Exception {
+    // given 어떤 데이터가 있을때
+    SnowflakeTransactionIdGenerator node1 = new SnowflakeTransactionIdGenerator(1, System::currentTimeMillis);
+    SnowflakeTransactionIdGenerator node2 = new SnowflakeTransactionIdGenerator(2, System::currentTimeMillis);
+    Set<String> ids = ConcurrentHashMap.newKeySet();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    // when 어떤 동작을 하면
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      SnowflakeTransactionIdGenerator generator = t % 2 == 0 ? node1 : node2;
+      futures.add(executor.submit(() -> {
+        for (int i = 0; i < 20_000; i++) {
+          ids.add(generator.nextId());
+        }
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get(10, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(160_000, ids.size());
+  }
+
+  @Test
+  @DisplayName("노드 id 범위를 벗어나면 기동 실패")
+  void invalidNodeId() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new SnowflakeTransactionIdGenerator(MAX_NODE_ID + 1, System::currentTimeMillis));
+  }
+}
@@ -0,0 +1,107 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.ExportFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionExportServiceTest {
+  private static final LocalDateTime FROM = LocalDateTime.of(2023, 7, 1, 0, 0);
+  private static final LocalDateTime TO = LocalDateTime.of(2023, 8, 1, 0, 0);
+
+  @Mock
+  private TransactionRepository transactionRepository;
+
+  @Mock
+  private EntityManager entityManager;
+
+  private TransactionExportService transactionExportService;
+
+  @BeforeEach
+  void setUp() {
+    ObjectMapper objectMapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    transactionExportService = new TransactionExportService(transactionRepository, objectMapper);
+    ReflectionTestUtils.setField(transactionExportService, "entityManager", entityManager);
+  }
+
+  @Test
+  @DisplayName("CSV export")
+  void exportCsv() throws Exception {
+    // given 어떤 데이터가 있을때
+    given(transactionRepository.streamForExport(FROM, TO, USE))
+        .willReturn(Stream.of(transaction(1), transaction(2)));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    // when 어떤 동작을 하면
+    long count = transactionExportService.export(FROM, TO, USE, ExportFormat.CSV, out);
+
+    // then 어떤 결과가 나와야 한다
+    String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n");
+    assertEquals(2, count);
+    assertEquals(3, lines.length);
+    assertEquals(TransactionExportService.CSV_HEADER, lines[0]);
+    assertEquals("t1,1000000012,USE,S,100,900,2023-07-01T12:00", lines[1]);
+  }
+
+  @Test
+  @DisplayName("NDJSON export - 일정 건수마다 영속성 컨텍스트를 비운다")
+  void exportNdjsonClearsPersistenceContext() throws Exception {
+    // given 어떤 데이터가 있을때
+    int rows = TransactionExportService.CLEAR_INTERVAL * 2 + 1;
+    given(transactionRepository.streamForExport(eq(FROM), eq(TO), any()))
+        .willReturn(IntStream.rangeClosed(1, rows).mapToObj(TransactionExportServiceTest::transaction));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    // when 어떤 동작을 하면
+    long count = transactionExportService.export(FROM, TO, null, ExportFormat.NDJSON, out);
+
+    // then 어떤 결과가 나와야 한다
+    String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n");
+    assertEquals(rows, count);
+    assertEquals(rows, lines.length);
+    assertTrue(lines[0].contains("\"transactionId\":\"t1\""));
+    verify(entityManager, times(2)).clear();
+  }
+
+  private static Transaction transaction(int i) {
+    return Transaction.builder()
+        .account(Account.builder().accountNumber("1000000012").build())
+        .transactionType(USE)
+        .transactionResultType(S)
+        .amount(100L)
+        .balanceSnapshot(900L)
+        .transactionId("t" + i)
+        .transactedAt(LocalDateTime.of(2023, 7, 1, 12, 0))
+        .build();
+  }
+}
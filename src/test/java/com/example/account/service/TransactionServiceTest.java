@@ -3,13 +3,17 @@ package com.example.account.service;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionBatchResultDto;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistoryDto;
+import com.example.account.dto.UseBalanceDto;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
 import com.example.account.repository.TransactionRepository;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.LockStrategy;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,8 +21,13 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static com.example.account.type.AccountStatus.*;
@@ -29,8 +38,10 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 @ExtendWith(MockitoExtension.class)
 class TransactionServiceTest {
@@ -45,6 +56,15 @@ class TransactionServiceTest {
   @Mock
   private AccountUserRepository accountUserRepository;
 
+  @Mock
+  private AccountCache accountCache;
+
+  @Mock
+  private TransactionIdGenerator transactionIdGenerator;
+
+  @Mock
+  private AccountDailySummaryService accountDailySummaryService;
+
   @InjectMocks
   private TransactionService transactionService;
 
@@ -156,6 +176,32 @@ class TransactionServiceTest {
 
   }// 잔액 사용 실패 3 계좌 소유주 다름
 
+  @Test
+  @DisplayName("캐시의 소유주가 다르거나 해지된 계좌 - 계좌를 읽지 않고 잔액 사용 실패")
+  void useBalance_RejectedByCache() {
+    // given 어떤 데이터가 있을때
+    AccountUser poby = AccountUser.builder()
+        .id(12L)
+        .name("poby").build();
+    given(accountUserRepository.findById(anyLong()))
+        .willReturn(Optional.of(poby));
+    given(accountCache.get("1000000012"))
+        .willReturn(Optional.of(new AccountCache.CachedAccount(7L, 13L, IN_USE)));
+    given(accountCache.get("1000000013"))
+        .willReturn(Optional.of(new AccountCache.CachedAccount(8L, 12L, UNREGISTERED)));
+
+    // when 어떤 동작을 하면
+    AccountException unmatched = assertThrows(AccountException.class,
+        () -> transactionService.useBalance(12L, "1000000012", 100L));
+    AccountException unregistered = assertThrows(AccountException.class,
+        () -> transactionService.useBalance(12L, "1000000013", 100L));
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(ErrorCode.USER_ACCOUNT_UNMATCHED, unmatched.getErrorCode());
+    assertEquals(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED, unregistered.getErrorCode());
+    verifyNoInteractions(accountRepository);
+  }
+
   @Test
   @DisplayName("계좌 이미 없음 - 계좌 해지 실패")
   void deleteAccountFailed_alreadyUnregistered() {
@@ -448,5 +494,150 @@ class TransactionServiceTest {
     assertEquals(ErrorCode.TOO_OLD_ORDER_TO_CANCEL, accountException.getErrorCode());
   }
 
+  @Test
+  @DisplayName("일괄 잔액 사용 - 실패한 건만 실패 거래로 남기고 나머지는 처리")
+  void useBalanceBatch_PartialFailure() {
+    // given 어떤 데이터가 있을때
+    AccountUser user = AccountUser.builder()
+        .id(12L)
+        .name("Pobi").build();
+    Account account = Account.builder()
+        .accountUser(user)
+        .accountStatus(IN_USE)
+        .balance(1000L)
+        .accountNumber("1000000012")
+        .build();
+
+    given(accountUserRepository.findAllById(anyIterable()))
+        .willReturn(Collections.singletonList(user));
+    given(accountRepository.findByAccountNumberIn(anyCollection()))
+        .willReturn(Collections.singletonList(account));
+    given(transactionRepository.save(any()))
+        .willAnswer(invocation -> invocation.getArgument(0));
+
+    ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+
+    // when 어떤 동작을 하면
+    List<TransactionBatchResultDto> results = transactionService.useBalanceBatch(Arrays.asList(
+        new UseBalanceDto.Request(12L, "1000000012", 600L),
+        new UseBalanceDto.Request(12L, "1000000012", 600L),
+        new UseBalanceDto.Request(12L, "9999999999", 100L)));
+
+    // then 어떤 결과가 나와야 한다
+    verify(transactionRepository, times(2)).save(captor.capture());
+    assertEquals(S, captor.getAllValues().get(0).getTransactionResultType());
+    assertEquals(F, captor.getAllValues().get(1).getTransactionResultType());
+    assertEquals(400L, account.getBalance());
+    assertEquals(S, results.get(0).getTransactionResult());
+    assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, results.get(1).getErrorCode());
+    assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, results.get(2).getErrorCode());
+  }
+
+  @Test
+  @DisplayName("거래 내역 조회 - 다음 페이지가 있으면 커서를 돌려준다")
+  void getTransactions_NextCursor() {
+    // given 어떤 데이터가 있을때
+    LocalDateTime now = LocalDateTime.of(2023, 7, 1, 12, 0);
+    given(accountRepository.findByAccountNumber(anyString()))
+        .willReturn(Optional.of(Account.builder()
+            .id(7L)
+            .accountUser(AccountUser.builder().id(12L).build())
+            .accountNumber("1000000012").build()));
+    given(transactionRepository.findHistoryAfter(eq(7L), eq(now), eq(30L), any()))
+        .willReturn(Arrays.asList(
+            new TransactionHistoryDto.Item(29L, "t29", USE, S, 100L, 900L, now),
+            new TransactionHistoryDto.Item(28L, "t28", USE, S, 100L, 1000L, now.minusMinutes(1)),
+            new TransactionHistoryDto.Item(27L, "t27", USE, S, 100L, 1100L, now.minusMinutes(2))));
 
-}
\ No newline at end of file
+    // when 어떤 동작을 하면
+    TransactionHistoryDto.Response response = transactionService.getTransactions("1000000012",
+        new TransactionHistoryDto.Cursor(now, 30L).encode(), 2);
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(2, response.getTransactions().size());
+    TransactionHistoryDto.Cursor next = TransactionHistoryDto.Cursor.decode(response.getNextCursor());
+    assertEquals(28L, next.getId());
+    assertEquals(now.minusMinutes(1), next.getTransactedAt());
+  }
+
+  @Test
+  @DisplayName("거래 내역 조회 - 캐시에 있는 계좌는 계좌를 읽지 않음")
+  void getTransactions_CachedAccount() {
+    // given 어떤 데이터가 있을때
+    given(accountCache.get("1000000012"))
+        .willReturn(Optional.of(new AccountCache.CachedAccount(7L, 12L, IN_USE)));
+    given(transactionRepository.findHistory(eq(7L), any()))
+        .willReturn(Collections.emptyList());
+
+    // when 어떤 동작을 하면
+    TransactionHistoryDto.Response response = transactionService.getTransactions("1000000012", null, 20);
+
+    // then 어떤 결과가 나와야 한다
+    assertEquals(0, response.getTransactions().size());
+    verifyNoInteractions(accountRepository);
+  }
+
+  @Test
+  @DisplayName("거래 내역 조회 - 잘못된 커서")
+  void getTransactions_InvalidCursor() {
+    //given
+    given(accountRepository.findByAccountNumber(anyString()))
+        .willReturn(Optional.of(Account.builder()
+            .id(7L)
+            .accountNumber("1000000012").build()));
+
+    //when
+    AccountException exception = assertThrows(AccountException.class,
+        () -> transactionService.getTransactions("1000000012", "not-a-cursor", 20));
+
+    //then
+    assertEquals(ErrorCode.INVALID_ID_REQUEST, exception.getErrorCode());
+  }
+
+  @Test
+  @DisplayName("pessimistic 모드 - 계좌를 SELECT ... FOR UPDATE 로 조회")
+  void useBalance_PessimisticLock() {
+    // given 어떤 데이터가 있을때
+    ReflectionTestUtils.setField(transactionService, "lockStrategy", LockStrategy.PESSIMISTIC);
+    AccountUser user = AccountUser.builder()
+        .id(12L)
+        .name("Pobi").build();
+    Account account = Account.builder()
+        .accountUser(user)
+        .accountStatus(IN_USE)
+        .balance(10000L)
+        .accountNumber("1000000012")
+        .build();
+    given(accountUserRepository.findById(anyLong()))
+        .willReturn(Optional.of(user));
+    given(accountRepository.findForUpdateByAccountNumber(anyString()))
+        .willReturn(Optional.of(account));
+    given(transactionRepository.save(any()))
+        .willAnswer(invocation -> invocation.getArgument(0));
+
+    // when 어떤 동작을 하면
+    transactionService.useBalance(12L, "1000000012", USE_AMOUNT);
+
+    // then 어떤 결과가 나와야 한다
+    verify(accountRepository, never()).findByAccountNumber(anyString());
+    assertEquals(10000L - USE_AMOUNT, account.getBalance());
+  }
+
+  @Test
+  @DisplayName("pessimistic 모드 - row 락 대기 시간 초과")
+  void useBalance_PessimisticLockTimeout() {
+    //given
+    ReflectionTestUtils.setField(transactionService, "lockStrategy", LockStrategy.PESSIMISTIC);
+    given(accountUserRepository.findById(anyLong()))
+        .willReturn(Optional.of(AccountUser.builder().id(12L).build()));
+    given(accountRepository.findForUpdateByAccountNumber(anyString()))
+        .willThrow(new PessimisticLockingFailureException("lock timeout"));
+
+    //when
+    AccountException exception = assertThrows(AccountException.class,
+        () -> transactionService.useBalance(12L, "1000000012", USE_AMOUNT));
+
+    //then
+    assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+  }
+}